@@ -2,10 +2,7 @@ package myapp.inventorysystem;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.fxml.Initializable;
 import javafx.stage.Stage;
@@ -21,7 +18,7 @@ import java.util.ResourceBundle;
  * Resolution: Method named was made to be camelCase.
  *  FUTURE ENHANCEMENT: Consider using a more sophisticated logic for generating Machine IDs
  */
-public class AddPartController implements Initializable {
+public class AddPartController implements Initializable, ReusableController {
 
     @FXML
     private TextField partIdText;
@@ -91,6 +88,21 @@ public class AddPartController implements Initializable {
         setupRadioButtons();
     }
 
+    /**
+     * Clear the form and select in-house again, so the cached view can add another part.
+     */
+    @Override
+    public void reset() {
+        partIdText.clear();
+        partNameText.clear();
+        partInventoryText.clear();
+        partPriceText.clear();
+        partMinText.clear();
+        partMaxText.clear();
+        partIdNameText.clear();
+        inHouseRadioButton.setSelected(true);
+    }
+
     private void setupRadioButtons() {
         ToggleGroup toggleGroup = new ToggleGroup();
         inHouseRadioButton.setToggleGroup(toggleGroup);
@@ -171,20 +183,12 @@ public class AddPartController implements Initializable {
     }
 
     private void returnToMainScreen(ActionEvent event) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("main-view.fxml"));
-        Parent root = loader.load();
-
         Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-
-        // Access the controller of the Main form
-        MainController mainController = loader.getController();
 
+        // Switch back to the cached main view and access its controller
+        MainController mainController = ViewCache.showMainView(stage);
 
         mainController.refresh();
-
-        stage.show();
     }
 
     private boolean minValid(int min, int max) {
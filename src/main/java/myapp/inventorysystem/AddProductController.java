@@ -2,15 +2,13 @@ package myapp.inventorysystem;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
 
@@ -26,7 +24,7 @@ import java.util.ResourceBundle;
  *  Resolution: To fix this, the setItems method is added in the addButtonAction and removeButtonAction methods to update the associatedPartTableView when parts are added or removed.
  *  FUTURE ENHANCEMENT: Consider additional initialization logic when setting the inventory
  */
-public class AddProductController implements Initializable {
+public class AddProductController implements Initializable, ReusableController {
 
     /**
      * List to store associated parts with the product being added.
@@ -38,29 +36,34 @@ public class AddProductController implements Initializable {
      */
     private Inventory inventory;
 
+    /**
+     * Filtered view of all parts shown in the part table; searching swaps its predicate.
+     */
+    private FilteredList<Part> filteredParts;
+
     @FXML
     private TableView<Part> partTableView;
     @FXML
-    private TableColumn<Part, Integer> partIdColumn;
+    private TableColumn<Part, Part> partIdColumn;
     @FXML
     private TableColumn<Part, String> partNameColumn;
     @FXML
-    private TableColumn<Part, Integer> partInventoryColumn;
+    private TableColumn<Part, Part> partInventoryColumn;
     @FXML
-    private TableColumn<Part, Double> partPriceColumn;
+    private TableColumn<Part, Part> partPriceColumn;
     @FXML
     private TextField partSearchText;
 
     @FXML
     private TableView<Part> associatedPartTableView;
     @FXML
-    private TableColumn<Part, Integer> associatedPartIdColumn;
+    private TableColumn<Part, Part> associatedPartIdColumn;
     @FXML
     private TableColumn<Part, String> associatedPartNameColumn;
     @FXML
-    private TableColumn<Part, Integer> associatedPartInventoryColumn;
+    private TableColumn<Part, Part> associatedPartInventoryColumn;
     @FXML
-    private TableColumn<Part, Double> associatedPartPriceColumn;
+    private TableColumn<Part, Part> associatedPartPriceColumn;
 
     @FXML
     private TextField productIdText;
@@ -83,18 +86,37 @@ public class AddProductController implements Initializable {
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        partIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        associatedPartIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        associatedPartNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        associatedPartInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        associatedPartPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        partTableView.setItems(Inventory.getAllParts());
+        RecordColumns.intColumn(partIdColumn, Part::getId);
+        RecordColumns.stringColumn(partNameColumn, Part::getName);
+        RecordColumns.intColumn(partInventoryColumn, Part::getStock);
+        RecordColumns.doubleColumn(partPriceColumn, Part::getPrice);
+
+        RecordColumns.intColumn(associatedPartIdColumn, Part::getId);
+        RecordColumns.stringColumn(associatedPartNameColumn, Part::getName);
+        RecordColumns.intColumn(associatedPartInventoryColumn, Part::getStock);
+        RecordColumns.doubleColumn(associatedPartPriceColumn, Part::getPrice);
+
+        filteredParts = new FilteredList<>(Inventory.getAllParts());
+        SortedList<Part> sortedParts = new SortedList<>(filteredParts);
+        sortedParts.comparatorProperty().bind(partTableView.comparatorProperty());
+        partTableView.setItems(sortedParts);
+    }
 
+    /**
+     * Clears the form, the part search and the associated parts, so the cached view can add another product.
+     */
+    @Override
+    public void reset() {
+        productIdText.clear();
+        productNameText.clear();
+        productInventoryText.clear();
+        productPriceText.clear();
+        productMaxText.clear();
+        productMinText.clear();
+        partSearchText.clear();
+        filteredParts.setPredicate(null);
+        partTableView.getSelectionModel().clearSelection();
+        associatedParts.clear();
     }
 
     @FXML
@@ -102,16 +124,16 @@ public class AddProductController implements Initializable {
         String searchString = partSearchText.getText();
 
         if (!searchString.isEmpty()) {
-            ObservableList<Part> foundParts = searchParts(searchString);
+            IdFilter<Part> foundParts = IdFilter.parts(Inventory.searchPartIds(searchString));
 
             if (foundParts.isEmpty()) {
                 displayAlert("info", "Part Not Found", "No parts matching the search criteria.");
             } else {
-                partTableView.setItems(foundParts); // Update the partTableView with the search results
+                filteredParts.setPredicate(foundParts); // Filter the partTableView down to the search results
             }
         } else {
             // If the search string is empty, display all parts
-            partTableView.setItems(Inventory.getAllParts());
+            filteredParts.setPredicate(null);
         }
     }
 
@@ -119,7 +141,7 @@ public class AddProductController implements Initializable {
     @FXML
     void partSearchKeyPressed(KeyEvent event) {
         if (partSearchText.getText().isEmpty()) {
-            partTableView.setItems(Inventory.getAllParts());
+            filteredParts.setPredicate(null);
         }
     }
 
@@ -177,7 +199,9 @@ public class AddProductController implements Initializable {
                 }
 
                 Product newProduct = new Product(inventory.getNewProductId(), name, price, stock, min, max);
-                newProduct.getAllAssociatedParts().addAll(associatedParts);
+                for (Part part : associatedParts) {
+                    newProduct.addAssociatedPart(part);
+                }
                 inventory.addProduct(newProduct);
                 returnToMainScreen(event);
             }
@@ -597,11 +621,8 @@ public class AddProductController implements Initializable {
          */
         private void returnToMainScreen(ActionEvent event) {
             try {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("main-view.fxml"));
-                Parent mainScreen = loader.load();
                 Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-                stage.setScene(new Scene(mainScreen));
-                stage.show();
+                ViewCache.showMainView(stage);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -734,26 +755,6 @@ public class AddProductController implements Initializable {
         }
     }
 
-    /**
-     * Searches for parts based on the given search string.
-     *
-     * @param searchString The string used to search for parts.
-     * @return An ObservableList of parts matching the search criteria.
-     */
-    private ObservableList<Part> searchParts(String searchString) {
-        ObservableList<Part> allParts = Inventory.getAllParts();
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-
-        for (Part part : allParts) {
-            if (String.valueOf(part.getId()).contains(searchString) ||
-                    part.getName().toLowerCase().contains(searchString.toLowerCase())) {
-                partsFound.add(part);
-            }
-        }
-
-        return partsFound;
-    }
-
     /**
      * Returns to the main screen after saving the product.
      *
@@ -761,16 +762,10 @@ public class AddProductController implements Initializable {
      * @throws IOException If an error occurs while returning to the main screen.
      */
     private void returnToMainScreen(ActionEvent event) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("main-view.fxml"));
-        Parent root = loader.load();
+        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
 
-        MainController mainController = loader.getController();
+        MainController mainController = ViewCache.showMainView(stage);
         mainController.setInventory(inventory);
-
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-        stage.show();
     }
 
     /**
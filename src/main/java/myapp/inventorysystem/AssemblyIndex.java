@@ -0,0 +1,430 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bill of materials of the products in the inventory: the parts and sub-assemblies each product is made
+ * of, and the products each sub-assembly is used in. It explodes a product into the total quantity of
+ * every leaf part it needs and memoises the result of every product it visits, so that shared
+ * sub-assemblies are only exploded once and repeated queries are a single lookup.
+ * <p>
+ * A memoised explosion stays valid until the product or one of its descendants changes; re-indexing a
+ * product drops its explosion and those of every product above it. Trees are walked with explicit stacks
+ * and queues rather than recursion, so their depth is only limited by memory. The index is thread-safe,
+ * guarded by a read/write lock like RecordStore.
+ */
+public class AssemblyIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * From product ID to its parts and sub-assemblies, for products that have any.
+     */
+    private final IntObjectMap<Components> componentsByProduct = new IntObjectMap<>();
+
+    /**
+     * From product ID to the IDs of the products using it as a sub-assembly.
+     */
+    private final IntObjectMap<IntHashSet> parentsByProduct = new IntObjectMap<>();
+
+    /**
+     * Memoised explosions by product ID. If a product has one, so does every descendant it has in the index.
+     */
+    private final IntObjectMap<PartRequirements> explosions = new IntObjectMap<>();
+
+    /**
+     * Index a product under its parts and sub-assemblies, replacing whatever was indexed for it before,
+     * and drop the explosions that depended on it.
+     *
+     * @param product The product.
+     */
+    public void put(Product product) {
+        Components components = new Components(product.getAssociatedPartIds(), product.getAssociatedPartQuantities(),
+                product.getSubAssemblyIds(), product.getSubAssemblyQuantities());
+        lock.writeLock().lock();
+        try {
+            unindex(product.getId());
+            if (components.parts.size() > 0 || components.subAssemblyIds.length > 0) {
+                componentsByProduct.put(product.getId(), components);
+                for (int subAssemblyId : components.subAssemblyIds) {
+                    IntHashSet parents = parentsByProduct.get(subAssemblyId);
+                    if (parents == null) {
+                        parents = new IntHashSet();
+                        parentsByProduct.put(subAssemblyId, parents);
+                    }
+                    parents.add(product.getId());
+                }
+            }
+            invalidate(product.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index one more associated part of a product, leaving its other components alone, and drop the
+     * explosions that depended on it.
+     *
+     * @param productId The ID of the product.
+     * @param partId    The ID of the associated part.
+     * @param quantity  The quantity of the associated part.
+     * @throws ArithmeticException If the total quantity of the part does not fit in an int.
+     */
+    public void addPart(int productId, int partId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            Components components = componentsByProduct.get(productId);
+            if (components == null) {
+                componentsByProduct.put(productId, new Components(new int[]{partId}, new int[]{quantity},
+                        NO_IDS, NO_IDS));
+            } else {
+                components.parts.add(partId, quantity);
+            }
+            invalidate(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index. Products still using it as a sub-assembly treat it as empty.
+     *
+     * @param productId The ID of the product.
+     */
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+            invalidate(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a product is among the sub-assemblies of another, at any depth.
+     *
+     * @param assemblyId The ID of the product to search.
+     * @param productId  The ID of the product to look for.
+     * @return True if the assembly contains the product, false otherwise.
+     */
+    public boolean contains(int assemblyId, int productId) {
+        lock.readLock().lock();
+        try {
+            IntHashSet visited = new IntHashSet();
+            int[] stack = new int[16];
+            int depth = 0;
+            stack[depth++] = assemblyId;
+            visited.add(assemblyId);
+            while (depth > 0) {
+                Components components = componentsByProduct.get(stack[--depth]);
+                if (components == null) {
+                    continue;
+                }
+                for (int subAssemblyId : components.subAssemblyIds) {
+                    if (subAssemblyId == productId) {
+                        return true;
+                    }
+                    if (visited.add(subAssemblyId)) {
+                        if (depth == stack.length) {
+                            stack = Arrays.copyOf(stack, depth * 2);
+                        }
+                        stack[depth++] = subAssemblyId;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flatten a product into the total quantity of each leaf part needed to build one unit of it.
+     *
+     * @param productId The ID of the product.
+     * @return The part requirements, empty if the product has no parts or is not in the index.
+     * @throws ArithmeticException If a quantity does not fit in a long.
+     */
+    public PartRequirements explode(int productId) {
+        lock.readLock().lock();
+        try {
+            PartRequirements explosion = explosions.get(productId);
+            if (explosion != null) {
+                return explosion;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!componentsByProduct.containsKey(productId)) {
+                return PartRequirements.NONE;
+            }
+            explodeTree(productId);
+            return explosions.get(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Limit the buildable quantities of a report by the stock of each product's sub-assemblies, which
+     * Inventory.buildProduct takes out of stock along with the parts. Products that only have sub-assemblies
+     * are added to the report.
+     *
+     * @param report  The buildable quantities worked out from the associated parts.
+     * @param stockOf Gives the stock of a product from its ID, or 0 if the product does not exist.
+     * @return The report with the sub-assemblies counted.
+     */
+    public BuildabilityReport limitBySubAssemblies(BuildabilityReport report, IntUnaryOperator stockOf) {
+        int[] reportIds = report.getProductIds();
+        int[] reportQuantities = report.getBuildableQuantities();
+        lock.readLock().lock();
+        try {
+            int[] assemblyIds = componentsByProduct.keys();
+            int count = 0;
+            for (int productId : assemblyIds) {
+                if (componentsByProduct.get(productId).subAssemblyIds.length > 0) {
+                    assemblyIds[count++] = productId;
+                }
+            }
+            if (count == 0) {
+                return report;
+            }
+            IntHashSet merged = new IntHashSet();
+            for (int productId : reportIds) {
+                merged.add(productId);
+            }
+            for (int i = 0; i < count; i++) {
+                merged.add(assemblyIds[i]);
+            }
+            int[] productIds = merged.toArray();
+            Arrays.sort(productIds);
+            int[] quantities = new int[productIds.length];
+            for (int i = 0; i < productIds.length; i++) {
+                int index = Arrays.binarySearch(reportIds, productIds[i]);
+                int buildable = index < 0 ? Integer.MAX_VALUE : reportQuantities[index];
+                Components components = componentsByProduct.get(productIds[i]);
+                if (components != null) {
+                    for (int j = 0; j < components.subAssemblyIds.length; j++) {
+                        int stock = Math.max(0, stockOf.applyAsInt(components.subAssemblyIds[j]));
+                        buildable = Math.min(buildable, stock / components.subAssemblyQuantities[j]);
+                    }
+                }
+                quantities[i] = buildable;
+            }
+            return new BuildabilityReport(productIds, quantities);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of products whose explosion is memoised.
+     *
+     * @return The number of memoised explosions.
+     */
+    public int getExplosionCount() {
+        lock.readLock().lock();
+        try {
+            return explosions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every product from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            componentsByProduct.clear();
+            parentsByProduct.clear();
+            explosions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Explode a product and every descendant not exploded yet, children before parents, with a stack of
+     * products and the position of the next sub-assembly to visit in each. A sub-assembly already on the
+     * stack would close a cycle, which addSubAssembly prevents; should one be read back anyway it counts
+     * as empty. Callers must hold the write lock.
+     */
+    private void explodeTree(int rootId) {
+        int[] stack = new int[16];
+        int[] next = new int[16];
+        IntHashSet onStack = new IntHashSet();
+        int depth = 0;
+        stack[depth] = rootId;
+        next[depth++] = 0;
+        onStack.add(rootId);
+        while (depth > 0) {
+            int productId = stack[depth - 1];
+            Components components = componentsByProduct.get(productId);
+            int[] subAssemblyIds = components == null ? NO_IDS : components.subAssemblyIds;
+            boolean descend = false;
+            int child = 0;
+            while (!descend && next[depth - 1] < subAssemblyIds.length) {
+                child = subAssemblyIds[next[depth - 1]++];
+                descend = !explosions.containsKey(child) && componentsByProduct.containsKey(child)
+                        && !onStack.contains(child);
+            }
+            if (descend) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                }
+                stack[depth] = child;
+                next[depth++] = 0;
+                onStack.add(child);
+                continue;
+            }
+            explosions.put(productId, combine(components));
+            onStack.remove(productId);
+            depth--;
+        }
+    }
+
+    /**
+     * Add up the parts of a product and the explosions of its sub-assemblies, which must already be memoised.
+     */
+    private PartRequirements combine(Components components) {
+        PartQuantities parts = components.parts;
+        IntIntMap slots = new IntIntMap(parts.size() * 2);
+        int[] ids = new int[Math.max(parts.size(), 4)];
+        long[] totals = new long[ids.length];
+        int count = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            ids[count] = parts.partIdAt(i);
+            totals[count] = parts.quantityAt(i);
+            slots.put(parts.partIdAt(i), count++);
+        }
+        for (int i = 0; i < components.subAssemblyIds.length; i++) {
+            PartRequirements explosion = explosions.get(components.subAssemblyIds[i]);
+            if (explosion == null) {
+                continue;
+            }
+            long quantity = components.subAssemblyQuantities[i];
+            for (int j = 0; j < explosion.size(); j++) {
+                int partId = explosion.partIdAt(j);
+                long needed = Math.multiplyExact(explosion.quantityAt(j), quantity);
+                int slot = slots.get(partId, -1);
+                if (slot >= 0) {
+                    totals[slot] = Math.addExact(totals[slot], needed);
+                } else {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        totals = Arrays.copyOf(totals, count * 2);
+                    }
+                    ids[count] = partId;
+                    totals[count] = needed;
+                    slots.put(partId, count++);
+                }
+            }
+        }
+        int[] sortedIds = Arrays.copyOf(ids, count);
+        Arrays.sort(sortedIds);
+        long[] sortedTotals = new long[count];
+        for (int i = 0; i < count; i++) {
+            sortedTotals[i] = totals[slots.get(sortedIds[i], -1)];
+        }
+        return new PartRequirements(sortedIds, sortedTotals);
+    }
+
+    /**
+     * Drop the explosion of a product and of every product above it. The walk stops at products without
+     * an explosion: nothing above them can have one either. The product itself may have had none while
+     * its parents counted it as empty, so its parents are always visited. Callers must hold the write lock.
+     */
+    private void invalidate(int productId) {
+        explosions.remove(productId);
+        IntHashSet parents = parentsByProduct.get(productId);
+        if (parents == null) {
+            return;
+        }
+        int[] queue = parents.toArray();
+        int head = 0;
+        int tail = queue.length;
+        while (head < tail) {
+            int parentId = queue[head++];
+            if (explosions.remove(parentId) == null) {
+                continue;
+            }
+            IntHashSet grandparents = parentsByProduct.get(parentId);
+            if (grandparents == null) {
+                continue;
+            }
+            for (int grandparentId : grandparents.toArray()) {
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, tail * 2);
+                }
+                queue[tail++] = grandparentId;
+            }
+        }
+    }
+
+    /**
+     * Remove the components of a product and its entries in the parent sets of its sub-assemblies.
+     * Callers must hold the write lock.
+     */
+    private void unindex(int productId) {
+        Components components = componentsByProduct.remove(productId);
+        if (components == null) {
+            return;
+        }
+        for (int subAssemblyId : components.subAssemblyIds) {
+            IntHashSet parents = parentsByProduct.get(subAssemblyId);
+            if (parents != null && parents.remove(productId) && parents.isEmpty()) {
+                parentsByProduct.remove(subAssemblyId);
+            }
+        }
+    }
+
+    /**
+     * The distinct parts and sub-assemblies of a product, with the total quantity of each.
+     */
+    private static final class Components {
+
+        private final PartQuantities parts;
+
+        private final int[] subAssemblyIds;
+
+        private final int[] subAssemblyQuantities;
+
+        Components(int[] partIds, int[] partQuantities, int[] subAssemblyIds, int[] subAssemblyQuantities) {
+            int[][] subAssemblies = sumRepeated(subAssemblyIds, subAssemblyQuantities);
+            this.parts = new PartQuantities(partIds, partQuantities);
+            this.subAssemblyIds = subAssemblies[0];
+            this.subAssemblyQuantities = subAssemblies[1];
+        }
+
+        /**
+         * Merge repeated IDs, adding up their quantities, and return the distinct IDs and their totals.
+         */
+        private static int[][] sumRepeated(int[] ids, int[] quantities) {
+            IntIntMap indexOf = new IntIntMap(ids.length);
+            int[] distinct = new int[ids.length];
+            int[] totals = new int[ids.length];
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int index = indexOf.get(ids[i], -1);
+                if (index < 0) {
+                    index = count++;
+                    indexOf.put(ids[i], index);
+                    distinct[index] = ids[i];
+                }
+                totals[index] = Math.addExact(totals[index], quantities[i]);
+            }
+            return new int[][]{Arrays.copyOf(distinct, count), Arrays.copyOf(totals, count)};
+        }
+    }
+}
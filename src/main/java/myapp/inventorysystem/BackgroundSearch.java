@@ -0,0 +1,123 @@
+package myapp.inventorysystem;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.util.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs search-as-you-type queries off the JavaFX application thread.
+ * Keystrokes are debounced, so a query only starts once typing pauses. Starting a query cancels
+ * the one before it, interrupting it if it is running so that the searches stop at their next
+ * candidate, and only the result of the latest query is handed to the publisher, which runs back
+ * on the application thread.
+ * <p>
+ * The query function runs on a worker thread and should only touch thread-safe state, such as the
+ * Inventory search indexes. It returns matching IDs, which the publisher resolves on the application thread.
+ */
+public class BackgroundSearch {
+
+    /**
+     * Default pause in typing before a query is started.
+     */
+    public static final Duration DEFAULT_DELAY = Duration.millis(200);
+
+    /**
+     * Worker shared by all searches. Queries are short, so one daemon thread is enough:
+     * a cancelled query that has not started yet is simply skipped, and one that is running
+     * is interrupted and gives the thread up to the next query.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<String, int[]> query;
+
+    private final Consumer<int[]> publisher;
+
+    private final PauseTransition debounce;
+
+    private Task<int[]> currentTask;
+
+    private String pendingText;
+
+    /**
+     * Creates a background search with the default debounce delay.
+     *
+     * @param query     The query to run on the worker thread, returning matching IDs.
+     * @param publisher Receives the IDs of the latest query on the application thread.
+     */
+    public BackgroundSearch(Function<String, int[]> query, Consumer<int[]> publisher) {
+        this(query, publisher, DEFAULT_DELAY);
+    }
+
+    /**
+     * Creates a background search.
+     *
+     * @param query     The query to run on the worker thread, returning matching IDs.
+     * @param publisher Receives the IDs of the latest query on the application thread.
+     * @param delay     The pause in typing before a query is started.
+     */
+    public BackgroundSearch(Function<String, int[]> query, Consumer<int[]> publisher, Duration delay) {
+        this.query = query;
+        this.publisher = publisher;
+        this.debounce = new PauseTransition(delay);
+        this.debounce.setOnFinished(event -> start(pendingText));
+    }
+
+    /**
+     * Schedule a query for the given text once typing pauses. Must be called on the application thread.
+     *
+     * @param searchText The current search text.
+     */
+    public void submit(String searchText) {
+        pendingText = searchText;
+        cancelRunningTask();
+        debounce.playFromStart();
+    }
+
+    /**
+     * Drop any scheduled or running query so that its result is never published.
+     * Must be called on the application thread.
+     */
+    public void cancel() {
+        debounce.stop();
+        cancelRunningTask();
+    }
+
+    private void start(String searchText) {
+        cancelRunningTask();
+        Task<int[]> task = new Task<>() {
+            @Override
+            protected int[] call() {
+                if (isCancelled()) {
+                    return null;
+                }
+                return query.apply(searchText);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            // A newer query may have been started after this one finished but before this handler ran.
+            if (task == currentTask) {
+                currentTask = null;
+                publisher.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(event -> task.getException().printStackTrace());
+        currentTask = task;
+        EXECUTOR.execute(task);
+    }
+
+    private void cancelRunningTask() {
+        if (currentTask != null) {
+            currentTask.cancel(true);
+            currentTask = null;
+        }
+    }
+}
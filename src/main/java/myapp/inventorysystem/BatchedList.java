@@ -0,0 +1,251 @@
+package myapp.inventorysystem;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Base of the read-only ObservableLists that a ListChangeBatcher applies changes to, laid out as a slot map.
+ * <p>
+ * Every record owns a slot. Removing a record leaves a tombstone in its slot; a Fenwick tree over the slots
+ * counts the live records in front of any slot and finds the slot of any list index, both in O(log n).
+ * Subclasses store what is in the slots and find the slot of a record, and compact the tombstones away
+ * once they outnumber the live records, which observers never see because the order does not change.
+ * <p>
+ * Changes are grouped with beginBatch and endBatch. A batch either reports each added, removed and
+ * replaced record, which suits a few changes, or reports that the whole list was replaced, which is much
+ * cheaper for sorted and filtered views of a large list once there are more than about a hundred changes.
+ *
+ * @param <T> The type of the records.
+ */
+public abstract class BatchedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Tombstones are only compacted once there are at least this many, so small lists never bother.
+     */
+    private static final int MIN_COMPACTION = 1024;
+
+    /**
+     * Fenwick tree over the slots, counting 1 for every live record.
+     */
+    private int[] liveCounts = new int[1];
+
+    /**
+     * Number of slots in use, live or tombstone.
+     */
+    protected int slotCount;
+
+    protected int size;
+
+    /**
+     * The records as they were when a whole-list batch began, or null outside such a batch.
+     */
+    private List<T> replacedRecords;
+
+    private boolean changedInBatch;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int lastIndexOf(Object record) {
+        return indexOf(record);
+    }
+
+    /**
+     * Start a group of changes that observers receive as a single change. Groups must not be nested.
+     *
+     * @param replaceWholeList True to report the group as a replacement of the whole list rather than
+     *                         record by record.
+     */
+    void beginBatch(boolean replaceWholeList) {
+        beginChange();
+        if (replaceWholeList) {
+            replacedRecords = snapshot();
+            changedInBatch = false;
+        }
+    }
+
+    /**
+     * End a group of changes and notify observers.
+     */
+    void endBatch() {
+        if (replacedRecords != null) {
+            if (changedInBatch) {
+                nextRemove(0, replacedRecords);
+                nextAdd(0, size);
+            }
+            replacedRecords = null;
+        }
+        endChange();
+    }
+
+    /**
+     * Add a record at the end of the list, unless it is already in the list.
+     *
+     * @param record The record to add.
+     */
+    abstract void append(T record);
+
+    /**
+     * Add records at the end of the list, skipping those already in the list.
+     *
+     * @param records The records to add, in order.
+     */
+    abstract void appendAll(Collection<? extends T> records);
+
+    /**
+     * Remove a record, leaving a tombstone in its slot.
+     *
+     * @param record The record to remove.
+     * @return True if the record was in the list, false otherwise.
+     */
+    abstract boolean removeRecord(T record);
+
+    /**
+     * Put a record in the slot of another, keeping its position.
+     *
+     * @param oldRecord The record to replace.
+     * @param newRecord The replacement.
+     * @return True if the old record was in the list, false otherwise.
+     */
+    abstract boolean replaceRecord(T oldRecord, T newRecord);
+
+    /**
+     * Replace the record at a position of the list.
+     *
+     * @param index  The position of the record to replace.
+     * @param record The replacement.
+     * @return The replaced record.
+     */
+    abstract T replaceAt(int index, T record);
+
+    /**
+     * Copy the live records in list order, for reporting the removal of the whole list.
+     *
+     * @return The live records.
+     */
+    protected abstract List<T> snapshot();
+
+    /**
+     * Check whether a slot holds a live record.
+     *
+     * @param slot The slot.
+     * @return True if the slot is live, false if it is a tombstone or unused.
+     */
+    protected abstract boolean isLive(int slot);
+
+    /**
+     * Report records added at the end of the list, from index from to index to exclusive.
+     */
+    protected void reportAdd(int from, int to) {
+        if (replacedRecords != null) {
+            changedInBatch = true;
+        } else {
+            beginChange();
+            nextAdd(from, to);
+            endChange();
+        }
+    }
+
+    /**
+     * Report the removal of the record that was at an index.
+     */
+    protected void reportRemove(int index, T removed) {
+        if (replacedRecords != null) {
+            changedInBatch = true;
+        } else {
+            beginChange();
+            nextRemove(index, removed);
+            endChange();
+        }
+    }
+
+    /**
+     * Report the replacement of the record at an index.
+     */
+    protected void reportSet(int index, T replaced) {
+        if (replacedRecords != null) {
+            changedInBatch = true;
+        } else {
+            beginChange();
+            nextSet(index, replaced);
+            endChange();
+        }
+    }
+
+    /**
+     * Report that the record at an index changed in place.
+     */
+    protected void reportUpdate(int index) {
+        if (replacedRecords != null) {
+            changedInBatch = true;
+        } else {
+            beginChange();
+            nextUpdate(index);
+            endChange();
+        }
+    }
+
+    /**
+     * Check whether there are enough tombstones for a compaction to pay off.
+     */
+    protected boolean needsCompaction() {
+        return slotCount - size >= Math.max(size, MIN_COMPACTION);
+    }
+
+    /**
+     * Count the live records in the slots before the given slot.
+     */
+    protected int liveBefore(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += liveCounts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Find the slot holding the live record at the given list index.
+     */
+    protected int slotOf(int index) {
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(liveCounts.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < liveCounts.length && liveCounts[next] < remaining) {
+                slot = next;
+                remaining -= liveCounts[next];
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Count a slot as live (delta 1) or as a tombstone (delta -1).
+     */
+    protected void addLive(int slot, int delta) {
+        for (int i = slot + 1; i < liveCounts.length; i += i & -i) {
+            liveCounts[i] += delta;
+        }
+    }
+
+    /**
+     * Build the Fenwick tree for the given number of slots from isLive, in linear time.
+     */
+    protected void rebuildLiveCounts(int capacity) {
+        liveCounts = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= slotCount && isLive(i - 1)) {
+                liveCounts[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                liveCounts[parent] += liveCounts[i];
+            }
+        }
+    }
+}
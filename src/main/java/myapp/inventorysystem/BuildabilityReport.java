@@ -0,0 +1,66 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * How many units of each product can be built from the current stock of its associated parts and
+ * sub-assemblies, as worked out by Inventory.buildabilityReport. The report is a snapshot: it does not follow
+ * later stock changes.
+ */
+public class BuildabilityReport {
+
+    private final int[] productIds;
+
+    private final int[] quantities;
+
+    /**
+     * Creates a report.
+     *
+     * @param productIds The IDs of the products, in ascending order.
+     * @param quantities The buildable quantity of each product, in the order of the IDs.
+     */
+    BuildabilityReport(int[] productIds, int[] quantities) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+    }
+
+    /**
+     * Get the number of units of a product that can be built.
+     *
+     * @param productId The ID of the product.
+     * @return The buildable quantity, or 0 if the product has no associated parts or sub-assemblies, or is not
+     *         in the report.
+     */
+    public int getBuildableQuantity(int productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    /**
+     * Get the IDs of the products in the report, which are the products that have associated parts or
+     * sub-assemblies.
+     *
+     * @return A copy of the product IDs, in ascending order.
+     */
+    public int[] getProductIds() {
+        return productIds.clone();
+    }
+
+    /**
+     * Get the buildable quantity of every product in the report.
+     *
+     * @return A copy of the buildable quantities, in the order of getProductIds.
+     */
+    public int[] getBuildableQuantities() {
+        return quantities.clone();
+    }
+
+    /**
+     * Get the number of products in the report.
+     *
+     * @return The number of products.
+     */
+    public int size() {
+        return productIds.length;
+    }
+}
@@ -0,0 +1,429 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * RecordTable that stores each field in its own primitive array, indexed by row: int arrays for the
+ * inventory levels, a double array for the price, and dictionary codes for the names and company names.
+ * A record costs a few dozen bytes spread over the columns instead of a Part object, its name String and
+ * the map entries pointing at them, and records that share a name share the String.
+ * <p>
+ * Rows freed by removals are reused by later additions. All methods are synchronized on the table.
+ */
+public class ColumnarTable implements RecordTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * From record ID to row.
+     */
+    private final IntIntMap rows = new IntIntMap();
+
+    private final StringDictionary strings = new StringDictionary();
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    /**
+     * Kind of each row, 0 for a free row.
+     */
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Dictionary code of each name.
+     */
+    private int[] names = new int[INITIAL_CAPACITY];
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+
+    private int[] stocks = new int[INITIAL_CAPACITY];
+
+    private int[] mins = new int[INITIAL_CAPACITY];
+
+    private int[] maxes = new int[INITIAL_CAPACITY];
+
+    /**
+     * The machine ID of an InHouse part, or the dictionary code of the company name of an OutSourced part.
+     */
+    private int[] extras = new int[INITIAL_CAPACITY];
+
+    /**
+     * Associated part IDs of each product, or null until a product row is written.
+     */
+    private int[][] partIds;
+
+    /**
+     * Associated part quantities of each product, or null while every quantity of every product is 1.
+     */
+    private int[][] partQuantities;
+
+    /**
+     * Sub-assembly IDs and quantities of each product, each array holding the IDs followed by the
+     * quantities, or null while no product has sub-assemblies.
+     */
+    private int[][] subAssemblies;
+
+    /**
+     * Rows that were freed and can be reused.
+     */
+    private int[] freeRows = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    /**
+     * Number of rows ever used, live or free.
+     */
+    private int rowCount;
+
+    @Override
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    @Override
+    public synchronized boolean contains(int id) {
+        return rows.containsKey(id);
+    }
+
+    @Override
+    public synchronized void put(int id, byte kind, String name, double price, int stock, int min, int max) {
+        int row = rows.get(id, -1);
+        if (row < 0) {
+            row = newRow();
+            rows.put(id, row);
+            ids[row] = id;
+        } else {
+            releaseRow(row);
+        }
+        kinds[row] = kind;
+        names[row] = strings.acquire(name);
+        prices[row] = price;
+        stocks[row] = stock;
+        mins[row] = min;
+        maxes[row] = max;
+    }
+
+    @Override
+    public synchronized boolean remove(int id) {
+        int row = rows.remove(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        releaseRow(row);
+        kinds[row] = 0;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        rows.clear();
+        strings.clear();
+        Arrays.fill(kinds, (byte) 0);
+        partIds = null;
+        partQuantities = null;
+        subAssemblies = null;
+        freeCount = 0;
+        rowCount = 0;
+    }
+
+    @Override
+    public synchronized boolean forEachIdWhile(IntPredicate action) {
+        for (int row = 0; row < rowCount; row++) {
+            if (kinds[row] != 0 && !action.test(ids[row])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Each distinct name is checked once, however many records share it.
+     */
+    @Override
+    public synchronized boolean forEachMatchWhile(String query, IntPredicate action) {
+        // Per dictionary code: 0 not checked yet, 1 contains the query, 2 does not.
+        byte[] nameMatches = new byte[strings.getCodeCount()];
+        for (int row = 0; row < rowCount; row++) {
+            SubstringIndex.checkCancelled();
+            if (kinds[row] == 0) {
+                continue;
+            }
+            int code = names[row];
+            if (nameMatches[code] == 0) {
+                nameMatches[code] = SubstringIndex.normalize(strings.get(code)).contains(query) ? (byte) 1 : 2;
+            }
+            if ((nameMatches[code] == 1 || SubstringIndex.idContains(ids[row], query)) && !action.test(ids[row])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized byte getKind(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? 0 : kinds[row];
+    }
+
+    @Override
+    public synchronized String getName(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? null : strings.get(names[row]);
+    }
+
+    @Override
+    public synchronized void setName(int id, String name) {
+        int row = rows.get(id, -1);
+        if (row >= 0) {
+            int code = strings.acquire(name);
+            strings.release(names[row]);
+            names[row] = code;
+        }
+    }
+
+    @Override
+    public synchronized double getPrice(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? 0 : prices[row];
+    }
+
+    @Override
+    public synchronized void setPrice(int id, double price) {
+        int row = rows.get(id, -1);
+        if (row >= 0) {
+            prices[row] = price;
+        }
+    }
+
+    @Override
+    public synchronized int getStock(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? 0 : stocks[row];
+    }
+
+    @Override
+    public synchronized void setStock(int id, int stock) {
+        int row = rows.get(id, -1);
+        if (row >= 0) {
+            stocks[row] = stock;
+        }
+    }
+
+    @Override
+    public synchronized int getMin(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? 0 : mins[row];
+    }
+
+    @Override
+    public synchronized void setMin(int id, int min) {
+        int row = rows.get(id, -1);
+        if (row >= 0) {
+            mins[row] = min;
+        }
+    }
+
+    @Override
+    public synchronized int getMax(int id) {
+        int row = rows.get(id, -1);
+        return row < 0 ? 0 : maxes[row];
+    }
+
+    @Override
+    public synchronized void setMax(int id, int max) {
+        int row = rows.get(id, -1);
+        if (row >= 0) {
+            maxes[row] = max;
+        }
+    }
+
+    @Override
+    public synchronized int getMachineId(int id) {
+        int row = rows.get(id, -1);
+        return row >= 0 && kinds[row] == RecordCodec.IN_HOUSE ? extras[row] : 0;
+    }
+
+    @Override
+    public synchronized void setMachineId(int id, int machineId) {
+        int row = rows.get(id, -1);
+        if (row >= 0 && kinds[row] == RecordCodec.IN_HOUSE) {
+            extras[row] = machineId;
+        }
+    }
+
+    @Override
+    public synchronized String getCompanyName(int id) {
+        int row = rows.get(id, -1);
+        return row >= 0 && kinds[row] == RecordCodec.OUT_SOURCED ? strings.get(extras[row]) : null;
+    }
+
+    @Override
+    public synchronized void setCompanyName(int id, String companyName) {
+        int row = rows.get(id, -1);
+        if (row >= 0 && kinds[row] == RecordCodec.OUT_SOURCED) {
+            int code = strings.acquire(companyName);
+            strings.release(extras[row]);
+            extras[row] = code;
+        }
+    }
+
+    @Override
+    public synchronized int[] getPartIds(int id) {
+        int row = rows.get(id, -1);
+        if (row < 0 || partIds == null || partIds[row] == null) {
+            return NO_IDS;
+        }
+        return partIds[row].clone();
+    }
+
+    @Override
+    public synchronized int[] getPartQuantities(int id) {
+        int row = rows.get(id, -1);
+        if (row < 0 || partQuantities == null || partQuantities[row] == null) {
+            return null;
+        }
+        return partQuantities[row].clone();
+    }
+
+    @Override
+    public synchronized void setPartIds(int id, int[] associatedPartIds, int[] quantities) {
+        int row = rows.get(id, -1);
+        if (row < 0 || kinds[row] != PRODUCT) {
+            return;
+        }
+        if (partIds == null) {
+            partIds = new int[ids.length][];
+        }
+        partIds[row] = associatedPartIds.length == 0 ? null : associatedPartIds.clone();
+        if (quantities != null && RecordCodec.allOnes(quantities)) {
+            quantities = null;
+        }
+        if (quantities != null && partQuantities == null) {
+            partQuantities = new int[ids.length][];
+        }
+        if (partQuantities != null) {
+            partQuantities[row] = quantities == null || associatedPartIds.length == 0 ? null : quantities.clone();
+        }
+    }
+
+    @Override
+    public synchronized int[] getSubAssemblyIds(int id) {
+        int[] pairs = subAssembliesOf(id);
+        return Arrays.copyOf(pairs, pairs.length / 2);
+    }
+
+    @Override
+    public synchronized int[] getSubAssemblyQuantities(int id) {
+        int[] pairs = subAssembliesOf(id);
+        return Arrays.copyOfRange(pairs, pairs.length / 2, pairs.length);
+    }
+
+    @Override
+    public synchronized void setSubAssemblies(int id, int[] productIds, int[] quantities) {
+        int row = rows.get(id, -1);
+        if (row < 0 || kinds[row] != PRODUCT || (subAssemblies == null && productIds.length == 0)) {
+            return;
+        }
+        if (subAssemblies == null) {
+            subAssemblies = new int[ids.length][];
+        }
+        if (productIds.length == 0) {
+            subAssemblies[row] = null;
+        } else {
+            int[] pairs = Arrays.copyOf(productIds, productIds.length * 2);
+            System.arraycopy(quantities, 0, pairs, productIds.length, productIds.length);
+            subAssemblies[row] = pairs;
+        }
+    }
+
+    @Override
+    public synchronized long getMemoryFootprint() {
+        // Per row: id, name code, stock, min, max and extra ints, a price double and a kind byte.
+        long bytes = (long) ids.length * (Integer.BYTES * 6 + Double.BYTES + 1)
+                + rows.getMemoryFootprint() + strings.getMemoryFootprint();
+        if (partIds != null) {
+            bytes += (long) partIds.length * Integer.BYTES;
+            for (int row = 0; row < rowCount; row++) {
+                if (partIds[row] != null) {
+                    bytes += 16 + (long) partIds[row].length * Integer.BYTES;
+                }
+            }
+        }
+        bytes += arraysFootprint(partQuantities) + arraysFootprint(subAssemblies);
+        return bytes;
+    }
+
+    private long arraysFootprint(int[][] column) {
+        if (column == null) {
+            return 0;
+        }
+        long bytes = (long) column.length * Integer.BYTES;
+        for (int row = 0; row < rowCount; row++) {
+            if (column[row] != null) {
+                bytes += 16 + (long) column[row].length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    private int[] subAssembliesOf(int id) {
+        int row = rows.get(id, -1);
+        if (row < 0 || subAssemblies == null || subAssemblies[row] == null) {
+            return NO_IDS;
+        }
+        return subAssemblies[row];
+    }
+
+    /**
+     * Release the strings and associated parts a row refers to, before it is overwritten or freed.
+     */
+    private void releaseRow(int row) {
+        strings.release(names[row]);
+        if (kinds[row] == RecordCodec.OUT_SOURCED) {
+            strings.release(extras[row]);
+        }
+        extras[row] = 0;
+        if (partIds != null) {
+            partIds[row] = null;
+        }
+        if (partQuantities != null) {
+            partQuantities[row] = null;
+        }
+        if (subAssemblies != null) {
+            subAssemblies[row] = null;
+        }
+    }
+
+    private int newRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            int capacity = rowCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            if (partIds != null) {
+                partIds = Arrays.copyOf(partIds, capacity);
+            }
+            if (partQuantities != null) {
+                partQuantities = Arrays.copyOf(partQuantities, capacity);
+            }
+            if (subAssemblies != null) {
+                subAssemblies = Arrays.copyOf(subAssemblies, capacity);
+            }
+        }
+        return rowCount++;
+    }
+}
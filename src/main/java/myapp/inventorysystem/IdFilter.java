@@ -0,0 +1,65 @@
+package myapp.inventorysystem;
+
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Predicate that accepts the items whose ID is in a fixed set, used to filter the table views
+ * down to the results of an index search without copying the underlying list.
+ *
+ * @param <T> The type of the filtered items.
+ */
+public class IdFilter<T> implements Predicate<T> {
+
+    private final IntHashSet ids;
+
+    private final ToIntFunction<? super T> idOf;
+
+    /**
+     * Creates a filter accepting the items with the given IDs.
+     *
+     * @param ids  The accepted IDs.
+     * @param idOf Extracts the ID of an item.
+     */
+    public IdFilter(int[] ids, ToIntFunction<? super T> idOf) {
+        this.ids = new IntHashSet(ids.length);
+        for (int id : ids) {
+            this.ids.add(id);
+        }
+        this.idOf = idOf;
+    }
+
+    /**
+     * Creates a filter accepting the parts with the given IDs.
+     *
+     * @param partIds The accepted part IDs.
+     * @return The filter.
+     */
+    public static IdFilter<Part> parts(int[] partIds) {
+        return new IdFilter<>(partIds, Part::getId);
+    }
+
+    /**
+     * Creates a filter accepting the products with the given IDs.
+     *
+     * @param productIds The accepted product IDs.
+     * @return The filter.
+     */
+    public static IdFilter<Product> products(int[] productIds) {
+        return new IdFilter<>(productIds, Product::getId);
+    }
+
+    /**
+     * Check whether the filter accepts no item at all.
+     *
+     * @return True if the set of accepted IDs is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    @Override
+    public boolean test(T item) {
+        return ids.contains(idOf.applyAsInt(item));
+    }
+}
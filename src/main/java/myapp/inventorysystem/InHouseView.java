@@ -0,0 +1,105 @@
+package myapp.inventorysystem;
+
+/**
+ * InHouse part whose fields live in a RecordTable. See RecordView.
+ */
+public class InHouseView extends InHouse implements RecordView {
+
+    private final RecordTable table;
+
+    /**
+     * Creates a view of an InHouse part.
+     *
+     * @param table The table holding the part.
+     * @param id    The ID of the part.
+     */
+    public InHouseView(RecordTable table, int id) {
+        super(id, null, 0, 0, 0, 0, 0);
+        this.table = table;
+    }
+
+    @Override
+    public RecordTable getTable() {
+        return table;
+    }
+
+    /**
+     * The ID of a stored part identifies its record and cannot be changed.
+     *
+     * @param id The ID to set.
+     */
+    @Override
+    public void setId(int id) {
+        throw new UnsupportedOperationException("The ID of a stored part cannot be changed.");
+    }
+
+    @Override
+    public String getName() {
+        return table.getName(getId());
+    }
+
+    @Override
+    public void setName(String name) {
+        table.setName(getId(), name);
+    }
+
+    @Override
+    public double getPrice() {
+        return table.getPrice(getId());
+    }
+
+    @Override
+    public void setPrice(double price) {
+        table.setPrice(getId(), price);
+    }
+
+    @Override
+    public int getStock() {
+        return table.getStock(getId());
+    }
+
+    @Override
+    public void setStock(int stock) {
+        table.setStock(getId(), stock);
+    }
+
+    @Override
+    public int getMin() {
+        return table.getMin(getId());
+    }
+
+    @Override
+    public void setMin(int min) {
+        table.setMin(getId(), min);
+    }
+
+    @Override
+    public int getMax() {
+        return table.getMax(getId());
+    }
+
+    @Override
+    public void setMax(int max) {
+        table.setMax(getId(), max);
+    }
+
+    @Override
+    public int getMachineId() {
+        return table.getMachineId(getId());
+    }
+
+    @Override
+    public void setMachineId(int machineId) {
+        table.setMachineId(getId(), machineId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return RecordView.sameRecord(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return getId();
+    }
+}
@@ -0,0 +1,232 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Hash set of primitive ints, used for the ID posting lists of the search indexes.
+ * Uses open addressing with linear probing so that members are never boxed.
+ */
+public class IntHashSet {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Marker for a free slot. The value itself is tracked separately by containsFreeKey.
+     */
+    private static final int FREE_KEY = Integer.MIN_VALUE;
+
+    private int[] keys;
+
+    private int size;
+
+    private boolean containsFreeKey;
+
+    /**
+     * Creates an empty set with the default capacity.
+     */
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an empty set able to hold the expected number of members without resizing.
+     *
+     * @param expectedSize The number of members expected.
+     */
+    public IntHashSet(int expectedSize) {
+        keys = new int[IntObjectMap.tableSizeFor(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2)];
+        Arrays.fill(keys, FREE_KEY);
+    }
+
+    /**
+     * Add a value to the set.
+     *
+     * @param value The value to add.
+     * @return True if the value was not already a member, false otherwise.
+     */
+    public boolean add(int value) {
+        if (value == FREE_KEY) {
+            if (containsFreeKey) {
+                return false;
+            }
+            containsFreeKey = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(value) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a value is a member of the set.
+     *
+     * @param value The value to check.
+     * @return True if the value is a member, false otherwise.
+     */
+    public boolean contains(int value) {
+        if (value == FREE_KEY) {
+            return containsFreeKey;
+        }
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(value) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Remove a value from the set.
+     *
+     * @param value The value to remove.
+     * @return True if the value was a member, false otherwise.
+     */
+    public boolean remove(int value) {
+        if (value == FREE_KEY) {
+            if (!containsFreeKey) {
+                return false;
+            }
+            containsFreeKey = false;
+            size--;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(value) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == value) {
+                keys[slot] = FREE_KEY;
+                size--;
+                closeGap(slot);
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of members in the set.
+     *
+     * @return The number of members.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the set is empty.
+     *
+     * @return True if the set has no members, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove every member from the set.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        containsFreeKey = false;
+        size = 0;
+    }
+
+    /**
+     * Pass every member to the given action, in no particular order.
+     *
+     * @param action The action to perform on each member.
+     */
+    public void forEach(IntConsumer action) {
+        if (containsFreeKey) {
+            action.accept(FREE_KEY);
+        }
+        for (int key : keys) {
+            if (key != FREE_KEY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Pass members to the given action, in no particular order, until it returns false.
+     *
+     * @param action The action to perform on each member, returning whether to continue.
+     * @return True if every member was visited, false if the action stopped early.
+     */
+    public boolean forEachWhile(IntPredicate action) {
+        if (containsFreeKey && !action.test(FREE_KEY)) {
+            return false;
+        }
+        for (int key : keys) {
+            if (key != FREE_KEY && !action.test(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the members into a new array, in no particular order.
+     *
+     * @return An array holding every member of the set.
+     */
+    public int[] toArray() {
+        int[] members = new int[size];
+        int count = 0;
+        if (containsFreeKey) {
+            members[count++] = FREE_KEY;
+        }
+        for (int key : keys) {
+            if (key != FREE_KEY) {
+                members[count++] = key;
+            }
+        }
+        return members;
+    }
+
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int slot = (gap + 1) & mask;
+        while (keys[slot] != FREE_KEY) {
+            int home = IntObjectMap.mix(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                keys[slot] = FREE_KEY;
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE_KEY);
+        int mask = capacity - 1;
+        for (int key : oldKeys) {
+            if (key != FREE_KEY) {
+                int slot = IntObjectMap.mix(key) & mask;
+                while (keys[slot] != FREE_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
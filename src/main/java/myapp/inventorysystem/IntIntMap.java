@@ -0,0 +1,196 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive int keys to primitive int values, used to find the row or slot of a record by
+ * its ID without boxing either side. It has the same open-addressing layout as IntObjectMap, with a
+ * separate occupancy array because every int is a valid value.
+ */
+public class IntIntMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+
+    private int[] values;
+
+    /**
+     * Whether each slot holds an entry.
+     */
+    private boolean[] used;
+
+    private int size;
+
+    /**
+     * Creates an empty map with the default capacity.
+     */
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold the expected number of entries without resizing.
+     *
+     * @param expectedSize The number of entries expected.
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = IntObjectMap.tableSizeFor(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2);
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key          The key to look up.
+     * @param defaultValue The value to return if the key is not present.
+     * @return The mapped value, or defaultValue if the key is not present.
+     */
+    public int get(int key, int defaultValue) {
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Check whether a key is present.
+     *
+     * @param key The key to check.
+     * @return True if the key is mapped to a value, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Map a key to a value, replacing any previous mapping.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(int key, int value) {
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Remove the mapping for a key.
+     *
+     * @param key          The key to remove.
+     * @param defaultValue The value to return if the key is not present.
+     * @return The removed value, or defaultValue if the key was not present.
+     */
+    public int remove(int key, int defaultValue) {
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                used[slot] = false;
+                size--;
+                closeGap(slot);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Get the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry from the map.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Get the approximate number of bytes taken by the map's arrays.
+     *
+     * @return The size of the arrays in bytes.
+     */
+    public long getMemoryFootprint() {
+        return (long) keys.length * (Integer.BYTES * 2 + 1);
+    }
+
+    /**
+     * Shift entries back after a removal so that no probe sequence is broken by the empty slot.
+     *
+     * @param gap The slot that was just emptied.
+     */
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int slot = (gap + 1) & mask;
+        while (used[slot]) {
+            int home = IntObjectMap.mix(keys[slot]) & mask;
+            // Move the entry into the gap if the gap lies on its probe path from home to slot.
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                used[gap] = true;
+                used[slot] = false;
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = IntObjectMap.mix(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Hash map from primitive int keys to objects, used as the primary-key index for parts and products.
+ * Keys are stored in an int array with open addressing and linear probing, so lookups do not box the
+ * key into an Integer the way a HashMap&lt;Integer, V&gt; would.
+ * <p>
+ * As the RecordMap of a RecordStore it holds one object per record.
+ *
+ * @param <V> The type of the mapped values.
+ */
+public class IntObjectMap<V> implements RecordMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Keys of the occupied slots. A slot is free when its value is null.
+     */
+    private int[] keys;
+
+    /**
+     * Values of the slots, null for free slots.
+     */
+    private Object[] values;
+
+    private int size;
+
+    /**
+     * Creates an empty map with the default capacity.
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold the expected number of entries without resizing.
+     *
+     * @param expectedSize The number of entries expected.
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2);
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key The key to look up.
+     * @return The mapped value, or null if the key is not present.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Check whether a key is present.
+     *
+     * @param key The key to check.
+     * @return True if the key is mapped to a value, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map a key to a value, replacing any previous mapping.
+     *
+     * @param key   The key.
+     * @param value The value, which must not be null.
+     * @return The previous value, or null if the key was not present.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the mapping for a key.
+     *
+     * @param key The key to remove.
+     * @return The removed value, or null if the key was not present.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = null;
+                size--;
+                closeGap(slot);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the map is empty.
+     *
+     * @return True if the map has no entries, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove every entry from the map.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Get the keys of the map.
+     *
+     * @return The keys, in no particular order.
+     */
+    public int[] keys() {
+        int[] found = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                found[count++] = keys[slot];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Pass every value in the map to the given action, in no particular order.
+     *
+     * @param action The action to perform on each value.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Pass values to the given action, in no particular order, until it returns false.
+     *
+     * @param action The action to perform on each value, returning whether to continue.
+     * @return True if every value was visited, false if the action stopped early.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean forEachValueWhile(Predicate<? super V> action) {
+        for (Object value : values) {
+            if (value != null && !action.test((V) value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shift entries back after a removal so that no probe sequence is broken by the empty slot.
+     *
+     * @param gap The slot that was just emptied.
+     */
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int slot = (gap + 1) & mask;
+        while (values[slot] != null) {
+            int home = mix(keys[slot]) & mask;
+            // Move the entry into the gap if the gap lies on its probe path from home to slot.
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                values[slot] = null;
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spread sequential IDs across the table so that runs of keys do not cluster.
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        return capacity > 0 ? capacity : 1 << 30;
+    }
+}
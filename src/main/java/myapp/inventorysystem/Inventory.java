@@ -1,53 +1,343 @@
 package myapp.inventorysystem;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
 /**
  * Class representing the inventory system that manages parts and products.
  * RUNTIME ERROR: Method name should be camelCase, not snake_case.
  * Resolution Method named was made to be camelCase.
  * FUTURE ENHANCEMENT: Consider additional logic for updating parts based on specific requirements.
- * FUTURE ENHANCEMENT: Implement logic to search for products based on the search string.
+ * <p>
+ * Parts and products are kept in thread-safe RecordStores, so importers and integrations may add, update,
+ * delete, look up and search from worker threads. The ObservableLists returned by getAllParts() and
+ * getAllProducts() belong to the JavaFX application thread and receive the changes in batches, once per pulse.
+ * <p>
+ * Records are held as Part and Product objects unless the COLUMNAR or OFF_HEAP storage is chosen, with
+ * setStorage or the inventory.storage system property, in which case their fields are kept in a ColumnarTable
+ * or an OffHeapTable and the parts and products handed out are views of the tables.
+ * <p>
+ * When a journal is set, every change made through this class, and every change to the associated parts of a
+ * product in the inventory, is appended to it.
  */
 public class Inventory {
 
+    /**
+     * Maximum number of results returned by a product search, which keeps searches on large catalogs bounded.
+     */
+    public static final int SEARCH_RESULT_LIMIT = 5000;
+
+    /**
+     * System property choosing the storage of the inventory at startup: "objects" (the default), "columnar"
+     * or "off_heap".
+     */
+    public static final String STORAGE_PROPERTY = "inventory.storage";
+
+    /**
+     * How the records of the inventory are kept in memory.
+     */
+    public enum Storage {
+        /**
+         * One Part or Product object per record.
+         */
+        OBJECTS,
+        /**
+         * Fields in the primitive columns of a ColumnarTable, with views handed out as parts and products.
+         */
+        COLUMNAR,
+        /**
+         * Fields in the direct memory of an OffHeapTable, with views handed out as parts and products.
+         * There is no search index, so searches scan the table.
+         */
+        OFF_HEAP
+    }
+
     /**
      * Counter for generating unique part IDs.
      */
-    private static int partId = 0;
+    private static final AtomicInteger partId = new AtomicInteger();
 
     /**
      * Counter for generating unique product IDs.
      */
-    private static int productId = 0;
+    private static final AtomicInteger productId = new AtomicInteger();
 
     /**
-     * List to store all parts in the inventory.
+     * How records are currently kept.
      */
-    private static final ObservableList<Part> allParts = FXCollections.observableArrayList();
+    private static Storage storage = storageFromProperty();
 
     /**
-     * List to store all products in the inventory.
+     * Journals the changes to the part store under its write lock, so they are journaled in the order made.
      */
-    private static final ObservableList<Product> allProducts = FXCollections.observableArrayList();
+    private static final RecordStore.ChangeLog<Part> partLog = new RecordStore.ChangeLog<>() {
+        @Override
+        public void added(Part part) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logAddPart(part);
+            }
+        }
+
+        @Override
+        public void addedAll(Collection<? extends Part> parts) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logAddParts(parts);
+            }
+        }
+
+        @Override
+        public void updated(Part part) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logUpdatePart(part);
+            }
+        }
+
+        @Override
+        public void removed(Part part) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logDeletePart(part.getId());
+            }
+        }
+    };
 
     /**
-     * Get all parts in the inventory.
+     * Journals the changes to the product store under its write lock, so they are journaled in the order made.
+     */
+    private static final RecordStore.ChangeLog<Product> productLog = new RecordStore.ChangeLog<>() {
+        @Override
+        public void added(Product product) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logAddProduct(product);
+            }
+        }
+
+        @Override
+        public void addedAll(Collection<? extends Product> products) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logAddProducts(products);
+            }
+        }
+
+        @Override
+        public void updated(Product product) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logUpdateProduct(product);
+            }
+        }
+
+        @Override
+        public void removed(Product product) {
+            InventoryJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.logDeleteProduct(product.getId());
+            }
+        }
+    };
+
+    /**
+     * Store of all parts in the inventory, with its ID and search indexes.
+     */
+    private static volatile RecordStore<Part> partStore = createPartStore(storage);
+
+    /**
+     * Store of all products in the inventory, with its ID and search indexes.
+     */
+    private static volatile RecordStore<Product> productStore = createProductStore(storage);
+
+    /**
+     * Reverse index from part ID to the IDs of the products that use the part.
+     */
+    private static final PartUsageIndex partUsage = new PartUsageIndex();
+
+    /**
+     * Bill of materials of the products, with their memoised explosions into leaf parts.
+     */
+    private static final AssemblyIndex assemblies = new AssemblyIndex();
+
+    /**
+     * Atomic stock movements of the parts.
+     */
+    private static final StockLedger partLedger = new StockLedger(Inventory::lookupPart, Inventory::partStockChanged);
+
+    /**
+     * Atomic stock movements of the products.
+     */
+    private static final StockLedger productLedger = new StockLedger(Inventory::lookupProduct,
+            Inventory::productStockChanged);
+
+    /**
+     * Records whose part stock is outside its minimum and maximum, with the listeners for crossings.
+     */
+    private static final StockThresholdMonitor partThresholds = new StockThresholdMonitor();
+
+    /**
+     * Records whose product stock is outside its minimum and maximum, with the listeners for crossings.
+     */
+    private static final StockThresholdMonitor productThresholds = new StockThresholdMonitor();
+
+    /**
+     * Sort orders of the parts by ID, name, stock and price.
+     */
+    private static final SortIndex<Part> partSorts = new SortIndex<>(Part::getId, Part::getName, Part::getStock,
+            Part::getPrice);
+
+    /**
+     * Sort orders of the products by ID, name, stock and price.
+     */
+    private static final SortIndex<Product> productSorts = new SortIndex<>(Product::getId, Product::getName,
+            Product::getStock, Product::getPrice);
+
+    /**
+     * Journal that changes are recorded in, or null while changes are not being recorded.
+     */
+    private static volatile InventoryJournal journal;
+
+    /**
+     * Choose how records are kept in memory. The inventory must be empty, and the lists returned by
+     * getAllParts() and getAllProducts() before the change no longer receive updates, so this is meant to be
+     * called at startup, before any view is shown.
+     *
+     * @param newStorage The storage to use.
+     * @throws IllegalStateException If the inventory is not empty.
+     */
+    public static synchronized void setStorage(Storage newStorage) {
+        if (newStorage == storage) {
+            return;
+        }
+        if (partStore.size() > 0 || productStore.size() > 0) {
+            throw new IllegalStateException("The storage can only be changed while the inventory is empty.");
+        }
+        storage = newStorage;
+        partStore = createPartStore(newStorage);
+        productStore = createProductStore(newStorage);
+    }
+
+    /**
+     * Get how records are kept in memory.
+     *
+     * @return The current storage.
+     */
+    public static synchronized Storage getStorage() {
+        return storage;
+    }
+
+    private static RecordStore<Part> createPartStore(Storage storage) {
+        RecordStore<Part> store;
+        switch (storage) {
+            case COLUMNAR:
+                store = new RecordStore<>(Part::getId, Part::getName, TableRecordMap.forParts(new ColumnarTable()), true);
+                break;
+            case OFF_HEAP:
+                store = new RecordStore<>(Part::getId, Part::getName, TableRecordMap.forParts(new OffHeapTable()), false);
+                break;
+            default:
+                store = new RecordStore<>(Part::getId, Part::getName);
+                break;
+        }
+        store.setChangeLog(partLog);
+        return store;
+    }
+
+    private static RecordStore<Product> createProductStore(Storage storage) {
+        RecordStore<Product> store;
+        switch (storage) {
+            case COLUMNAR:
+                store = new RecordStore<>(Product::getId, Product::getName,
+                        TableRecordMap.forProducts(new ColumnarTable()), true);
+                break;
+            case OFF_HEAP:
+                store = new RecordStore<>(Product::getId, Product::getName,
+                        TableRecordMap.forProducts(new OffHeapTable()), false);
+                break;
+            default:
+                store = new RecordStore<>(Product::getId, Product::getName);
+                break;
+        }
+        store.setChangeLog(productLog);
+        return store;
+    }
+
+    /**
+     * Read the storage chosen by the inventory.storage system property. A value it does not know is reported
+     * on the error stream and records are kept as objects.
+     */
+    private static Storage storageFromProperty() {
+        String value = System.getProperty(STORAGE_PROPERTY, Storage.OBJECTS.name());
+        try {
+            return Storage.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown " + STORAGE_PROPERTY + " value \"" + value + "\", expected one of "
+                    + Arrays.toString(Storage.values()) + "; keeping records as " + Storage.OBJECTS + ".");
+            return Storage.OBJECTS;
+        }
+    }
+
+    /**
+     * Set the journal that changes are recorded in.
+     *
+     * @param newJournal The journal, or null to stop recording changes.
+     */
+    public static void setJournal(InventoryJournal newJournal) {
+        journal = newJournal;
+    }
+
+    /**
+     * Get the journal that changes are recorded in.
+     *
+     * @return The journal, or null if changes are not being recorded.
+     */
+    public static InventoryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Get all parts in the inventory. The list must only be used on the JavaFX application thread.
      *
      * @return ObservableList of all parts.
      */
     public static ObservableList<Part> getAllParts() {
-        return allParts;
+        return partStore.getItems();
     }
 
     /**
-     * Get all products in the inventory.
+     * Get all products in the inventory. The list must only be used on the JavaFX application thread.
      *
      * @return ObservableList of all products.
      */
     public static ObservableList<Product> getAllProducts() {
-        return allProducts;
+        return productStore.getItems();
+    }
+
+    /**
+     * Get the batcher that forwards part changes to getAllParts(), with its queued and applied change counts.
+     *
+     * @return The part change batcher.
+     */
+    public static ListChangeBatcher<Part> getPartChanges() {
+        return partStore.getChanges();
+    }
+
+    /**
+     * Get the batcher that forwards product changes to getAllProducts(), with its queued and applied change counts.
+     *
+     * @return The product change batcher.
+     */
+    public static ListChangeBatcher<Product> getProductChanges() {
+        return productStore.getChanges();
     }
 
     /**
@@ -56,7 +346,27 @@ public class Inventory {
      * @param newPart The part to be added.
      */
     public static void addPart(Part newPart) {
-        allParts.add(newPart);
+        reservePartId(newPart.getId());
+        partStore.add(newPart);
+        indexPart(newPart);
+    }
+
+    /**
+     * Add several parts to the inventory at once, with a single list notification for the whole batch.
+     *
+     * @param newParts The parts to be added.
+     */
+    public static void addParts(Collection<? extends Part> newParts) {
+        int highestId = 0;
+        for (Part part : newParts) {
+            highestId = Math.max(highestId, part.getId());
+        }
+        reservePartId(highestId);
+        partStore.addAll(newParts);
+        partSorts.putAll(newParts);
+        for (Part part : newParts) {
+            indexPartUnsorted(part);
+        }
     }
 
     /**
@@ -65,7 +375,27 @@ public class Inventory {
      * @param newProduct The product to be added.
      */
     public static void addProduct(Product newProduct) {
-        allProducts.add(newProduct);
+        reserveProductId(newProduct.getId());
+        productStore.add(newProduct);
+        indexProduct(newProduct);
+    }
+
+    /**
+     * Add several products to the inventory at once, with a single list notification for the whole batch.
+     *
+     * @param newProducts The products to be added.
+     */
+    public static void addProducts(Collection<? extends Product> newProducts) {
+        int highestId = 0;
+        for (Product product : newProducts) {
+            highestId = Math.max(highestId, product.getId());
+        }
+        reserveProductId(highestId);
+        productStore.addAll(newProducts);
+        productSorts.putAll(newProducts);
+        for (Product product : newProducts) {
+            indexProductUnsorted(product);
+        }
     }
 
     /**
@@ -74,7 +404,7 @@ public class Inventory {
      * @return A new part ID.
      */
     public static int getNewPartId() {
-        return ++partId;
+        return partId.incrementAndGet();
     }
 
     /**
@@ -83,7 +413,104 @@ public class Inventory {
      * @return A new product ID.
      */
     public static int getNewProductId() {
-        return ++productId;
+        return productId.incrementAndGet();
+    }
+
+    /**
+     * Get the last part ID handed out or reserved.
+     *
+     * @return The highest part ID in use.
+     */
+    public static int getLastPartId() {
+        return partId.get();
+    }
+
+    /**
+     * Get the last product ID handed out or reserved.
+     *
+     * @return The highest product ID in use.
+     */
+    public static int getLastProductId() {
+        return productId.get();
+    }
+
+    /**
+     * Make sure getNewPartId() never hands out an ID that is already taken, for parts added with their own ID.
+     *
+     * @param id A part ID in use.
+     */
+    public static void reservePartId(int id) {
+        partId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Make sure getNewProductId() never hands out an ID that is already taken, for products added with their own ID.
+     *
+     * @param id A product ID in use.
+     */
+    public static void reserveProductId(int id) {
+        productId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Get a consistent copy of all parts. Safe to call from any thread.
+     *
+     * @return List of all parts, in no particular order.
+     */
+    public static List<Part> copyAllParts() {
+        return partStore.toList();
+    }
+
+    /**
+     * Get a consistent copy of all products. Safe to call from any thread.
+     *
+     * @return List of all products, in no particular order.
+     */
+    public static List<Product> copyAllProducts() {
+        return productStore.toList();
+    }
+
+    /**
+     * Get the IDs of all parts. Safe to call from any thread.
+     *
+     * @return The part IDs, in ascending order.
+     */
+    public static int[] getAllPartIds() {
+        return partStore.ids();
+    }
+
+    /**
+     * Get the IDs of all products. Safe to call from any thread.
+     *
+     * @return The product IDs, in ascending order.
+     */
+    public static int[] getAllProductIds() {
+        return productStore.ids();
+    }
+
+    /**
+     * Sort part IDs by the persistent sort orders of the parts, without looking up the parts.
+     * Safe to call from any thread.
+     *
+     * @param partIds  The IDs to sort, or null to sort all parts. IDs of parts not in the inventory are dropped.
+     * @param sortKeys The keys to sort by, most significant first; ties left are broken by ascending ID.
+     * @return The sorted part IDs.
+     */
+    public static int[] sortPartIds(int[] partIds, List<SortIndex.SortKey> sortKeys) {
+        return partSorts.sort(partIds, sortKeys);
+    }
+
+    /**
+     * Sort product IDs by the persistent sort orders of the products, without looking up the products.
+     * Safe to call from any thread.
+     *
+     * @param productIds The IDs to sort, or null to sort all products. IDs of products not in the inventory
+     *                   are dropped.
+     * @param sortKeys   The keys to sort by, most significant first; ties left are broken by ascending ID.
+     * @return The sorted product IDs.
+     */
+    public static int[] sortProductIds(int[] productIds, List<SortIndex.SortKey> sortKeys) {
+        return productSorts.sort(productIds, sortKeys);
     }
 
     /**
@@ -93,12 +520,7 @@ public class Inventory {
      * @return The found part, or null if not found.
      */
     public static Part lookupPart(int partId) {
-        for (Part part : allParts) {
-            if (part.getId() == partId) {
-                return part;
-            }
-        }
-        return null;
+        return partStore.get(partId);
     }
 
     /**
@@ -108,13 +530,7 @@ public class Inventory {
      * @return ObservableList of found parts.
      */
     public static ObservableList<Part> lookupPart(String partName) {
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        for (Part part : allParts) {
-            if (part.getName().equals(partName)) {
-                partsFound.add(part);
-            }
-        }
-        return partsFound;
+        return partStore.find(part -> part.getName().equals(partName));
     }
 
     /**
@@ -124,12 +540,7 @@ public class Inventory {
      * @return The found product, or null if not found.
      */
     public static Product lookupProduct(int productId) {
-        for (Product product : allProducts) {
-            if (product.getId() == productId) {
-                return product;
-            }
-        }
-        return null;
+        return productStore.get(productId);
     }
 
     /**
@@ -139,36 +550,44 @@ public class Inventory {
      * @return ObservableList of found products.
      */
     public static ObservableList<Product> lookupProduct(String productName) {
-        ObservableList<Product> productsFound = FXCollections.observableArrayList();
-        for (Product product : allProducts) {
-            if (product.getName().equals(productName)) {
-                productsFound.add(product);
-            }
-        }
-        return productsFound;
+        return productStore.find(product -> product.getName().equals(productName));
     }
 
     /**
      * Update a part at the specified index with a new part.
+     * If the new part has another ID, the ID of the replaced part is dropped from the indexes.
      *
      * @param index         The index of the part to update.
      * @param selectedPart  The new part to replace the existing one.
+     * @throws IllegalArgumentException If another part already has the ID of the new part.
      */
     public static void updatePart(int index, Part selectedPart) {
         if (selectedPart != null) {
-            allParts.set(index, selectedPart);
+            partStore.set(index, selectedPart, (replaced, part) -> {
+                if (replaced.getId() != part.getId()) {
+                    unindexPart(replaced.getId());
+                }
+                indexPart(part);
+            });
         }
     }
 
     /**
      * Update a product at the specified index with a new product.
+     * If the new product has another ID, the ID of the replaced product is dropped from the indexes.
      *
      * @param index             The index of the product to update.
      * @param selectedProduct   The new product to replace the existing one.
+     * @throws IllegalArgumentException If another product already has the ID of the new product.
      */
     public static void updateProduct(int index, Product selectedProduct) {
         if (selectedProduct != null) {
-            allProducts.set(index, selectedProduct);
+            productStore.set(index, selectedProduct, (replaced, product) -> {
+                if (replaced.getId() != product.getId()) {
+                    unindexProduct(replaced.getId());
+                }
+                indexProduct(product);
+            });
         }
     }
 
@@ -179,7 +598,11 @@ public class Inventory {
      * @return True if deletion is successful, false otherwise.
      */
     public static boolean deletePart(Part selectedPart) {
-        return allParts.remove(selectedPart);
+        if (!partStore.remove(selectedPart)) {
+            return false;
+        }
+        unindexPart(selectedPart.getId());
+        return true;
     }
 
     /**
@@ -189,35 +612,531 @@ public class Inventory {
      * @return True if deletion is successful, false otherwise.
      */
     public static boolean deleteProduct(Product selectedProduct) {
-        return allProducts.remove(selectedProduct);
+        if (!productStore.remove(selectedProduct)) {
+            return false;
+        }
+        unindexProduct(selectedProduct.getId());
+        return true;
+    }
+
+    /**
+     * Delete several parts from the inventory at once, for cleanup jobs. Each deletion takes constant time,
+     * so the cost grows linearly with the number of parts deleted.
+     *
+     * @param selectedParts The parts to be deleted.
+     * @return The number of parts deleted.
+     */
+    public static int deleteParts(Collection<? extends Part> selectedParts) {
+        List<Part> deleted = partStore.removeAll(selectedParts);
+        for (Part part : deleted) {
+            unindexPart(part.getId());
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Delete several products from the inventory at once, for cleanup jobs. Each deletion takes constant time,
+     * so the cost grows linearly with the number of products deleted.
+     *
+     * @param selectedProducts The products to be deleted.
+     * @return The number of products deleted.
+     */
+    public static int deleteProducts(Collection<? extends Product> selectedProducts) {
+        List<Product> deleted = productStore.removeAll(selectedProducts);
+        for (Product product : deleted) {
+            unindexProduct(product.getId());
+        }
+        return deleted.size();
     }
 
     /**
-     * Update a part in the inventory.
+     * Update a part in the inventory, replacing the stored part that has the same ID.
+     * Parts that were modified in place are simply re-indexed.
      *
      * @param selectedPart The part to be updated.
-     * FUTURE ENHANCEMENT: Consider additional logic for updating parts based on specific requirements.
      */
     public static void updatePart(Part selectedPart) {
-        // No specific implementation yet for the future enhancement.
-        // Consider additional logic for updating parts based on specific requirements.
+        if (selectedPart == null || !partStore.update(selectedPart)) {
+            return;
+        }
+        indexPart(selectedPart);
     }
 
     /**
-     * Search for parts in the inventory based on a search string.
+     * Update a product in the inventory, replacing the stored product that has the same ID.
+     * Products that were modified in place are simply re-indexed.
      *
-     * @param searchText The search string.
-     * @return ObservableList of found parts.
+     * @param selectedProduct The product to be updated.
      */
-    public static ObservableList<Part> searchParts(String searchText) {
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        for (Part part : allParts) {
-            if (String.valueOf(part.getId()).contains(searchText) ||
-                    part.getName().toLowerCase().contains(searchText.toLowerCase())) {
-                partsFound.add(part);
+    public static void updateProduct(Product selectedProduct) {
+        if (selectedProduct == null || !productStore.update(selectedProduct)) {
+            return;
+        }
+        indexProduct(selectedProduct);
+    }
+
+    /**
+     * Index and record that a part was associated with a product, if the product is in the inventory.
+     * Only the new part is added to the part usage and assembly indexes, so a product built up part by part
+     * is indexed in linear time. Called by Product.
+     *
+     * @param product  The product.
+     * @param part     The associated part.
+     * @param quantity The quantity of the associated part.
+     */
+    static void associatedPartAdded(Product product, Part part, int quantity) {
+        if (!Objects.equals(productStore.get(product.getId()), product)) {
+            return;
+        }
+        partUsage.add(product.getId(), part.getId(), quantity);
+        assemblies.addPart(product.getId(), part.getId(), quantity);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logAddAssociatedPart(product.getId(), part.getId(), quantity);
+        }
+    }
+
+    /**
+     * Re-index and record that a part was removed from the associated parts of a product, if the product is
+     * in the inventory. Called by Product.
+     *
+     * @param product The product.
+     * @param part    The removed part.
+     */
+    static void associatedPartDeleted(Product product, Part part) {
+        if (!Objects.equals(productStore.get(product.getId()), product)) {
+            return;
+        }
+        indexProduct(product);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logDeleteAssociatedPart(product.getId(), part.getId());
+        }
+    }
+
+    /**
+     * Re-index and record that a product was added to another as a sub-assembly, if the other product is
+     * in the inventory. Called by Product.
+     *
+     * @param product     The product.
+     * @param subAssembly The sub-assembly.
+     * @param quantity    The quantity of the sub-assembly.
+     */
+    static void subAssemblyAdded(Product product, Product subAssembly, int quantity) {
+        if (!Objects.equals(productStore.get(product.getId()), product)) {
+            return;
+        }
+        assemblies.put(product);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logAddSubAssembly(product.getId(), subAssembly.getId(), quantity);
+        }
+    }
+
+    /**
+     * Re-index and record that a sub-assembly was removed from a product, if the product is in the
+     * inventory. Called by Product.
+     *
+     * @param product     The product.
+     * @param subAssembly The removed sub-assembly.
+     */
+    static void subAssemblyDeleted(Product product, Product subAssembly) {
+        if (!Objects.equals(productStore.get(product.getId()), product)) {
+            return;
+        }
+        assemblies.put(product);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logDeleteSubAssembly(product.getId(), subAssembly.getId());
+        }
+    }
+
+    /**
+     * Check whether a product is among the sub-assemblies of another product in the inventory, at any depth.
+     *
+     * @param assemblyId The ID of the product to search.
+     * @param productId  The ID of the product to look for.
+     * @return True if the assembly contains the product, false otherwise.
+     */
+    public static boolean containsSubAssembly(int assemblyId, int productId) {
+        return assemblies.contains(assemblyId, productId);
+    }
+
+    /**
+     * Flatten a product into the total quantity of each leaf part needed to build one unit of it, through
+     * every level of sub-assemblies. Explosions are memoised until the product or one of its descendants
+     * changes, so repeated queries do not walk the tree again. Safe to call from any thread.
+     *
+     * @param product The product, as stored in the inventory.
+     * @return The part requirements, empty if the product has no parts or is not in the inventory.
+     * @throws ArithmeticException If a quantity does not fit in a long.
+     */
+    public static PartRequirements explodeProduct(Product product) {
+        return assemblies.explode(product.getId());
+    }
+
+    /**
+     * Get the ledger that reserves, consumes, releases and receives part stock atomically. Safe to use from
+     * any thread; the part lists are not notified of the changes it makes.
+     *
+     * @return The part stock ledger.
+     */
+    public static StockLedger getPartLedger() {
+        return partLedger;
+    }
+
+    /**
+     * Get the ledger that reserves, consumes, releases and receives product stock atomically. Safe to use
+     * from any thread; the product lists are not notified of the changes it makes.
+     *
+     * @return The product stock ledger.
+     */
+    public static StockLedger getProductLedger() {
+        return productLedger;
+    }
+
+    /**
+     * Build units of a product in one stock transaction: take the associated parts and sub-assemblies
+     * needed out of stock and add the units to the product's stock, or change nothing if any of them would
+     * leave its bounds. Safe to call from any thread while the product is not being edited; the lists are
+     * not notified of the changes.
+     *
+     * @param product  The product, as stored in the inventory.
+     * @param quantity The number of units to build.
+     * @return True if the units were built, false if the product has no components, a component is no
+     * longer in the inventory, or the stock of any record would leave its bounds.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     * @throws ArithmeticException      If a quantity needed does not fit in an int.
+     */
+    public static boolean buildProduct(Product product, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("The quantity must be at least 1.");
+        }
+        int[] partIds = product.getAssociatedPartIds();
+        int[] subAssemblyIds = product.getSubAssemblyIds();
+        if (partIds.length == 0 && subAssemblyIds.length == 0) {
+            return false;
+        }
+        StockTransaction transaction = new StockTransaction();
+        int[] partQuantities = product.getAssociatedPartQuantities();
+        for (int i = 0; i < partIds.length; i++) {
+            transaction.adjust(partLedger, partIds[i], -Math.multiplyExact(partQuantities[i], quantity));
+        }
+        int[] subAssemblyQuantities = product.getSubAssemblyQuantities();
+        for (int i = 0; i < subAssemblyIds.length; i++) {
+            transaction.adjust(productLedger, subAssemblyIds[i],
+                    -Math.multiplyExact(subAssemblyQuantities[i], quantity));
+        }
+        transaction.adjust(productLedger, product.getId(), quantity);
+        return transaction.commit();
+    }
+
+    /**
+     * Get the monitor of the parts' inventory levels against their minimum and maximum, which sends events
+     * when a part crosses either and lists the parts below their minimum. It follows every change made
+     * through this class and the ledgers.
+     *
+     * @return The part threshold monitor.
+     */
+    public static StockThresholdMonitor getPartThresholds() {
+        return partThresholds;
+    }
+
+    /**
+     * Get the monitor of the products' inventory levels against their minimum and maximum, which sends
+     * events when a product crosses either and lists the products below their minimum. It follows every
+     * change made through this class and the ledgers.
+     *
+     * @return The product threshold monitor.
+     */
+    public static StockThresholdMonitor getProductThresholds() {
+        return productThresholds;
+    }
+
+    /**
+     * Get the parts below their minimum inventory level, for reordering. The cost depends on the number of
+     * parts found, not the number of parts.
+     *
+     * @return ObservableList of the parts below their minimum, those short of the most units first.
+     */
+    public static ObservableList<Part> getPartsBelowMinimum() {
+        return lookupParts(partThresholds.getBelowMinimumIds());
+    }
+
+    /**
+     * Get the products below their minimum inventory level. The cost depends on the number of products
+     * found, not the number of products.
+     *
+     * @return ObservableList of the products below their minimum, those short of the most units first.
+     */
+    public static ObservableList<Product> getProductsBelowMinimum() {
+        return lookupProducts(productThresholds.getBelowMinimumIds());
+    }
+
+    /**
+     * Set the inventory level of a part as replayed from a journal, keeping the thresholds up to date.
+     * Called by InventoryJournal.
+     *
+     * @param part  The part, as stored in the inventory.
+     * @param stock The inventory level to set.
+     */
+    static void restorePartStock(Part part, int stock) {
+        part.setStock(stock);
+        partThresholds.update(part);
+        partSorts.setStock(part.getId(), stock);
+    }
+
+    /**
+     * Set the inventory level of a product as replayed from a journal, keeping the thresholds up to date.
+     * Called by InventoryJournal.
+     *
+     * @param product The product, as stored in the inventory.
+     * @param stock   The inventory level to set.
+     */
+    static void restoreProductStock(Product product, int stock) {
+        product.setStock(stock);
+        productThresholds.update(product);
+        productSorts.setStock(product.getId(), stock);
+    }
+
+    /**
+     * Note the thresholds of a part after a stock movement, and record the movement. Called by the part ledger
+     * after the movement, so a part deleted in the meantime is skipped.
+     */
+    private static void partStockChanged(Stocked part, int stock) {
+        if (!Objects.equals(partStore.get(part.getId()), part)) {
+            return;
+        }
+        partThresholds.update(part);
+        partSorts.setStock(part.getId(), stock);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logSetPartStock(part.getId(), stock);
+        }
+    }
+
+    /**
+     * Note the thresholds of a product after a stock movement, and record the movement. Called by the product
+     * ledger after the movement, so a product deleted in the meantime is skipped.
+     */
+    private static void productStockChanged(Stocked product, int stock) {
+        if (!Objects.equals(productStore.get(product.getId()), product)) {
+            return;
+        }
+        productThresholds.update(product);
+        productSorts.setStock(product.getId(), stock);
+        InventoryJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.logSetProductStock(product.getId(), stock);
+        }
+    }
+
+    /**
+     * Get the products that have a part among their associated parts.
+     * Uses the part usage index, so the cost depends on the number of products found, not the number of products.
+     *
+     * @param part The part.
+     * @return ObservableList of the products using the part, ordered by ID.
+     */
+    public static ObservableList<Product> getProductsUsingPart(Part part) {
+        return lookupProducts(partUsage.getProductIds(part.getId()));
+    }
+
+    /**
+     * Get the IDs of the products that have a part among their associated parts. Safe to call from any thread.
+     *
+     * @param partId The ID of the part.
+     * @return The IDs of the products using the part, in ascending order.
+     */
+    public static int[] getProductIdsUsingPart(int partId) {
+        return partUsage.getProductIds(partId);
+    }
+
+    /**
+     * Check whether any product has a part among its associated parts.
+     *
+     * @param part The part to check.
+     * @return True if the part is used by at least one product, false otherwise.
+     */
+    public static boolean isPartInUse(Part part) {
+        return partUsage.isUsed(part.getId());
+    }
+
+    /**
+     * Get how many units of a product buildProduct can build from the current stock of its associated parts
+     * and sub-assemblies: the least, over its components, of the component's stock divided by the quantity
+     * the product needs, rounded down. A component used several times counts with its total quantity, and
+     * one that is no longer in the inventory has no stock.
+     *
+     * @param product The product.
+     * @return The buildable quantity, or 0 if the product has no associated parts or sub-assemblies.
+     */
+    public static int buildableQuantity(Product product) {
+        int[] partIds = product.getAssociatedPartIds();
+        int[] subAssemblyIds = product.getSubAssemblyIds();
+        if (partIds.length == 0 && subAssemblyIds.length == 0) {
+            return 0;
+        }
+        return Math.min(buildableFrom(partIds, product.getAssociatedPartQuantities(), Inventory::stockOf),
+                buildableFrom(subAssemblyIds, product.getSubAssemblyQuantities(), Inventory::productStockOf));
+    }
+
+    /**
+     * Work out how many units of every product can be built from the current stock of the parts and
+     * sub-assemblies, in one parallel pass over the part usage index and one pass over the assembly index.
+     * See buildableQuantity for how each product is counted. Safe to call from any thread.
+     *
+     * @return The buildable quantity of every product that has associated parts or sub-assemblies.
+     */
+    public static BuildabilityReport buildabilityReport() {
+        return assemblies.limitBySubAssemblies(partUsage.getBuildability(Inventory::stockOf),
+                Inventory::productStockOf);
+    }
+
+    /**
+     * Get the least, over some components, of the component's stock divided by its total quantity.
+     */
+    private static int buildableFrom(int[] ids, int[] quantities, IntUnaryOperator stockOf) {
+        IntIntMap needed = new IntIntMap(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            needed.put(ids[i], needed.get(ids[i], 0) + quantities[i]);
+        }
+        int buildable = Integer.MAX_VALUE;
+        for (int id : ids) {
+            buildable = Math.min(buildable, Math.max(0, stockOf.applyAsInt(id)) / needed.get(id, 1));
+        }
+        return buildable;
+    }
+
+    /**
+     * Update the stock thresholds and the sort orders for a part that was added or changed.
+     */
+    private static void indexPart(Part part) {
+        indexPartUnsorted(part);
+        partSorts.put(part);
+    }
+
+    /**
+     * Update the stock thresholds and the associated part lists of the products using a part that was added
+     * or changed, leaving the sort orders to the caller.
+     */
+    private static void indexPartUnsorted(Part part) {
+        partThresholds.update(part);
+        for (int productId : partUsage.getProductIds(part.getId())) {
+            Product product = productStore.get(productId);
+            if (product != null) {
+                product.associatedPartReplaced(part);
+            }
+        }
+    }
+
+    /**
+     * Remove a part from the stock thresholds and the sort orders.
+     */
+    private static void unindexPart(int partId) {
+        partThresholds.remove(partId);
+        partSorts.remove(partId);
+    }
+
+    /**
+     * Update the part usage and assembly indexes, the stock thresholds and the sort orders for a product that
+     * was added or changed.
+     */
+    private static void indexProduct(Product product) {
+        indexProductUnsorted(product);
+        productSorts.put(product);
+    }
+
+    /**
+     * Update the part usage and assembly indexes and the stock thresholds for a product that was added or
+     * changed, leaving the sort orders to the caller.
+     */
+    private static void indexProductUnsorted(Product product) {
+        partUsage.put(product);
+        assemblies.put(product);
+        productThresholds.update(product);
+    }
+
+    /**
+     * Remove a product from the part usage and assembly indexes, the stock thresholds and the sort orders.
+     */
+    private static void unindexProduct(int productId) {
+        partUsage.remove(productId);
+        assemblies.remove(productId);
+        productThresholds.remove(productId);
+        productSorts.remove(productId);
+    }
+
+    private static int stockOf(int partId) {
+        Part part = partStore.get(partId);
+        return part == null ? 0 : part.getStock();
+    }
+
+    private static int productStockOf(int productId) {
+        Product product = productStore.get(productId);
+        return product == null ? 0 : product.getStock();
+    }
+
+    /**
+     * Delete a part after removing it from the associated parts of every product that uses it.
+     *
+     * @param selectedPart The part to be deleted.
+     * @return True if deletion is successful, false otherwise.
+     */
+    public static boolean deletePartCascading(Part selectedPart) {
+        return deletePartsCascading(List.of(selectedPart)) == 1;
+    }
+
+    /**
+     * Delete several parts after removing them from the associated parts of every product that uses them.
+     * Each affected product is updated once, however many of the parts it uses.
+     *
+     * @param parts The parts to be deleted.
+     * @return The number of parts deleted.
+     */
+    public static int deletePartsCascading(Collection<? extends Part> parts) {
+        IntHashSet partIds = new IntHashSet(parts.size());
+        for (Part part : parts) {
+            partIds.add(part.getId());
+        }
+        for (Product product : lookupProducts(partUsage.getProductIds(partIds.toArray()))) {
+            if (product.deleteAssociatedPartsIf(partIds::contains)) {
+                updateProduct(product);
             }
         }
-        return partsFound;
+        return deleteParts(parts);
+    }
+
+    /**
+     * Search for parts whose ID or name contains the search string, ignoring case.
+     * Uses the part search index, so the cost depends on the number of matches rather than the number of parts.
+     *
+     * @param searchText The search string.
+     * @return ObservableList of found parts, ordered by ID.
+     */
+    public static ObservableList<Part> searchParts(String searchText) {
+        return lookupParts(searchPartIds(searchText));
+    }
+
+    /**
+     * Search for the IDs of parts whose ID or name contains the search string, ignoring case.
+     * Safe to call from a background thread.
+     *
+     * @param searchText The search string.
+     * @return The IDs of the found parts, in ascending order.
+     */
+    public static int[] searchPartIds(String searchText) {
+        return partStore.search(searchText);
+    }
+
+    /**
+     * Look up the parts with the given IDs, skipping IDs that are no longer in the inventory.
+     *
+     * @param partIds The IDs of the parts to look up.
+     * @return ObservableList of found parts, in the order of the IDs.
+     */
+    public static ObservableList<Part> lookupParts(int[] partIds) {
+        return partStore.getAll(partIds);
     }
 
     /**
@@ -241,18 +1160,60 @@ public class Inventory {
         return null;
     }
 
+    /**
+     * Update a part in the inventory with its modified outsourced version.
+     *
+     * @param selectedPart The part being modified.
+     * @param modifiedPart The modified part.
+     */
     public static void updatePart(Part selectedPart, OutSourced modifiedPart) {
+        updatePart(modifiedPart);
     }
 
     /**
-     * Search for products in the inventory based on a search string.
+     * Search for products whose ID or name contains the search string, ignoring case.
+     * Products whose ID or name starts with the search string are listed first.
+     * At most SEARCH_RESULT_LIMIT products are returned.
      *
      * @param searchString The search string.
      * @return ObservableList of found products.
      */
-    public ObservableList<Product> searchProducts(String searchString) {
-        // FUTURE ENHANCEMENT: Implement logic to search for products based on the search string.
-        // Consider the requirements for searching products and return the appropriate results.
-        return null;
+    public static ObservableList<Product> searchProducts(String searchString) {
+        return searchProducts(searchString, SEARCH_RESULT_LIMIT);
+    }
+
+    /**
+     * Search for products whose ID or name contains the search string, ignoring case.
+     * Products whose ID or name starts with the search string are listed first.
+     * Uses the product search index, so the time taken is bounded by the limit rather than the number of products.
+     *
+     * @param searchString The search string.
+     * @param limit        The maximum number of products to return.
+     * @return ObservableList of found products.
+     */
+    public static ObservableList<Product> searchProducts(String searchString, int limit) {
+        return lookupProducts(searchProductIds(searchString, limit));
+    }
+
+    /**
+     * Search for the IDs of products whose ID or name contains the search string, ignoring case.
+     * Safe to call from a background thread.
+     *
+     * @param searchString The search string.
+     * @param limit        The maximum number of IDs to return.
+     * @return The IDs of the found products, prefix matches first.
+     */
+    public static int[] searchProductIds(String searchString, int limit) {
+        return productStore.search(searchString, limit);
+    }
+
+    /**
+     * Look up the products with the given IDs, skipping IDs that are no longer in the inventory.
+     *
+     * @param productIds The IDs of the products to look up.
+     * @return ObservableList of found products, in the order of the IDs.
+     */
+    public static ObservableList<Product> lookupProducts(int[] productIds) {
+        return productStore.getAll(productIds);
     }
 }
@@ -0,0 +1,274 @@
+package myapp.inventorysystem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming importer for parts and products stored as CSV or TSV.
+ * Every row describes one record:
+ * <pre>
+ * type,id,name,price,stock,min,max,extra
+ * InHouse,1,Shield,10.0,5,1,20,123
+ * OutSourced,2,Shield Plasma,15.0,8,5,50,ABC Ltd.
+ * Product,1,DeathStar,25.0,15,5,50,1;2
+ * </pre>
+ * The extra column holds the machine ID of an InHouse part, the company name of an OutSourced part,
+ * or the IDs of the associated parts of a Product, separated by semicolons. A blank ID is replaced
+ * with a new one from the Inventory. A header row starting with "type", blank lines and lines
+ * starting with '#' are skipped. Fields may be quoted with double quotes, with "" for a quote.
+ * <p>
+ * The input is read one line at a time and records are handed to Inventory.addParts/addProducts
+ * in batches, so memory use is bounded by the batch size and each batch causes a single list
+ * notification. Products may only refer to parts that appear earlier in the input or are already
+ * in the inventory. Rows that cannot be parsed are skipped and reported in the result.
+ */
+public class InventoryImporter {
+
+    /**
+     * Default number of records handed to the Inventory at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    /**
+     * Maximum number of error messages kept in a result.
+     */
+    private static final int MAX_ERRORS = 100;
+
+    private final int batchSize;
+
+    /**
+     * Creates an importer with the default batch size.
+     */
+    public InventoryImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param batchSize The number of records handed to the Inventory at once.
+     */
+    public InventoryImporter(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import a file. Files ending in ".tsv" or ".tab" are read as tab-separated, anything else as comma-separated.
+     *
+     * @param file The file to import.
+     * @return The outcome of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase();
+        char delimiter = fileName.endsWith(".tsv") || fileName.endsWith(".tab") ? '\t' : ',';
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, delimiter);
+        }
+    }
+
+    /**
+     * Import records from a reader.
+     *
+     * @param reader    The source of the rows.
+     * @param delimiter The field delimiter, usually ',' or '\t'.
+     * @return The outcome of the import.
+     * @throws IOException If the reader fails.
+     */
+    public ImportResult importFrom(Reader reader, char delimiter) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        ImportResult result = new ImportResult();
+        List<Part> parts = new ArrayList<>(batchSize);
+        List<Product> products = new ArrayList<>(batchSize);
+
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            List<String> fields = splitLine(line, delimiter);
+            String type = fields.get(0).trim();
+            try {
+                if (type.equalsIgnoreCase("type")) {
+                    continue;
+                } else if (type.equalsIgnoreCase("InHouse") || type.equalsIgnoreCase("OutSourced")) {
+                    parts.add(parsePart(type, fields));
+                    if (parts.size() == batchSize) {
+                        flushParts(parts, result);
+                    }
+                } else if (type.equalsIgnoreCase("Product")) {
+                    // Associated parts are resolved by ID, so every part read so far must be in the inventory.
+                    flushParts(parts, result);
+                    products.add(parseProduct(fields, result, lineNumber));
+                    if (products.size() == batchSize) {
+                        flushProducts(products, result);
+                    }
+                } else {
+                    result.reject(lineNumber, "Unknown record type \"" + type + "\".");
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                result.reject(lineNumber, "Invalid values or missing fields.");
+            }
+        }
+        flushParts(parts, result);
+        flushProducts(products, result);
+        return result;
+    }
+
+    private void flushParts(List<Part> parts, ImportResult result) {
+        if (!parts.isEmpty()) {
+            Inventory.addParts(parts);
+            result.partsImported += parts.size();
+            parts.clear();
+        }
+    }
+
+    private void flushProducts(List<Product> products, ImportResult result) {
+        if (!products.isEmpty()) {
+            Inventory.addProducts(products);
+            result.productsImported += products.size();
+            products.clear();
+        }
+    }
+
+    private static Part parsePart(String type, List<String> fields) {
+        String idText = fields.get(1).trim();
+        int id = idText.isEmpty() ? Inventory.getNewPartId() : Integer.parseInt(idText);
+        String name = fields.get(2).trim();
+        double price = Double.parseDouble(fields.get(3).trim());
+        int stock = Integer.parseInt(fields.get(4).trim());
+        int min = Integer.parseInt(fields.get(5).trim());
+        int max = Integer.parseInt(fields.get(6).trim());
+        String extra = fields.size() > 7 ? fields.get(7).trim() : "";
+
+        if (type.equalsIgnoreCase("InHouse")) {
+            return new InHouse(id, name, price, stock, min, max, Integer.parseInt(extra));
+        }
+        return new OutSourced(id, name, price, stock, min, max, extra);
+    }
+
+    private static Product parseProduct(List<String> fields, ImportResult result, int lineNumber) {
+        String idText = fields.get(1).trim();
+        int id = idText.isEmpty() ? Inventory.getNewProductId() : Integer.parseInt(idText);
+        String name = fields.get(2).trim();
+        double price = Double.parseDouble(fields.get(3).trim());
+        int stock = Integer.parseInt(fields.get(4).trim());
+        int min = Integer.parseInt(fields.get(5).trim());
+        int max = Integer.parseInt(fields.get(6).trim());
+        Product product = new Product(id, name, price, stock, min, max);
+
+        String associatedPartIds = fields.size() > 7 ? fields.get(7).trim() : "";
+        for (String partIdText : associatedPartIds.split(";")) {
+            if (partIdText.isBlank()) {
+                continue;
+            }
+            Part part = Inventory.lookupPart(Integer.parseInt(partIdText.trim()));
+            if (part == null) {
+                result.warn(lineNumber, "Unknown associated part ID " + partIdText.trim() + ".");
+            } else {
+                product.addAssociatedPart(part);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Split a line into fields, honouring double-quoted fields.
+     *
+     * @param line      The line to split.
+     * @param delimiter The field delimiter.
+     * @return The fields of the line.
+     */
+    static List<String> splitLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Outcome of an import: how many records were imported and which rows had problems.
+     */
+    public static class ImportResult {
+
+        private int partsImported;
+
+        private int productsImported;
+
+        private int rowsRejected;
+
+        private final List<String> errors = new ArrayList<>();
+
+        /**
+         * @return the number of parts imported
+         */
+        public int getPartsImported() {
+            return partsImported;
+        }
+
+        /**
+         * @return the number of products imported
+         */
+        public int getProductsImported() {
+            return productsImported;
+        }
+
+        /**
+         * @return the number of rows skipped because they could not be parsed
+         */
+        public int getRowsRejected() {
+            return rowsRejected;
+        }
+
+        /**
+         * @return the first error and warning messages, with their line numbers
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        private void reject(int lineNumber, String message) {
+            rowsRejected++;
+            warn(lineNumber, message);
+        }
+
+        private void warn(int lineNumber, String message) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + message);
+            }
+        }
+    }
+}
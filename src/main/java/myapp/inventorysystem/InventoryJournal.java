@@ -0,0 +1,708 @@
+package myapp.inventorysystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of Inventory changes, replayed on top of the last snapshot at startup.
+ * <p>
+ * Entries are numbered in the order they were appended. The file starts with a header (magic number, format
+ * version and the sequence number of its first entry), so a snapshot can record how far into the journal it
+ * goes and a replay skips the entries it already holds, even if the journal was not emptied after the save.
+ * <p>
+ * Every entry is framed as its payload length, a CRC32 of the payload and the payload: an operation
+ * byte followed by a part or product encoded with RecordCodec, or by IDs. A replay stops at the first
+ * incomplete or damaged entry, which is what a crash in the middle of a write leaves behind.
+ * <p>
+ * Appending only encodes the entry into a memory buffer and returns. A single writer thread writes
+ * everything appended since its last write and then forces it to disk, so a burst of edits made while
+ * one fsync is in progress is committed together by the next one (group commit). Call sync() to wait
+ * until everything appended so far is durable. Appending waits for the writer once MAX_PENDING bytes are
+ * waiting, so a bulk import is streamed to the file instead of being held in memory.
+ * <p>
+ * If a write fails, the journal stops recording: later entries are numbered but dropped, sync() throws
+ * the failure and the failure handler is told, so the caller can save a snapshot instead.
+ */
+public class InventoryJournal implements Closeable {
+
+    /**
+     * The journal file used by the application, next to the snapshot file.
+     */
+    public static final Path DEFAULT_FILE = InventorySnapshot.DEFAULT_FILE.resolveSibling("inventory.journal");
+
+    private static final byte ADD_PART = 1;
+    private static final byte UPDATE_PART = 2;
+    private static final byte DELETE_PART = 3;
+    private static final byte ADD_PRODUCT = 4;
+    private static final byte UPDATE_PRODUCT = 5;
+    private static final byte DELETE_PRODUCT = 6;
+    private static final byte ADD_ASSOCIATED_PART = 7;
+    private static final byte DELETE_ASSOCIATED_PART = 8;
+    private static final byte ADD_SUB_ASSEMBLY = 9;
+    private static final byte DELETE_SUB_ASSEMBLY = 10;
+    private static final byte SET_PART_STOCK = 11;
+    private static final byte SET_PRODUCT_STOCK = 12;
+
+    /**
+     * "INVJ" in ASCII.
+     */
+    private static final int MAGIC = 0x494E564A;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the magic number, version and first sequence number at the start of the file.
+     */
+    private static final int FILE_HEADER = 2 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * Size of the length and checksum in front of every entry.
+     */
+    private static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the pending entries above which appending waits for the writer.
+     */
+    private static final int MAX_PENDING = 4 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final Thread writer;
+
+    /**
+     * Guards the buffers, counters and state below.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Entries appended but not yet handed to the writer.
+     */
+    private RecordCodec pending = new RecordCodec(BUFFER_SIZE);
+
+    /**
+     * Entries being written by the writer thread.
+     */
+    private RecordCodec writing = new RecordCodec(BUFFER_SIZE);
+
+    private long appendedEntries;
+
+    /**
+     * Sequence number of the next entry appended.
+     */
+    private long sequence;
+
+    private long durableEntries;
+
+    private long commits;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    private Consumer<IOException> failureHandler;
+
+    private InventoryJournal(FileChannel channel, long sequence) {
+        this.channel = channel;
+        this.sequence = sequence;
+        writer = new Thread(this::writeLoop, "inventory-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Open a journal for appending, creating the file if needed. An existing journal must have been replayed
+     * first, so that new entries continue its numbering.
+     *
+     * @param file         The journal file.
+     * @param nextSequence The sequence number of the next entry, as returned by replay.
+     * @return The journal.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static InventoryJournal open(Path file, long nextSequence) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            if (channel.size() == 0) {
+                writeHeader(channel, nextSequence);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new InventoryJournal(channel, nextSequence);
+    }
+
+    /**
+     * Record that a part was added.
+     *
+     * @param part The added part.
+     */
+    public void logAddPart(Part part) {
+        append(ADD_PART, codec -> codec.writePart(part));
+    }
+
+    /**
+     * Record that several parts were added.
+     *
+     * @param parts The added parts.
+     */
+    public void logAddParts(Collection<? extends Part> parts) {
+        synchronized (lock) {
+            for (Part part : parts) {
+                logAddPart(part);
+            }
+        }
+    }
+
+    /**
+     * Record that a part was updated or replaced.
+     *
+     * @param part The part as it is now.
+     */
+    public void logUpdatePart(Part part) {
+        append(UPDATE_PART, codec -> codec.writePart(part));
+    }
+
+    /**
+     * Record that a part was deleted.
+     *
+     * @param partId The ID of the deleted part.
+     */
+    public void logDeletePart(int partId) {
+        append(DELETE_PART, codec -> codec.writeInt(partId));
+    }
+
+    /**
+     * Record that a product was added, with its associated parts.
+     *
+     * @param product The added product.
+     */
+    public void logAddProduct(Product product) {
+        append(ADD_PRODUCT, codec -> codec.writeProduct(product));
+    }
+
+    /**
+     * Record that several products were added.
+     *
+     * @param products The added products.
+     */
+    public void logAddProducts(Collection<? extends Product> products) {
+        synchronized (lock) {
+            for (Product product : products) {
+                logAddProduct(product);
+            }
+        }
+    }
+
+    /**
+     * Record that a product was updated or replaced, with its associated parts.
+     *
+     * @param product The product as it is now.
+     */
+    public void logUpdateProduct(Product product) {
+        append(UPDATE_PRODUCT, codec -> codec.writeProduct(product));
+    }
+
+    /**
+     * Record that a product was deleted.
+     *
+     * @param productId The ID of the deleted product.
+     */
+    public void logDeleteProduct(int productId) {
+        append(DELETE_PRODUCT, codec -> codec.writeInt(productId));
+    }
+
+    /**
+     * Record that a part was associated with a product. The quantity is only written when it is not 1.
+     *
+     * @param productId The ID of the product.
+     * @param partId    The ID of the associated part.
+     * @param quantity  The quantity of the associated part.
+     */
+    public void logAddAssociatedPart(int productId, int partId, int quantity) {
+        append(ADD_ASSOCIATED_PART, codec -> {
+            codec.writeInt(productId);
+            codec.writeInt(partId);
+            if (quantity != 1) {
+                codec.writeInt(quantity);
+            }
+        });
+    }
+
+    /**
+     * Record that a part was removed from the associated parts of a product.
+     *
+     * @param productId The ID of the product.
+     * @param partId    The ID of the removed part.
+     */
+    public void logDeleteAssociatedPart(int productId, int partId) {
+        append(DELETE_ASSOCIATED_PART, codec -> {
+            codec.writeInt(productId);
+            codec.writeInt(partId);
+        });
+    }
+
+    /**
+     * Record that a product was added to another as a sub-assembly.
+     *
+     * @param productId     The ID of the product.
+     * @param subAssemblyId The ID of the sub-assembly.
+     * @param quantity      The quantity of the sub-assembly.
+     */
+    public void logAddSubAssembly(int productId, int subAssemblyId, int quantity) {
+        append(ADD_SUB_ASSEMBLY, codec -> {
+            codec.writeInt(productId);
+            codec.writeInt(subAssemblyId);
+            codec.writeInt(quantity);
+        });
+    }
+
+    /**
+     * Record that a sub-assembly was removed from a product.
+     *
+     * @param productId     The ID of the product.
+     * @param subAssemblyId The ID of the removed sub-assembly.
+     */
+    public void logDeleteSubAssembly(int productId, int subAssemblyId) {
+        append(DELETE_SUB_ASSEMBLY, codec -> {
+            codec.writeInt(productId);
+            codec.writeInt(subAssemblyId);
+        });
+    }
+
+    /**
+     * Record a new inventory level of a part.
+     *
+     * @param partId The ID of the part.
+     * @param stock  The inventory level.
+     */
+    public void logSetPartStock(int partId, int stock) {
+        append(SET_PART_STOCK, codec -> {
+            codec.writeInt(partId);
+            codec.writeInt(stock);
+        });
+    }
+
+    /**
+     * Record a new inventory level of a product.
+     *
+     * @param productId The ID of the product.
+     * @param stock     The inventory level.
+     */
+    public void logSetProductStock(int productId, int stock) {
+        append(SET_PRODUCT_STOCK, codec -> {
+            codec.writeInt(productId);
+            codec.writeInt(stock);
+        });
+    }
+
+    /**
+     * Set what is told when the journal cannot be written and stops recording. It is called once, on the
+     * writer thread, or right away if the journal has already failed.
+     *
+     * @param handler The failure handler, or null.
+     */
+    public void setFailureHandler(Consumer<IOException> handler) {
+        IOException failed;
+        synchronized (lock) {
+            failureHandler = handler;
+            failed = failure;
+        }
+        if (failed != null && handler != null) {
+            handler.accept(failed);
+        }
+    }
+
+    /**
+     * Get why the journal stopped recording.
+     *
+     * @return The failure, or null if every write so far succeeded.
+     */
+    public IOException getFailure() {
+        synchronized (lock) {
+            return failure;
+        }
+    }
+
+    /**
+     * Wait until every entry appended so far has been written and forced to disk.
+     *
+     * @throws IOException If the journal could not be written.
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appendedEntries;
+            while (durableEntries < target && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the journal.");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Empty the journal once a snapshot holding all of its changes has been saved. The numbering carries on
+     * from getSequence(). Must not be called while other threads are still changing the Inventory.
+     *
+     * @throws IOException If the journal could not be written or truncated.
+     */
+    public void truncate() throws IOException {
+        sync();
+        long next = getSequence();
+        synchronized (channel) {
+            channel.truncate(0);
+            writeHeader(channel, next);
+        }
+    }
+
+    /**
+     * Get the sequence number of the next entry, which a snapshot of the Inventory as it is now records as
+     * the point to replay from.
+     *
+     * @return The sequence number of the next entry.
+     */
+    public long getSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Get the number of entries appended since the journal was opened.
+     *
+     * @return The number of appended entries.
+     */
+    public long getAppendedEntries() {
+        synchronized (lock) {
+            return appendedEntries;
+        }
+    }
+
+    /**
+     * Get the number of times the writer forced entries to disk. Each commit covers every entry
+     * appended while the previous one was in progress.
+     *
+     * @return The number of commits.
+     */
+    public long getCommits() {
+        synchronized (lock) {
+            return commits;
+        }
+    }
+
+    /**
+     * Write out the remaining entries and close the journal.
+     *
+     * @throws IOException If the remaining entries could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Apply the entries of a journal file to the Inventory, in order, starting at a sequence number. Entries
+     * after the first incomplete or damaged one are ignored and cut off, so new entries can be appended after
+     * the last good one. A journal that ends before the first sequence number is emptied.
+     *
+     * @param file          The journal file.
+     * @param firstSequence The sequence number of the first entry to apply; earlier entries are already in
+     *                      the snapshot.
+     * @return The sequence number following the last entry of the file, or firstSequence if the file does not
+     *         exist or holds no later entries.
+     * @throws IOException If the file cannot be read, or starts after firstSequence so that entries are missing.
+     */
+    public static long replay(Path file, long firstSequence) throws IOException {
+        if (!Files.exists(file)) {
+            return firstSequence;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal " + file + " is too large to replay.");
+            }
+            if (channel.size() < FILE_HEADER) {
+                // Empty, or emptied and cut short before its header was written.
+                channel.truncate(0);
+                return firstSequence;
+            }
+            ByteBuffer in = ByteBuffer.allocate((int) channel.size());
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // Keep reading until the whole file is in the buffer.
+            }
+            in.flip();
+
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException(file + " is not an inventory journal.");
+            }
+            long sequence = in.getLong();
+            if (sequence > firstSequence) {
+                throw new IOException("Journal " + file + " starts at entry " + sequence + ", after entry "
+                        + firstSequence + " of the snapshot.");
+            }
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= FRAME_HEADER) {
+                int start = in.position();
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) {
+                    in.position(start);
+                    break;
+                }
+                crc.reset();
+                crc.update(in.array(), in.arrayOffset() + in.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    in.position(start);
+                    break;
+                }
+                ByteBuffer entry = in.slice();
+                entry.limit(length);
+                in.position(in.position() + length);
+                if (sequence >= firstSequence) {
+                    try {
+                        apply(entry);
+                    } catch (BufferUnderflowException | IllegalArgumentException e) {
+                        throw new IOException("Journal " + file + " has an invalid entry at offset " + start + ".",
+                                e);
+                    }
+                }
+                sequence++;
+            }
+            if (sequence < firstSequence) {
+                channel.truncate(0);
+                return firstSequence;
+            }
+            if (in.position() < channel.size()) {
+                channel.truncate(in.position());
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Write the file header of an empty journal and force it to disk.
+     */
+    private static void writeHeader(FileChannel channel, long firstSequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstSequence).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+
+    private static void apply(ByteBuffer entry) {
+        byte operation = entry.get();
+        switch (operation) {
+            case ADD_PART:
+            case UPDATE_PART:
+                Inventory.addPart(RecordCodec.readPart(entry));
+                break;
+            case DELETE_PART: {
+                Part part = Inventory.lookupPart(entry.getInt());
+                if (part != null) {
+                    Inventory.deletePart(part);
+                }
+                break;
+            }
+            case ADD_PRODUCT:
+            case UPDATE_PRODUCT:
+                Inventory.addProduct(RecordCodec.readProduct(entry, Inventory::lookupPart));
+                break;
+            case DELETE_PRODUCT: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                if (product != null) {
+                    Inventory.deleteProduct(product);
+                }
+                break;
+            }
+            case ADD_ASSOCIATED_PART: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                Part part = Inventory.lookupPart(entry.getInt());
+                int quantity = entry.hasRemaining() ? entry.getInt() : 1;
+                if (product != null && part != null) {
+                    product.addAssociatedPart(part, quantity);
+                }
+                break;
+            }
+            case DELETE_ASSOCIATED_PART: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                Part part = Inventory.lookupPart(entry.getInt());
+                if (product != null && part != null) {
+                    product.deleteAssociatedPart(part);
+                }
+                break;
+            }
+            case ADD_SUB_ASSEMBLY: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                Product subAssembly = Inventory.lookupProduct(entry.getInt());
+                int quantity = entry.getInt();
+                if (product != null && subAssembly != null) {
+                    product.addSubAssembly(subAssembly, quantity);
+                }
+                break;
+            }
+            case DELETE_SUB_ASSEMBLY: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                Product subAssembly = Inventory.lookupProduct(entry.getInt());
+                if (product != null && subAssembly != null) {
+                    product.deleteSubAssembly(subAssembly);
+                }
+                break;
+            }
+            case SET_PART_STOCK: {
+                Part part = Inventory.lookupPart(entry.getInt());
+                int stock = entry.getInt();
+                if (part != null) {
+                    Inventory.restorePartStock(part, stock);
+                }
+                break;
+            }
+            case SET_PRODUCT_STOCK: {
+                Product product = Inventory.lookupProduct(entry.getInt());
+                int stock = entry.getInt();
+                if (product != null) {
+                    Inventory.restoreProductStock(product, stock);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown journal operation " + operation + ".");
+        }
+    }
+
+    /**
+     * Encode an entry into the pending buffer and wake up the writer. Waits while the buffer is full, and only
+     * counts the entry once the journal has failed.
+     */
+    private void append(byte operation, Consumer<RecordCodec> payload) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The journal is closed.");
+            }
+            while (pending.getBuffer().position() >= MAX_PENDING && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // Buffer the entry anyway rather than lose it.
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("The journal is closed.");
+            }
+            if (failure != null) {
+                appendedEntries++;
+                sequence++;
+                return;
+            }
+            int start = pending.getBuffer().position();
+            pending.writeInt(0);
+            pending.writeInt(0);
+            pending.writeByte(operation);
+            payload.accept(pending);
+
+            ByteBuffer buffer = pending.getBuffer();
+            int length = buffer.position() - start - FRAME_HEADER;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), buffer.arrayOffset() + start + FRAME_HEADER, length);
+            buffer.putInt(start, length);
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            appendedEntries++;
+            sequence++;
+            lock.notifyAll();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long target;
+            synchronized (lock) {
+                while (pending.getBuffer().position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.getBuffer().position() == 0) {
+                    return;
+                }
+                RecordCodec swap = writing;
+                writing = pending;
+                pending = swap;
+                target = appendedEntries;
+            }
+
+            try {
+                ByteBuffer buffer = writing.getBuffer();
+                buffer.flip();
+                synchronized (channel) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+                buffer.clear();
+            } catch (IOException e) {
+                Consumer<IOException> handler;
+                synchronized (lock) {
+                    failure = e;
+                    pending.getBuffer().clear();
+                    handler = failureHandler;
+                    lock.notifyAll();
+                }
+                if (handler != null) {
+                    handler.accept(e);
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                durableEntries = target;
+                commits++;
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package myapp.inventorysystem;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Saves the whole Inventory to a compact binary file and loads it back.
+ * <p>
+ * The file starts with a header (magic number, format version, the sequence number of the first journal entry
+ * not in the snapshot, the last part and product IDs and the record counts), followed by every part and then every product, encoded with RecordCodec.
+ * Associated parts are stored as part IDs. Records are written in ID order through a FileChannel
+ * into a temporary file that replaces the snapshot once it is fully on disk, so a crash while
+ * saving leaves the previous snapshot intact.
+ * <p>
+ * Loading maps the file into memory and decodes the records straight from the mapping, without
+ * copying the file through stream buffers, then hands them to the Inventory as two bulk additions.
+ */
+public class InventorySnapshot {
+
+    /**
+     * The snapshot file used by the application, in the user's home directory.
+     */
+    public static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".galactic-inventory", "inventory.snapshot");
+
+    /**
+     * "INVS" in ASCII.
+     */
+    private static final int MAGIC = 0x494E5653;
+
+    private static final int VERSION = 2;
+
+    /**
+     * Number of encoded bytes collected before they are written to the channel.
+     */
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    /**
+     * Write the current contents of the Inventory to a snapshot file, replacing any previous snapshot.
+     *
+     * @param file            The snapshot file.
+     * @param journalSequence The sequence number of the first journal entry not in the Inventory as it is now.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Path file, long journalSequence) throws IOException {
+        List<Part> parts = Inventory.copyAllParts();
+        List<Product> products = Inventory.copyAllProducts();
+        parts.sort(Comparator.comparingInt(Part::getId));
+        products.sort(Comparator.comparingInt(Product::getId));
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RecordCodec codec = new RecordCodec(WRITE_CHUNK + 4096);
+            codec.writeInt(MAGIC);
+            codec.writeInt(VERSION);
+            codec.writeLong(journalSequence);
+            codec.writeInt(Inventory.getLastPartId());
+            codec.writeInt(Inventory.getLastProductId());
+            codec.writeInt(parts.size());
+            codec.writeInt(products.size());
+            for (Part part : parts) {
+                codec.writePart(part);
+                writeIfFull(codec, channel);
+            }
+            for (Product product : products) {
+                codec.writeProduct(product);
+                writeIfFull(codec, channel);
+            }
+            writeOut(codec, channel);
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Load a snapshot file into the Inventory. Nothing is added unless the whole file can be decoded.
+     *
+     * @param file The snapshot file.
+     * @return The sequence number of the first journal entry to replay on top of the snapshot, or -1 if the file
+     *         does not exist.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    public static long load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        List<Part> parts;
+        List<Product> products;
+        long journalSequence;
+        int lastPartId;
+        int lastProductId;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is too large to map.");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                    throw new IOException(file + " is not an inventory snapshot.");
+                }
+                journalSequence = in.getLong();
+                lastPartId = in.getInt();
+                lastProductId = in.getInt();
+                int partCount = in.getInt();
+                int productCount = in.getInt();
+
+                parts = new ArrayList<>(partCount);
+                IntObjectMap<Part> partsById = new IntObjectMap<>(partCount);
+                for (int i = 0; i < partCount; i++) {
+                    Part part = RecordCodec.readPart(in);
+                    parts.add(part);
+                    partsById.put(part.getId(), part);
+                }
+                products = new ArrayList<>(productCount);
+                for (int i = 0; i < productCount; i++) {
+                    products.add(RecordCodec.readProduct(in, partsById::get));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Snapshot " + file + " is truncated or corrupt.", e);
+            }
+        }
+
+        // Reserve the IDs before the records are published, so no new record is handed one of them meanwhile.
+        Inventory.reservePartId(lastPartId);
+        Inventory.reserveProductId(lastProductId);
+        Inventory.addParts(parts);
+        Inventory.addProducts(products);
+        return journalSequence;
+    }
+
+    private static void writeIfFull(RecordCodec codec, FileChannel channel) throws IOException {
+        if (codec.getBuffer().position() >= WRITE_CHUNK) {
+            writeOut(codec, channel);
+        }
+    }
+
+    private static void writeOut(RecordCodec codec, FileChannel channel) throws IOException {
+        ByteBuffer buffer = codec.getBuffer();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,246 @@
+package myapp.inventorysystem;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces changes to a BatchedList made from any thread into at most one list change per
+ * JavaFX pulse. Changes are queued without touching the list; an AnimationTimer drains the queue on
+ * the application thread once per frame and applies everything queued so far as a single list change,
+ * so a bulk load of 100k records causes a handful of table refreshes instead of 100k.
+ * Each record change is applied in place in O(log n). A pulse with few changes tells observers exactly
+ * which records were added, removed, replaced or updated in place; a larger one reports the whole list as replaced,
+ * because sorted and filtered views handle each reported record in time linear in the list size.
+ * <p>
+ * Before the JavaFX toolkit has started nothing can observe the list, so changes are applied
+ * straight away on the calling thread.
+ * <p>
+ * The counters report how many record changes were queued and applied and how many list
+ * notifications the batches turned into.
+ *
+ * @param <T> The type of the list items.
+ */
+public class ListChangeBatcher<T> {
+
+    /**
+     * Pulses with more record changes than this are reported as a replacement of the whole list.
+     */
+    public static final int PRECISE_CHANGE_LIMIT = 100;
+
+    private final BatchedList<T> items;
+
+    private final ConcurrentLinkedQueue<Change<T>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicLong queuedChanges = new AtomicLong();
+
+    private final AtomicLong appliedChanges = new AtomicLong();
+
+    private final AtomicLong notifications = new AtomicLong();
+
+    /**
+     * Drains the queue once per pulse. Created on the application thread when first needed.
+     */
+    private AnimationTimer pulseTimer;
+
+    /**
+     * Creates a batcher for the given list.
+     *
+     * @param items The list to apply changes to. Only the batcher may modify it.
+     */
+    public ListChangeBatcher(BatchedList<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Queue the addition of an item at the end of the list.
+     *
+     * @param item The item to add.
+     */
+    public void add(T item) {
+        enqueue(new Change<>(null, item, null), 1);
+    }
+
+    /**
+     * Queue the addition of several items at the end of the list.
+     *
+     * @param newItems The items to add, in order.
+     */
+    public void addAll(Collection<? extends T> newItems) {
+        if (!newItems.isEmpty()) {
+            enqueue(new Change<>(null, null, new ArrayList<>(newItems)), newItems.size());
+        }
+    }
+
+    /**
+     * Queue the removal of an item.
+     *
+     * @param item The item to remove.
+     */
+    public void remove(T item) {
+        enqueue(new Change<>(item, null, null), 1);
+    }
+
+    /**
+     * Queue the replacement of an item, keeping its position. The new item is added at the end
+     * if the old one is not in the list.
+     *
+     * @param oldItem The item to replace.
+     * @param newItem The replacement.
+     */
+    public void replace(T oldItem, T newItem) {
+        enqueue(new Change<>(oldItem, newItem, null), 1);
+    }
+
+    /**
+     * Queue a report that an item changed in place, keeping its position, so that observers show it again.
+     *
+     * @param item The changed item.
+     */
+    public void update(T item) {
+        enqueue(new Change<>(item, item, null), 1);
+    }
+
+    /**
+     * Apply every queued change to the list now, as a single list change.
+     * Must be called on the application thread once the toolkit has started.
+     */
+    public synchronized void flush() {
+        List<Change<T>> batch = new ArrayList<>();
+        long count = 0;
+        for (Change<T> change = queue.poll(); change != null; change = queue.poll()) {
+            batch.add(change);
+            count += change.size();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        items.beginBatch(count > PRECISE_CHANGE_LIMIT);
+        try {
+            for (Change<T> change : batch) {
+                apply(change);
+            }
+        } finally {
+            items.endBatch();
+        }
+        appliedChanges.addAndGet(count);
+        notifications.incrementAndGet();
+    }
+
+    /**
+     * Get the number of record changes queued since the batcher was created.
+     *
+     * @return The number of queued record changes.
+     */
+    public long getQueuedChanges() {
+        return queuedChanges.get();
+    }
+
+    /**
+     * Get the number of record changes applied to the list since the batcher was created.
+     *
+     * @return The number of applied record changes.
+     */
+    public long getAppliedChanges() {
+        return appliedChanges.get();
+    }
+
+    /**
+     * Get the number of record changes queued but not yet applied.
+     *
+     * @return The number of pending record changes.
+     */
+    public long getPendingChanges() {
+        return queuedChanges.get() - appliedChanges.get();
+    }
+
+    /**
+     * Get the number of list notifications the applied batches caused.
+     *
+     * @return The number of list notifications.
+     */
+    public long getNotifications() {
+        return notifications.get();
+    }
+
+    private void enqueue(Change<T> change, int count) {
+        queue.add(change);
+        queuedChanges.addAndGet(count);
+        if (scheduled.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (Platform.isFxApplicationThread()) {
+            startPulseTimer();
+            return;
+        }
+        try {
+            Platform.runLater(this::startPulseTimer);
+        } catch (IllegalStateException e) {
+            // The toolkit is not running, so nothing can be observing the list yet.
+            scheduled.set(false);
+            flush();
+        }
+    }
+
+    private void startPulseTimer() {
+        if (pulseTimer == null) {
+            pulseTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flush();
+                    stop();
+                    scheduled.set(false);
+                    // A change queued between the flush and the reset found the flag still set.
+                    if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                        start();
+                    }
+                }
+            };
+        }
+        pulseTimer.start();
+    }
+
+    private void apply(Change<T> change) {
+        if (change.addedAll != null) {
+            items.appendAll(change.addedAll);
+        } else if (change.removed == null) {
+            items.append(change.added);
+        } else if (change.added == null) {
+            items.removeRecord(change.removed);
+        } else if (!items.replaceRecord(change.removed, change.added)) {
+            items.append(change.added);
+        }
+    }
+
+    /**
+     * One queued change: an addition (removed is null), a removal (added and addedAll are null)
+     * or a replacement (both removed and added are set, and the same item for an update in place).
+     */
+    private static final class Change<T> {
+        private final T removed;
+        private final T added;
+        private final List<T> addedAll;
+
+        private Change(T removed, T added, List<T> addedAll) {
+            this.removed = removed;
+            this.added = added;
+            this.addedAll = addedAll;
+        }
+
+        private int size() {
+            return addedAll != null ? addedAll.size() : 1;
+        }
+    }
+}
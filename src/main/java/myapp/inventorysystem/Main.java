@@ -1,13 +1,14 @@
 package myapp.inventorysystem;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import javafx.scene.input.KeyEvent;
 import javafx.event.ActionEvent;
 
+import java.io.IOException;
+
 import static myapp.inventorysystem.Inventory.*;
 
 /**
@@ -23,21 +24,164 @@ import static myapp.inventorysystem.Inventory.*;
 public class Main extends Application {
     private MainController mainController; // Reference to the controller
 
+    /**
+     * Set once the inventory has been loaded, so that a half-loaded inventory is never saved over the snapshot.
+     */
+    private static volatile boolean inventoryLoaded;
+
+    /**
+     * Sequence number following the last journal entry found when loading, which the snapshot records if the
+     * journal could not be opened for new entries.
+     */
+    private static volatile long replayedSequence;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("main-view.fxml"));
-        Parent root = loader.load();
+        ViewCache.LoadedView mainView = ViewCache.get(ViewCache.View.MAIN);
 
         // Store a reference to the controller
-        mainController = loader.getController();
+        mainController = mainView.getController();
 
         primaryStage.setTitle("Galactic Inventory Management System");
-        primaryStage.setScene(new Scene(root));
+        primaryStage.setScene(mainView.getScene());
         primaryStage.show();
 
-        // Add sample data here
-        initializeSampleData();
+        // Load the saved inventory, or add sample data if there is none; editing waits until it is loaded
+        mainController.setEditingEnabled(false);
+        loadInventory(mainController);
+
+        // Load the editor views while the main window is idle, so the first navigation is fast
+        ViewCache.preload();
+    }
+
+    /**
+     * Save the inventory to the snapshot file when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (!inventoryLoaded) {
+            return;
+        }
+        InventoryJournal journal = Inventory.getJournal();
+        try {
+            // The snapshot records how far into the journal it goes, so a crash before the journal is emptied
+            // does not replay those entries twice.
+            long journalSequence = journal != null ? journal.getSequence() : replayedSequence;
+            InventorySnapshot.save(InventorySnapshot.DEFAULT_FILE, journalSequence);
+            if (journal != null) {
+                journal.truncate();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (journal != null) {
+            Inventory.setJournal(null);
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Load the inventory from the snapshot file on a background thread, so the main window is usable
+     * while a large inventory is read. The tables fill in as the records arrive.
+     * The changes journaled since the snapshot are replayed on top of it, and new changes are journaled.
+     * Sample data is added instead only when there is no saved inventory at all.
+     * <p>
+     * The add, modify and delete buttons are enabled once loading is over, so nothing is changed before the
+     * loaded records, their IDs and the journal are in place.
+     * <p>
+     * If the snapshot or the journal cannot be read, the files are left as they are and the inventory is not
+     * saved on exit, so that a partly loaded inventory never replaces the user's data. The user is told so.
+     *
+     * @param mainController The controller of the main view, whose editing is enabled once loading is over.
+     */
+    private static void loadInventory(MainController mainController) {
+        Thread loader = new Thread(() -> {
+            long snapshotSequence;
+            try {
+                snapshotSequence = InventorySnapshot.load(InventorySnapshot.DEFAULT_FILE);
+            } catch (IOException e) {
+                loadFailed(mainController, "The saved inventory could not be read.", e);
+                return;
+            }
+            long journalSequence;
+            try {
+                journalSequence = InventoryJournal.replay(InventoryJournal.DEFAULT_FILE,
+                        Math.max(snapshotSequence, 0));
+            } catch (IOException e) {
+                loadFailed(mainController, "The changes made since the inventory was last saved could not be read.",
+                        e);
+                return;
+            }
+            replayedSequence = journalSequence;
+            IOException journalFailure = openJournal(journalSequence);
+            boolean restored = snapshotSequence >= 0 || journalSequence > 0;
+            Platform.runLater(() -> {
+                if (!restored) {
+                    initializeSampleData();
+                }
+                inventoryLoaded = true;
+                mainController.setEditingEnabled(true);
+                if (journalFailure != null) {
+                    showError("Changes are not being recorded",
+                            "The inventory will only be saved when the application exits normally.", journalFailure);
+                }
+            });
+        }, "inventory-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Open the journal for new changes. If it cannot be written later on, the user is told that changes are
+     * no longer being recorded.
+     *
+     * @return Null if the journal was opened, otherwise why not. The inventory is complete either way, so it is
+     * still saved on exit; changes are just not journaled.
+     */
+    private static IOException openJournal(long nextSequence) {
+        try {
+            InventoryJournal journal = InventoryJournal.open(InventoryJournal.DEFAULT_FILE, nextSequence);
+            journal.setFailureHandler(e -> {
+                e.printStackTrace();
+                Platform.runLater(() -> showError("Changes are no longer being recorded",
+                        "The inventory will only be saved when the application exits normally.", e));
+            });
+            Inventory.setJournal(journal);
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return e;
+        }
     }
+
+    /**
+     * Report that the saved inventory could not be loaded. The files are left alone and nothing is saved on
+     * exit, so the user is warned that changes made now will be lost.
+     */
+    private static void loadFailed(MainController mainController, String message, IOException e) {
+        e.printStackTrace();
+        Platform.runLater(() -> {
+            mainController.setEditingEnabled(true);
+            showError("Inventory not loaded", message + " The saved files have been left unchanged, and changes "
+                    + "made in this session will not be saved.", e);
+        });
+    }
+
+    /**
+     * Show an error alert with the message of the exception that caused it.
+     */
+    private static void showError(String header, String message, IOException e) {
+        Alert alertError = new Alert(Alert.AlertType.ERROR);
+        alertError.setTitle("Error");
+        alertError.setHeaderText(header);
+        alertError.setContentText(message + "\n\n" + e.getMessage());
+        alertError.show();
+    }
+
     /**
      * The main entry point for the Galactic Inventory Management System application.
      *
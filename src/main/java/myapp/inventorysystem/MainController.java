@@ -1,22 +1,21 @@
 package myapp.inventorysystem;
 
-import javafx.collections.FXCollections;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.fxml.Initializable;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.input.KeyEvent;
-import javafx.stage.Stage;
+import javafx.stage.Window;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -40,6 +39,19 @@ public class MainController implements Initializable {
     @FXML
     private Button modifyProductButton;
 
+    @FXML
+    private Button deleteProductButton;
+
+    // Buttons for adding, modifying and deleting parts
+    @FXML
+    private Button partAddButton;
+
+    @FXML
+    private Button partModifyButton;
+
+    @FXML
+    private Button partDeleteButton;
+
     // TextFields for searching parts and products
     @FXML
     private TextField partSearchText;
@@ -56,29 +68,54 @@ public class MainController implements Initializable {
 
     // TableColumns for parts
     @FXML
-    private TableColumn<Part, Integer> partIdColumn;
+    private TableColumn<Part, Part> partIdColumn;
 
     @FXML
     private TableColumn<Part, String> partNameColumn;
 
     @FXML
-    private TableColumn<Part, Integer> partInventoryColumn;
+    private TableColumn<Part, Part> partInventoryColumn;
 
     @FXML
-    private TableColumn<Part, Double> partPriceColumn;
+    private TableColumn<Part, Part> partPriceColumn;
 
     // TableColumns for products
     @FXML
-    private TableColumn<Product, Integer> productIdColumn;
+    private TableColumn<Product, Product> productIdColumn;
 
     @FXML
     private TableColumn<Product, String> productNameColumn;
 
     @FXML
-    private TableColumn<Product, Integer> productInventoryColumn;
+    private TableColumn<Product, Product> productInventoryColumn;
 
     @FXML
-    private TableColumn<Product, Double> productPriceColumn;
+    private TableColumn<Product, Product> productPriceColumn;
+
+    // Paged rows of the tables, showing the inventory lists or the sorted search results
+    private PagedList<Part> partRows;
+
+    private PagedList<Product> productRows;
+
+    // IDs found by the current searches, or null while not searching
+    private int[] partsFound;
+
+    private int[] productsFound;
+
+    // Sort orders of the inventory behind the sortable columns
+    private Map<TableColumn<Part, ?>, SortIndex.Key> partSortKeys;
+
+    private Map<TableColumn<Product, ?>, SortIndex.Key> productSortKeys;
+
+    // Re-sort the tables once the inventory stops changing
+    private PauseTransition partResort;
+
+    private PauseTransition productResort;
+
+    // Search-as-you-type for the part and product tables
+    private BackgroundSearch partSearch;
+
+    private BackgroundSearch productSearch;
 
     /**
      * Retrieves all parts from the inventory.
@@ -124,16 +161,12 @@ public class MainController implements Initializable {
      */
     @FXML
     void addProductAction() throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("AddProductView.fxml"));
-        Parent root = loader.load();
+        ViewCache.LoadedView view = ViewCache.get(ViewCache.View.ADD_PRODUCT);
 
-        AddProductController addProductController = loader.getController();
+        AddProductController addProductController = view.getController();
         addProductController.setInventory(inventory);
 
-        Stage stage = new Stage();
-        stage.setTitle("Add Product");
-        stage.setScene(new Scene(root));
-        stage.show();
+        ViewCache.showDialog(view, productTableView.getScene().getWindow(), "Add Product");
     }
 
     /**
@@ -151,28 +184,27 @@ public class MainController implements Initializable {
         if (productToModify == null) {
             displayAlert(4);
         } else {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("ModifyProductView.fxml"));
-            Parent root = loader.load();
+            ViewCache.LoadedView view = ViewCache.get(ViewCache.View.MODIFY_PRODUCT);
 
-            ModifyProductController modifyProductController = loader.getController();
+            ModifyProductController modifyProductController = view.getController();
             modifyProductController.setInventory(inventory);
             modifyProductController.setProductToModify(productToModify);
 
-            Stage stage = new Stage();
-            stage.setTitle("Modify Product");
-            stage.setScene(new Scene(root));
-            stage.show();
+            // The product is edited in place, so show it again once the editor closes
+            ViewCache.showDialog(view, productTableView.getScene().getWindow(), "Modify Product")
+                    .setOnHidden(hidden -> refresh());
         }
     }
 
     /**
-     * Handling the action event for exiting the application.
+     * Handling the action event for exiting the application. Exits through the JavaFX runtime so that the
+     * inventory is saved and the journal closed on the way out.
      *
      * @param event The action event.
      */
     @FXML
     void exitButtonAction(ActionEvent event) {
-        System.exit(0);
+        Platform.exit();
     }
 
     /**
@@ -183,11 +215,8 @@ public class MainController implements Initializable {
      */
     @FXML
     void partAddAction(ActionEvent event) throws IOException {
-        Parent parent = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("AddPartView.fxml")));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+        Window owner = ((Node) event.getSource()).getScene().getWindow();
+        ViewCache.showDialog(ViewCache.get(ViewCache.View.ADD_PART), owner, "Add Part");
     }
 
     /**
@@ -204,15 +233,26 @@ public class MainController implements Initializable {
         if (selectedPart == null) {
             displayAlert(3);
         } else {
+            // Products still using the part lose it too, so name them before asking
+            ObservableList<Product> usingProducts = Inventory.getProductsUsingPart(selectedPart);
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Alert");
-            alert.setContentText("Do you want to delete the selected part?");
+            if (usingProducts.isEmpty()) {
+                alert.setContentText("Do you want to delete the selected part?");
+            } else {
+                alert.setHeaderText("Part used by " + usingProducts.size() + " product(s)");
+                alert.setContentText("The selected part will also be removed from: " + describeProducts(usingProducts)
+                        + "\nDo you want to delete the selected part?");
+            }
             Optional<ButtonType> result = alert.showAndWait();
 
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 try {
-                    Inventory.deletePart(selectedPart);
-                    partTableView.setItems(Inventory.getAllParts());
+                    if (usingProducts.isEmpty()) {
+                        Inventory.deletePart(selectedPart);
+                    } else {
+                        Inventory.deletePartCascading(selectedPart);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -220,6 +260,27 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Describe products by name for a confirmation dialog, listing at most a handful of them.
+     *
+     * @param products The products to describe.
+     * @return The product names, separated by commas.
+     */
+    private static String describeProducts(ObservableList<Product> products) {
+        int shown = Math.min(products.size(), 10);
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                names.append(", ");
+            }
+            names.append(products.get(i).getName());
+        }
+        if (products.size() > shown) {
+            names.append(" and ").append(products.size() - shown).append(" more");
+        }
+        return names.toString();
+    }
+
     /**
      * Handling the action event for modifying a part.
      *
@@ -233,17 +294,15 @@ public class MainController implements Initializable {
         if (partToModify == null) {
             displayAlert(3);
         } else {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("ModifyPartView.fxml"));
-            Parent root = loader.load();
+            ViewCache.LoadedView view = ViewCache.get(ViewCache.View.MODIFY_PART);
 
-            ModifyPartController modifyPartController = loader.getController();
+            ModifyPartController modifyPartController = view.getController();
             modifyPartController.setPartToModify(partToModify);
             modifyPartController.setInventory(inventory);
 
-            Stage stage = new Stage();
-            stage.setTitle("Modify Part");
-            stage.setScene(new Scene(root));
-            stage.show();
+            // The part is edited in place, so show it again once the editor closes
+            ViewCache.showDialog(view, partTableView.getScene().getWindow(), "Modify Part")
+                    .setOnHidden(hidden -> refresh());
         }
     }
 
@@ -254,33 +313,27 @@ public class MainController implements Initializable {
      */
     @FXML
     void partSearchBtnAction(ActionEvent event) {
-        ObservableList<Part> allParts = Inventory.getAllParts();
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        String searchString = partSearchText.getText().toLowerCase();
-
-        for (Part part : allParts) {
-            if (String.valueOf(part.getId()).contains(searchString) ||
-                    part.getName().toLowerCase().contains(searchString)) {
-                partsFound.add(part);
-            }
-        }
-
-        partTableView.setItems(partsFound);
+        partSearch.cancel();
+        partsFound = Inventory.searchPartIds(partSearchText.getText());
+        showParts();
 
-        if (partsFound.isEmpty()) {
+        if (partsFound.length == 0) {
             displayAlert(1);
         }
     }
 
     /**
-     * Handling the key pressed event for searching parts.
+     * Handling changes to the part search text. Non-empty text is searched in the background once typing pauses.
      *
-     * @param event The key event.
+     * @param searchText The new search text.
      */
-    @FXML
-    void partSearchTextKeyPressed(KeyEvent event) {
-        if (partSearchText.getText().isEmpty()) {
-            partTableView.setItems(Inventory.getAllParts());
+    private void partSearchTextChanged(String searchText) {
+        if (searchText == null || searchText.isEmpty()) {
+            partSearch.cancel();
+            partsFound = null;
+            showParts();
+        } else {
+            partSearch.submit(searchText);
         }
     }
 
@@ -292,11 +345,8 @@ public class MainController implements Initializable {
      */
     @FXML
     void productAddAction(ActionEvent event) throws IOException {
-        Parent parent = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("AddProductView.fxml")));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+        Window owner = ((Node) event.getSource()).getScene().getWindow();
+        ViewCache.showDialog(ViewCache.get(ViewCache.View.ADD_PRODUCT), owner, "Add Product");
     }
 
     /**
@@ -329,13 +379,8 @@ public class MainController implements Initializable {
 
             // Corrected runtime error handling the deletion process
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                // Refresh productTableView to reflect changes
-                productTableView.setItems(Inventory.getAllProducts());
-
-                if (Inventory.deleteProduct(selectedProduct)) {
-                    // Deletion successful
-                    productTableView.setItems(Inventory.getAllProducts());
-                } else {
+                // The table drops the deleted product once the inventory list changes
+                if (!Inventory.deleteProduct(selectedProduct)) {
                     // Display error message for product not deleted
                     displayAlert(6);
                 }
@@ -350,7 +395,7 @@ public class MainController implements Initializable {
      * @return True if the product has associated parts, false otherwise.
      */
     private boolean productHasAssociatedParts(Product product) {
-        return !product.getAllAssociatedParts().isEmpty();
+        return product.getAssociatedPartCount() > 0;
     }
 
 
@@ -367,17 +412,15 @@ public class MainController implements Initializable {
         if (productToModify == null) {
             displayAlert(4);
         } else {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("ModifyProductView.fxml"));
-            Parent root = loader.load();
+            ViewCache.LoadedView view = ViewCache.get(ViewCache.View.MODIFY_PRODUCT);
 
-            ModifyProductController modifyProductController = loader.getController();
+            ModifyProductController modifyProductController = view.getController();
             modifyProductController.setInventory(inventory);
             modifyProductController.setProductToModify(productToModify);
 
-            Stage stage = new Stage();
-            stage.setTitle("Modify Product");
-            stage.setScene(new Scene(root));
-            stage.show();
+            // The product is edited in place, so show it again once the editor closes
+            ViewCache.showDialog(view, productTableView.getScene().getWindow(), "Modify Product")
+                    .setOnHidden(hidden -> refresh());
         }
     }
 
@@ -388,55 +431,181 @@ public class MainController implements Initializable {
      */
     @FXML
     void productSearchBtnAction(ActionEvent event) {
-        ObservableList<Product> allProducts = Inventory.getAllProducts();
-        ObservableList<Product> productsFound = FXCollections.observableArrayList();
-        String searchString = productSearchText.getText().toLowerCase();
-
-        for (Product product : allProducts) {
-            if (String.valueOf(product.getId()).contains(searchString) ||
-                    product.getName().toLowerCase().contains(searchString)) {
-                productsFound.add(product);
-            }
-        }
-
-        productTableView.setItems(productsFound);
+        productSearch.cancel();
+        productsFound = Inventory.searchProductIds(productSearchText.getText(), Inventory.SEARCH_RESULT_LIMIT);
+        showProducts();
 
-        if (productsFound.isEmpty()) {
+        if (productsFound.length == 0) {
             displayAlert(2);
         }
     }
 
     /**
-     * Handling the key pressed event for searching products.
+     * Handling changes to the product search text. Non-empty text is searched in the background once typing pauses.
      *
-     * @param event The key event.
+     * @param searchText The new search text.
      */
-    @FXML
-    void productSearchTextKeyPressed(KeyEvent event) {
-        if (productSearchText.getText().isEmpty()) {
-            productTableView.setItems(Inventory.getAllProducts());
+    private void productSearchTextChanged(String searchText) {
+        if (searchText == null || searchText.isEmpty()) {
+            productSearch.cancel();
+            productsFound = null;
+            showProducts();
+        } else {
+            productSearch.submit(searchText);
         }
     }
 
     /**
      * This Initializes the controller, setting up the part and product TableViews and columns.
+     * Each table is bound once to a PagedList, which only fetches the rows around the viewport. Unsorted and
+     * not searching, it follows the inventory list; otherwise it shows the IDs found, in the table's sort order,
+     * which searching and sorting only replace, so the table keeps its sort order across searches. Sorting, by
+     * one column or several, walks the persistent sort orders of the Inventory instead of sorting the records.
      *
      * @param location  The location used to resolve relative paths for the root object.
      * @param resources The resources used to localize the root object, or null if the root object was not localized.
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        partTableView.setItems(Inventory.getAllParts());
-        partIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        productTableView.setItems(Inventory.getAllProducts());
-        productIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        productNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        productInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        productPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
+        partRows = PagedList.parts();
+        partRows.follow(Inventory.getAllParts());
+        partTableView.setItems(partRows);
+        partTableView.setSortPolicy(table -> {
+            showParts();
+            return true;
+        });
+        RecordColumns.intColumn(partIdColumn, Part::getId);
+        RecordColumns.stringColumn(partNameColumn, Part::getName);
+        RecordColumns.intColumn(partInventoryColumn, Part::getStock);
+        RecordColumns.doubleColumn(partPriceColumn, Part::getPrice);
+        partSortKeys = Map.of(partIdColumn, SortIndex.Key.ID, partNameColumn, SortIndex.Key.NAME,
+                partInventoryColumn, SortIndex.Key.STOCK, partPriceColumn, SortIndex.Key.PRICE);
+
+        productRows = PagedList.products();
+        productRows.follow(Inventory.getAllProducts());
+        productTableView.setItems(productRows);
+        productTableView.setSortPolicy(table -> {
+            showProducts();
+            return true;
+        });
+        RecordColumns.intColumn(productIdColumn, Product::getId);
+        RecordColumns.stringColumn(productNameColumn, Product::getName);
+        RecordColumns.intColumn(productInventoryColumn, Product::getStock);
+        RecordColumns.doubleColumn(productPriceColumn, Product::getPrice);
+        productSortKeys = Map.of(productIdColumn, SortIndex.Key.ID, productNameColumn, SortIndex.Key.NAME,
+                productInventoryColumn, SortIndex.Key.STOCK, productPriceColumn, SortIndex.Key.PRICE);
+
+        partSearch = new BackgroundSearch(Inventory::searchPartIds,
+                partIds -> {
+                    partsFound = partIds;
+                    showParts();
+                });
+        productSearch = new BackgroundSearch(
+                searchText -> Inventory.searchProductIds(searchText, Inventory.SEARCH_RESULT_LIMIT),
+                productIds -> {
+                    productsFound = productIds;
+                    showProducts();
+                });
+        partSearchText.textProperty().addListener((observable, oldValue, newValue) -> partSearchTextChanged(newValue));
+        productSearchText.textProperty().addListener((observable, oldValue, newValue) -> productSearchTextChanged(newValue));
+
+        partResort = new PauseTransition(BackgroundSearch.DEFAULT_DELAY);
+        partResort.setOnFinished(event -> showParts());
+        productResort = new PauseTransition(BackgroundSearch.DEFAULT_DELAY);
+        productResort.setOnFinished(event -> showProducts());
+        Inventory.getAllParts().addListener((ListChangeListener<Part>) change -> partsChanged());
+        Inventory.getAllProducts().addListener((ListChangeListener<Product>) change -> productsChanged());
+    }
+
+    /**
+     * Show the parts found, or all parts, in the sort order of the part table, keeping the selected part
+     * selected if it is still shown.
+     */
+    private void showParts() {
+        Part selected = partTableView.getSelectionModel().getSelectedItem();
+        List<SortIndex.SortKey> sortKeys = sortKeysOf(partTableView, partSortKeys);
+        if (partsFound == null && sortKeys.isEmpty()) {
+            partRows.follow(Inventory.getAllParts());
+        } else {
+            partRows.setIds(Inventory.sortPartIds(partsFound, sortKeys));
+        }
+        reselect(partTableView, selected);
+    }
+
+    /**
+     * Show the products found, or all products, in the sort order of the product table, keeping the selected
+     * product selected if it is still shown.
+     */
+    private void showProducts() {
+        Product selected = productTableView.getSelectionModel().getSelectedItem();
+        List<SortIndex.SortKey> sortKeys = sortKeysOf(productTableView, productSortKeys);
+        if (productsFound == null && sortKeys.isEmpty()) {
+            productRows.follow(Inventory.getAllProducts());
+        } else {
+            productRows.setIds(Inventory.sortProductIds(productsFound, sortKeys));
+        }
+        reselect(productTableView, selected);
+    }
+
+    /**
+     * Select a record again after the rows of a table were replaced, which clears the selection. The rows
+     * find the record by ID, so a record replaced by a newer one with the same ID is selected too.
+     *
+     * @param table    The table.
+     * @param selected The record selected before the rows were replaced, or null.
+     * @param <S>      The type of the records in the table.
+     */
+    private static <S> void reselect(TableView<S> table, S selected) {
+        if (selected == null || table.getSelectionModel().getSelectedItem() == selected) {
+            return;
+        }
+        int index = table.getItems().indexOf(selected);
+        if (index >= 0) {
+            table.getSelectionModel().select(index);
+        }
+    }
+
+    /**
+     * Get the sort keys of the columns a table is sorted by, most significant first.
+     *
+     * @param table The table.
+     * @param keys  The sort key of each sortable column.
+     * @param <S>   The type of the records in the table.
+     * @return The sort keys, empty if the table is not sorted.
+     */
+    private static <S> List<SortIndex.SortKey> sortKeysOf(TableView<S> table, Map<TableColumn<S, ?>, SortIndex.Key> keys) {
+        List<SortIndex.SortKey> sortKeys = new ArrayList<>();
+        for (TableColumn<S, ?> column : table.getSortOrder()) {
+            SortIndex.Key key = keys.get(column);
+            if (key != null) {
+                sortKeys.add(new SortIndex.SortKey(key, column.getSortType() == TableColumn.SortType.DESCENDING));
+            }
+        }
+        return sortKeys;
+    }
+
+    /**
+     * Handling changes to the parts of the inventory. A followed list shows them by itself; search results
+     * are searched again and a sorted table is sorted again, once the changes pause.
+     */
+    private void partsChanged() {
+        if (partsFound != null) {
+            partSearch.submit(partSearchText.getText());
+        } else if (!partRows.isFollowing()) {
+            partResort.playFromStart();
+        }
+    }
+
+    /**
+     * Handling changes to the products of the inventory. A followed list shows them by itself; search results
+     * are searched again and a sorted table is sorted again, once the changes pause.
+     */
+    private void productsChanged() {
+        if (productsFound != null) {
+            productSearch.submit(productSearchText.getText());
+        } else if (!productRows.isFollowing()) {
+            productResort.playFromStart();
+        }
     }
 
     /**
@@ -484,12 +653,42 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Enables or disables the buttons that add, modify and delete parts and products. They are disabled while
+     * the saved inventory is being loaded, so nothing is changed before the loaded records and IDs are in place.
+     *
+     * @param enabled True to enable the buttons, false to disable them.
+     */
+    public void setEditingEnabled(boolean enabled) {
+        for (Button button : List.of(partAddButton, partModifyButton, partDeleteButton, addProductButton,
+                modifyProductButton, deleteProductButton)) {
+            button.setDisable(!enabled);
+        }
+    }
+
     /**
      * Refreshes the user interface, updating displayed data and views.
-     * Invoked to reflect any changes in the inventory system.
+     * Invoked to reflect any changes in the inventory system, including records edited in place: search results
+     * are searched again, sorted tables are sorted again, and the rows shown are fetched again. Either way the
+     * tables keep their selection.
      */
     public void refresh() {
-        // Implementation goes here
+        if (partsFound != null) {
+            partSearch.submit(partSearchText.getText());
+        }
+        if (partRows.isFollowing()) {
+            partRows.refresh();
+        } else {
+            showParts();
+        }
+        if (productsFound != null) {
+            productSearch.submit(productSearchText.getText());
+        }
+        if (productRows.isFollowing()) {
+            productRows.refresh();
+        } else {
+            showProducts();
+        }
     }
 
     /**
@@ -7,9 +7,6 @@ import javafx.scene.control.*;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.Node;
 import javafx.stage.Stage;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
 
 import java.io.IOException;
 import java.net.URL;
@@ -25,7 +22,7 @@ import java.util.ResourceBundle;
  */
 
 public class
-ModifyPartController implements Initializable {
+ModifyPartController implements Initializable, ReusableController {
 
     @FXML
     private RadioButton inHouseRadioButton;
@@ -119,6 +116,22 @@ ModifyPartController implements Initializable {
         }
     }
 
+    /**
+     * Clears the fields and forgets the part, so the cached view can modify another part.
+     */
+    @Override
+    public void reset() {
+        selectedPart = null;
+        partIdText.clear();
+        partNameText.clear();
+        partInventoryText.clear();
+        partPriceText.clear();
+        partMaxText.clear();
+        partMinText.clear();
+        partIdNameText.clear();
+        inHouseRadioButton.setSelected(true);
+    }
+
     /**
      * This is the Action handler for the in-house radio button.
      *
@@ -435,13 +448,10 @@ ModifyPartController implements Initializable {
      */
     private void returnToMainScreen(ActionEvent event) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("main-view.fxml"));
-            Parent mainScreen = loader.load();
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-            stage.setScene(new Scene(mainScreen));
-            stage.show();
+            ViewCache.showMainView(stage);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -2,15 +2,13 @@ package myapp.inventorysystem;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.stage.Stage;
 
@@ -26,7 +24,7 @@ import java.util.ResourceBundle;
  * FUTURE ENHANCEMENT: Add support for batch updating of associated parts.
  * Controller class for modifying a product.
  */
-public class ModifyProductController implements Initializable {
+public class ModifyProductController implements Initializable, ReusableController {
 
     @FXML
     private Label messageLabel;
@@ -53,16 +51,16 @@ public class ModifyProductController implements Initializable {
     private TableView<Part> partTableView;
 
     @FXML
-    private TableColumn<Part, Integer> partIdColumn;
+    private TableColumn<Part, Part> partIdColumn;
 
     @FXML
     private TableColumn<Part, String> partNameColumn;
 
     @FXML
-    private TableColumn<Part, Integer> partInventoryColumn;
+    private TableColumn<Part, Part> partInventoryColumn;
 
     @FXML
-    private TableColumn<Part, Double> partPriceColumn;
+    private TableColumn<Part, Part> partPriceColumn;
 
     @FXML
     private TextField partSearchText;
@@ -71,19 +69,19 @@ public class ModifyProductController implements Initializable {
     private TableView<Part> associatedPartTableView;
 
     @FXML
-    private TableColumn<Part, Integer> associatedPartIdColumn;
+    private TableColumn<Part, Part> associatedPartIdColumn;
 
     @FXML
     private TableColumn<Part, String> associatedPartNameColumn;
 
     @FXML
-    private TableColumn<Part, Integer> associatedPartInventoryColumn;
+    private TableColumn<Part, Part> associatedPartInventoryColumn;
 
     @FXML
-    private TableColumn<Part, Double> associatedPartPriceColumn;
+    private TableColumn<Part, Part> associatedPartPriceColumn;
 
     private final ObservableList<Part> associatedParts = FXCollections.observableArrayList();
-    private final ObservableList<Part> allParts = FXCollections.observableArrayList();
+    private final FilteredList<Part> filteredParts = new FilteredList<>(Inventory.getAllParts());
     private Inventory inventory;
     private Product selectedProduct;
     private Stage stage;
@@ -102,27 +100,47 @@ public class ModifyProductController implements Initializable {
         populateFieldsFromProduct();
     }
 
+    /**
+     * Clears the fields, the part search and the associated parts, and forgets the product, so the cached
+     * view can modify another product.
+     */
+    @Override
+    public void reset() {
+        selectedProduct = null;
+        productIdText.clear();
+        productNameText.clear();
+        productInventoryText.clear();
+        productPriceText.clear();
+        productMaxText.clear();
+        productMinText.clear();
+        partSearchText.clear();
+        filteredParts.setPredicate(null);
+        partTableView.getSelectionModel().clearSelection();
+        associatedParts.clear();
+    }
+
     /**
      * Sets up table columns for parts and associated parts.
      */
     private void setupTableColumns() {
-        partIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-
-        associatedPartIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        associatedPartNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        associatedPartInventoryColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        associatedPartPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
+        RecordColumns.intColumn(partIdColumn, Part::getId);
+        RecordColumns.stringColumn(partNameColumn, Part::getName);
+        RecordColumns.intColumn(partInventoryColumn, Part::getStock);
+        RecordColumns.doubleColumn(partPriceColumn, Part::getPrice);
+
+        RecordColumns.intColumn(associatedPartIdColumn, Part::getId);
+        RecordColumns.stringColumn(associatedPartNameColumn, Part::getName);
+        RecordColumns.intColumn(associatedPartInventoryColumn, Part::getStock);
+        RecordColumns.doubleColumn(associatedPartPriceColumn, Part::getPrice);
     }
 
     /**
-     * Loads all parts into the table view.
+     * Binds the part table to a sorted, filtered view of all parts.
      */
     private void loadAllParts() {
-        allParts.setAll(Inventory.getAllParts());
-        partTableView.setItems(allParts);
+        SortedList<Part> sortedParts = new SortedList<>(filteredParts);
+        sortedParts.comparatorProperty().bind(partTableView.comparatorProperty());
+        partTableView.setItems(sortedParts);
     }
 
     /**
@@ -220,6 +238,7 @@ public class ModifyProductController implements Initializable {
 
         // Update associated parts of the selected product
         selectedProduct.getAllAssociatedParts().setAll(associatedParts);
+        Inventory.updateProduct(selectedProduct);
 
         displayAlert("info", "Product Modified", "Product has been successfully modified.");
 
@@ -273,24 +292,21 @@ public class ModifyProductController implements Initializable {
     }
 
     /**
-     * Searches for parts based on the given search string.
+     * Filters the part table down to the parts matching the given search string.
+     *
+     * An empty search string shows all parts again.
      *
      * @param searchString The string to search for in parts.
-     * @return The list of found parts.
+     * @return True if any part matches, false otherwise.
      */
-    private ObservableList<Part> searchParts(String searchString) {
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-
-        for (Part part : allParts) {
-            String partId = String.valueOf(part.getId());
-            String partName = part.getName().toLowerCase();
-
-            if (partId.contains(searchString) || partName.contains(searchString.toLowerCase())) {
-                partsFound.add(part);
-            }
+    private boolean searchParts(String searchString) {
+        if (searchString.isEmpty()) {
+            filteredParts.setPredicate(null);
+            return !filteredParts.isEmpty();
         }
-
-        return partsFound;
+        IdFilter<Part> foundParts = IdFilter.parts(Inventory.searchPartIds(searchString));
+        filteredParts.setPredicate(foundParts);
+        return !foundParts.isEmpty();
     }
 
     /**
@@ -304,11 +320,8 @@ public class ModifyProductController implements Initializable {
      */
     private void returnToMainScreen(ActionEvent event) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("main-view.fxml"));
-            Scene scene = new Scene(root);
             stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.show();
+            ViewCache.showMainView(stage);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -367,18 +380,12 @@ public class ModifyProductController implements Initializable {
      */
     @FXML
     void partSearchTextKeyReleased(KeyEvent event) {
-        String searchString = partSearchText.getText().toLowerCase();
-        ObservableList<Part> filteredParts = searchParts(searchString);
-        partTableView.setItems(filteredParts);
+        searchParts(partSearchText.getText());
     }
 
     @FXML
     void partSearchBtnAction(ActionEvent actionEvent) {
-        String searchString = partSearchText.getText().toLowerCase();
-        ObservableList<Part> filteredParts = searchParts(searchString);
-        partTableView.setItems(filteredParts);
-
-        if (filteredParts.isEmpty()) {
+        if (!searchParts(partSearchText.getText())) {
             displayAlert("info", "No Parts Found", "No parts found matching the search criteria.");
         }
     }
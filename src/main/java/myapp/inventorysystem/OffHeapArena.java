@@ -0,0 +1,264 @@
+package myapp.inventorysystem;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only arena of variable-length values in direct memory, used by OffHeapTable for strings and part
+ * ID lists. Values are written into 1 MB direct ByteBuffer chunks as a byte length followed by the bytes
+ * (UTF-8 for strings, ints for ID lists), and referred to by a long holding the chunk and the offset.
+ * <p>
+ * Freed values are only counted; the table copies its live values into a new arena once the garbage
+ * outweighs them. The arena is not thread-safe by itself; its table guards it.
+ */
+public class OffHeapArena {
+
+    /**
+     * Reference standing for null.
+     */
+    public static final long NULL_REF = -1;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private static final int[] NO_INTS = new int[0];
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Write position in the last chunk.
+     */
+    private int position;
+
+    /**
+     * Bytes written, including the length prefixes.
+     */
+    private long allocated;
+
+    /**
+     * Bytes of values that were freed.
+     */
+    private long garbage;
+
+    /**
+     * Store a string.
+     *
+     * @param value The string, which may be null.
+     * @return The reference to the string.
+     */
+    public long putString(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long ref = allocate(bytes.length);
+        chunk(ref).put(offset(ref) + Integer.BYTES, bytes);
+        return ref;
+    }
+
+    /**
+     * Read a string.
+     *
+     * @param ref The reference returned by putString.
+     * @return The string, or null for NULL_REF.
+     */
+    public String getString(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Store a list of ints.
+     *
+     * @param values The ints.
+     * @return The reference to the list, or NULL_REF for an empty list.
+     */
+    public long putInts(int[] values) {
+        if (values.length == 0) {
+            return NULL_REF;
+        }
+        long ref = allocate(values.length * Integer.BYTES);
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref) + Integer.BYTES;
+        for (int value : values) {
+            chunk.putInt(offset, value);
+            offset += Integer.BYTES;
+        }
+        return ref;
+    }
+
+    /**
+     * Read a list of ints.
+     *
+     * @param ref The reference returned by putInts.
+     * @return The ints, empty for NULL_REF.
+     */
+    public int[] getInts(long ref) {
+        if (ref == NULL_REF) {
+            return NO_INTS;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        int[] values = new int[chunk.getInt(offset) / Integer.BYTES];
+        offset += Integer.BYTES;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = chunk.getInt(offset);
+            offset += Integer.BYTES;
+        }
+        return values;
+    }
+
+    /**
+     * Check whether a stored string contains an ASCII query, ignoring the case of ASCII letters.
+     * Bytes of other characters never equal ASCII bytes in UTF-8, but lower-casing them could produce
+     * ASCII letters, so strings holding any are left to the caller.
+     *
+     * @param ref   The reference to the string, or NULL_REF.
+     * @param query The lower-case ASCII query, as returned by toAscii.
+     * @return 1 if the string contains the query, 0 if it does not, -1 if it is not ASCII.
+     */
+    public int containsAsciiIgnoreCase(long ref, byte[] query) {
+        if (ref == NULL_REF) {
+            return query.length == 0 ? 1 : 0;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int start = offset(ref) + Integer.BYTES;
+        int end = start + chunk.getInt(offset(ref));
+        boolean found = query.length == 0;
+        for (int i = start; i < end; i++) {
+            byte b = chunk.get(i);
+            if (b < 0) {
+                return -1;
+            }
+            if (!found && i + query.length <= end && matchesAt(chunk, i, query)) {
+                found = true;
+            }
+        }
+        return found ? 1 : 0;
+    }
+
+    /**
+     * Get the bytes of a lower-case query for containsAsciiIgnoreCase.
+     *
+     * @param query The query, lower-cased.
+     * @return The ASCII bytes of the query, or null if it has other characters.
+     */
+    public static byte[] toAscii(String query) {
+        byte[] bytes = new byte[query.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = query.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static boolean matchesAt(ByteBuffer chunk, int index, byte[] query) {
+        for (int j = 0; j < query.length; j++) {
+            byte b = chunk.get(index + j);
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != query[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mark a value as no longer used.
+     *
+     * @param ref The reference to the value, or NULL_REF.
+     */
+    public void free(long ref) {
+        if (ref != NULL_REF) {
+            garbage += Integer.BYTES + chunk(ref).getInt(offset(ref));
+        }
+    }
+
+    /**
+     * Copy a value into another arena without decoding it.
+     *
+     * @param ref    The reference to the value, or NULL_REF.
+     * @param target The arena to copy into.
+     * @return The reference to the copy in the target arena.
+     */
+    public long copyTo(long ref, OffHeapArena target) {
+        if (ref == NULL_REF) {
+            return NULL_REF;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        int length = chunk.getInt(offset);
+        long copy = target.allocate(length);
+        target.chunk(copy).put(target.offset(copy) + Integer.BYTES, chunk, offset + Integer.BYTES, length);
+        return copy;
+    }
+
+    /**
+     * Get the number of bytes written to the arena, live or freed.
+     *
+     * @return The number of bytes allocated.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Get the number of bytes of freed values.
+     *
+     * @return The number of bytes of garbage.
+     */
+    public long getGarbage() {
+        return garbage;
+    }
+
+    /**
+     * Get the direct memory reserved by the arena's chunks.
+     *
+     * @return The capacity of the chunks in bytes.
+     */
+    public long getCapacity() {
+        long capacity = 0;
+        for (ByteBuffer chunk : chunks) {
+            capacity += chunk.capacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * Reserve room for a length prefix and a value, starting a new chunk if the last one is full,
+     * and write the length.
+     */
+    private long allocate(int length) {
+        int size = Integer.BYTES + length;
+        if (chunks.isEmpty() || position + size > chunks.get(chunks.size() - 1).capacity()) {
+            chunks.add(ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, size)).order(ByteOrder.nativeOrder()));
+            position = 0;
+        }
+        long ref = ((long) (chunks.size() - 1) << 32) | position;
+        chunks.get(chunks.size() - 1).putInt(position, length);
+        position += size;
+        allocated += size;
+        return ref;
+    }
+
+    private ByteBuffer chunk(long ref) {
+        return chunks.get((int) (ref >>> 32));
+    }
+
+    private int offset(long ref) {
+        return (int) ref;
+    }
+}
@@ -0,0 +1,582 @@
+package myapp.inventorysystem;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * RecordTable kept entirely in direct memory, for catalogs large enough that holding them on the heap
+ * causes long garbage collection pauses. Records are fixed-width 48-byte rows in direct ByteBuffer
+ * segments of 65536 rows; names, company names and associated part IDs live in an OffHeapArena; and the
+ * index from ID to row is an open-addressing hash table in another direct buffer. The heap only holds
+ * the buffer objects, a few per million records, so the collector has next to nothing to trace.
+ * <pre>
+ * row: id(int) kind(byte) componentLayout(byte) pad(2) price(double) stock min max machineId(int) name(ref) extra(ref)
+ * </pre>
+ * The extra reference is the company name of an OutSourced part or the component list of a product: its
+ * part IDs, their quantities when some are not 1, and its sub-assemblies, laid out as the row records.
+ * Freed rows are chained through their stock field and reused. The arena is compacted once its garbage
+ * outweighs its live values.
+ * <p>
+ * Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ * All methods are synchronized on the table.
+ */
+public class OffHeapTable implements RecordTable {
+
+    private static final int RECORD_BYTES = 48;
+
+    private static final int SEGMENT_SHIFT = 16;
+
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+
+    private static final int ID = 0;
+
+    private static final int KIND = 4;
+
+    /**
+     * Layout of the component list of a product: PART_IDS, PART_QUANTITIES or SUB_ASSEMBLIES.
+     */
+    private static final int COMPONENT_LAYOUT = 5;
+
+    /**
+     * Component layout holding the part IDs only, every quantity being 1.
+     */
+    private static final byte PART_IDS = 0;
+
+    /**
+     * Component layout holding the part IDs followed by their quantities.
+     */
+    private static final byte PART_QUANTITIES = 1;
+
+    /**
+     * Component layout holding the part count, the part IDs, their quantities, the sub-assembly count,
+     * the sub-assembly IDs and their quantities.
+     */
+    private static final byte SUB_ASSEMBLIES = 2;
+
+    private static final int PRICE = 8;
+
+    private static final int STOCK = 16;
+
+    private static final int MIN = 20;
+
+    private static final int MAX = 24;
+
+    private static final int MACHINE_ID = 28;
+
+    private static final int NAME = 32;
+
+    private static final int EXTRA = 40;
+
+    /**
+     * Bytes per slot of the ID index: the ID and the row plus one, with 0 marking a free slot.
+     */
+    private static final int INDEX_SLOT_BYTES = 8;
+
+    private static final int INITIAL_INDEX_SLOTS = 1024;
+
+    /**
+     * The arena is compacted once its garbage exceeds both its live bytes and this many bytes.
+     */
+    private static final long MIN_ARENA_GARBAGE = 4 << 20;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    private OffHeapArena arena = new OffHeapArena();
+
+    private ByteBuffer index = allocateIndex(INITIAL_INDEX_SLOTS);
+
+    private int indexSlots = INITIAL_INDEX_SLOTS;
+
+    /**
+     * Number of rows ever used, live or free.
+     */
+    private int rowCount;
+
+    /**
+     * First row of the chain of freed rows, or -1.
+     */
+    private int freeRow = -1;
+
+    private int size;
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized boolean contains(int id) {
+        return rowOf(id) >= 0;
+    }
+
+    @Override
+    public synchronized void put(int id, byte kind, String name, double price, int stock, int min, int max) {
+        int row = rowOf(id);
+        if (row < 0) {
+            row = newRow();
+            indexRow(id, row);
+            size++;
+        } else {
+            releaseRow(row);
+        }
+        ByteBuffer segment = segment(row);
+        int at = offset(row);
+        segment.putInt(at + ID, id);
+        segment.put(at + KIND, kind);
+        segment.put(at + COMPONENT_LAYOUT, PART_IDS);
+        segment.putDouble(at + PRICE, price);
+        segment.putInt(at + STOCK, stock);
+        segment.putInt(at + MIN, min);
+        segment.putInt(at + MAX, max);
+        segment.putInt(at + MACHINE_ID, 0);
+        segment.putLong(at + NAME, arena.putString(name));
+        segment.putLong(at + EXTRA, OffHeapArena.NULL_REF);
+    }
+
+    @Override
+    public synchronized boolean remove(int id) {
+        int row = unindexRow(id);
+        if (row < 0) {
+            return false;
+        }
+        releaseRow(row);
+        ByteBuffer segment = segment(row);
+        int at = offset(row);
+        segment.put(at + KIND, (byte) 0);
+        segment.putInt(at + STOCK, freeRow);
+        freeRow = row;
+        size--;
+        compactArenaIfWorthwhile();
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        segments.clear();
+        arena = new OffHeapArena();
+        index = allocateIndex(INITIAL_INDEX_SLOTS);
+        indexSlots = INITIAL_INDEX_SLOTS;
+        rowCount = 0;
+        freeRow = -1;
+        size = 0;
+    }
+
+    @Override
+    public synchronized boolean forEachIdWhile(IntPredicate action) {
+        for (int row = 0; row < rowCount; row++) {
+            ByteBuffer segment = segment(row);
+            int at = offset(row);
+            if (segment.get(at + KIND) != 0 && !action.test(segment.getInt(at + ID))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ASCII names are matched on their bytes in the arena; only names with other characters are decoded.
+     */
+    @Override
+    public synchronized boolean forEachMatchWhile(String query, IntPredicate action) {
+        byte[] asciiQuery = OffHeapArena.toAscii(query);
+        for (int row = 0; row < rowCount; row++) {
+            SubstringIndex.checkCancelled();
+            ByteBuffer segment = segment(row);
+            int at = offset(row);
+            if (segment.get(at + KIND) == 0) {
+                continue;
+            }
+            int id = segment.getInt(at + ID);
+            long name = segment.getLong(at + NAME);
+            int match = asciiQuery == null ? -1 : arena.containsAsciiIgnoreCase(name, asciiQuery);
+            boolean matches = match < 0
+                    ? SubstringIndex.normalize(arena.getString(name)).contains(query)
+                    : match > 0;
+            if ((matches || SubstringIndex.idContains(id, query)) && !action.test(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized byte getKind(int id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : segment(row).get(offset(row) + KIND);
+    }
+
+    @Override
+    public synchronized String getName(int id) {
+        int row = rowOf(id);
+        return row < 0 ? null : arena.getString(segment(row).getLong(offset(row) + NAME));
+    }
+
+    @Override
+    public synchronized void setName(int id, String name) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            replaceRef(row, NAME, arena.putString(name));
+        }
+    }
+
+    @Override
+    public synchronized double getPrice(int id) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : segment(row).getDouble(offset(row) + PRICE);
+    }
+
+    @Override
+    public synchronized void setPrice(int id, double price) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            segment(row).putDouble(offset(row) + PRICE, price);
+        }
+    }
+
+    @Override
+    public synchronized int getStock(int id) {
+        return getInt(id, STOCK);
+    }
+
+    @Override
+    public synchronized void setStock(int id, int stock) {
+        setInt(id, STOCK, stock);
+    }
+
+    @Override
+    public synchronized int getMin(int id) {
+        return getInt(id, MIN);
+    }
+
+    @Override
+    public synchronized void setMin(int id, int min) {
+        setInt(id, MIN, min);
+    }
+
+    @Override
+    public synchronized int getMax(int id) {
+        return getInt(id, MAX);
+    }
+
+    @Override
+    public synchronized void setMax(int id, int max) {
+        setInt(id, MAX, max);
+    }
+
+    @Override
+    public synchronized int getMachineId(int id) {
+        return getKind(id) == RecordCodec.IN_HOUSE ? getInt(id, MACHINE_ID) : 0;
+    }
+
+    @Override
+    public synchronized void setMachineId(int id, int machineId) {
+        if (getKind(id) == RecordCodec.IN_HOUSE) {
+            setInt(id, MACHINE_ID, machineId);
+        }
+    }
+
+    @Override
+    public synchronized String getCompanyName(int id) {
+        int row = rowOf(id);
+        if (row < 0 || segment(row).get(offset(row) + KIND) != RecordCodec.OUT_SOURCED) {
+            return null;
+        }
+        return arena.getString(segment(row).getLong(offset(row) + EXTRA));
+    }
+
+    @Override
+    public synchronized void setCompanyName(int id, String companyName) {
+        int row = rowOf(id);
+        if (row >= 0 && segment(row).get(offset(row) + KIND) == RecordCodec.OUT_SOURCED) {
+            replaceRef(row, EXTRA, arena.putString(companyName));
+        }
+    }
+
+    @Override
+    public synchronized int[] getPartIds(int id) {
+        return componentsOf(id)[0];
+    }
+
+    @Override
+    public synchronized int[] getPartQuantities(int id) {
+        return componentsOf(id)[1];
+    }
+
+    @Override
+    public synchronized void setPartIds(int id, int[] partIds, int[] quantities) {
+        int[][] components = componentsOf(id);
+        writeComponents(rowOf(id), partIds, quantities, components[2], components[3]);
+    }
+
+    @Override
+    public synchronized int[] getSubAssemblyIds(int id) {
+        return componentsOf(id)[2];
+    }
+
+    @Override
+    public synchronized int[] getSubAssemblyQuantities(int id) {
+        return componentsOf(id)[3];
+    }
+
+    @Override
+    public synchronized void setSubAssemblies(int id, int[] productIds, int[] quantities) {
+        int[][] components = componentsOf(id);
+        writeComponents(rowOf(id), components[0], components[1], productIds, quantities);
+    }
+
+    @Override
+    public synchronized long getMemoryFootprint() {
+        return (long) segments.size() * SEGMENT_ROWS * RECORD_BYTES
+                + (long) indexSlots * INDEX_SLOT_BYTES
+                + arena.getCapacity();
+    }
+
+    private int getInt(int id, int field) {
+        int row = rowOf(id);
+        return row < 0 ? 0 : segment(row).getInt(offset(row) + field);
+    }
+
+    private void setInt(int id, int field, int value) {
+        int row = rowOf(id);
+        if (row >= 0) {
+            segment(row).putInt(offset(row) + field, value);
+        }
+    }
+
+    /**
+     * Read the component list of a product in the layout its row records.
+     *
+     * @return The part IDs, the part quantities or null, the sub-assembly IDs and the sub-assembly quantities,
+     * all empty if the record is not a product.
+     */
+    private int[][] componentsOf(int id) {
+        int row = rowOf(id);
+        int[] none = arena.getInts(OffHeapArena.NULL_REF);
+        if (row < 0 || segment(row).get(offset(row) + KIND) != PRODUCT) {
+            return new int[][]{none, null, none, none};
+        }
+        ByteBuffer segment = segment(row);
+        int at = offset(row);
+        int[] values = arena.getInts(segment.getLong(at + EXTRA));
+        switch (segment.get(at + COMPONENT_LAYOUT)) {
+            case PART_QUANTITIES: {
+                int count = values.length / 2;
+                return new int[][]{Arrays.copyOf(values, count), Arrays.copyOfRange(values, count, values.length),
+                        none, none};
+            }
+            case SUB_ASSEMBLIES: {
+                int partCount = values[0];
+                int subAssemblyStart = 2 + partCount * 2;
+                int subAssemblyCount = values[subAssemblyStart - 1];
+                int[] partQuantities = Arrays.copyOfRange(values, 1 + partCount, 1 + partCount * 2);
+                return new int[][]{
+                        Arrays.copyOfRange(values, 1, 1 + partCount),
+                        RecordCodec.allOnes(partQuantities) ? null : partQuantities,
+                        Arrays.copyOfRange(values, subAssemblyStart, subAssemblyStart + subAssemblyCount),
+                        Arrays.copyOfRange(values, subAssemblyStart + subAssemblyCount,
+                                subAssemblyStart + subAssemblyCount * 2)};
+            }
+            default:
+                return new int[][]{values, null, none, none};
+        }
+    }
+
+    /**
+     * Store the component list of a product in the shortest layout that holds it.
+     */
+    private void writeComponents(int row, int[] partIds, int[] partQuantities, int[] subAssemblyIds,
+                                 int[] subAssemblyQuantities) {
+        if (row < 0 || segment(row).get(offset(row) + KIND) != PRODUCT) {
+            return;
+        }
+        if (partQuantities != null && RecordCodec.allOnes(partQuantities)) {
+            partQuantities = null;
+        }
+        byte layout;
+        int[] values;
+        if (subAssemblyIds.length > 0) {
+            layout = SUB_ASSEMBLIES;
+            values = new int[2 + partIds.length * 2 + subAssemblyIds.length * 2];
+            values[0] = partIds.length;
+            System.arraycopy(partIds, 0, values, 1, partIds.length);
+            if (partQuantities == null) {
+                Arrays.fill(values, 1 + partIds.length, 1 + partIds.length * 2, 1);
+            } else {
+                System.arraycopy(partQuantities, 0, values, 1 + partIds.length, partIds.length);
+            }
+            int subAssemblyStart = 2 + partIds.length * 2;
+            values[subAssemblyStart - 1] = subAssemblyIds.length;
+            System.arraycopy(subAssemblyIds, 0, values, subAssemblyStart, subAssemblyIds.length);
+            System.arraycopy(subAssemblyQuantities, 0, values, subAssemblyStart + subAssemblyIds.length,
+                    subAssemblyIds.length);
+        } else if (partQuantities != null && partIds.length > 0) {
+            layout = PART_QUANTITIES;
+            values = Arrays.copyOf(partIds, partIds.length * 2);
+            System.arraycopy(partQuantities, 0, values, partIds.length, partIds.length);
+        } else {
+            layout = PART_IDS;
+            values = partIds;
+        }
+        segment(row).put(offset(row) + COMPONENT_LAYOUT, layout);
+        replaceRef(row, EXTRA, arena.putInts(values));
+    }
+
+    /**
+     * Point a reference field of a row at a new arena value, freeing the old one.
+     */
+    private void replaceRef(int row, int field, long ref) {
+        ByteBuffer segment = segment(row);
+        int at = offset(row);
+        arena.free(segment.getLong(at + field));
+        segment.putLong(at + field, ref);
+        compactArenaIfWorthwhile();
+    }
+
+    /**
+     * Free the arena values a row refers to, before it is overwritten or freed.
+     */
+    private void releaseRow(int row) {
+        ByteBuffer segment = segment(row);
+        int at = offset(row);
+        arena.free(segment.getLong(at + NAME));
+        arena.free(segment.getLong(at + EXTRA));
+        segment.putLong(at + NAME, OffHeapArena.NULL_REF);
+        segment.putLong(at + EXTRA, OffHeapArena.NULL_REF);
+    }
+
+    /**
+     * Copy the values of the live rows into a new arena once most of the old one is garbage.
+     */
+    private void compactArenaIfWorthwhile() {
+        long garbage = arena.getGarbage();
+        if (garbage < MIN_ARENA_GARBAGE || garbage < arena.getAllocated() - garbage) {
+            return;
+        }
+        OffHeapArena compacted = new OffHeapArena();
+        for (int row = 0; row < rowCount; row++) {
+            ByteBuffer segment = segment(row);
+            int at = offset(row);
+            if (segment.get(at + KIND) != 0) {
+                segment.putLong(at + NAME, arena.copyTo(segment.getLong(at + NAME), compacted));
+                segment.putLong(at + EXTRA, arena.copyTo(segment.getLong(at + EXTRA), compacted));
+            }
+        }
+        arena = compacted;
+    }
+
+    private int newRow() {
+        if (freeRow >= 0) {
+            int row = freeRow;
+            freeRow = segment(row).getInt(offset(row) + STOCK);
+            return row;
+        }
+        if (rowCount == segments.size() * SEGMENT_ROWS) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_ROWS * RECORD_BYTES).order(ByteOrder.nativeOrder()));
+        }
+        return rowCount++;
+    }
+
+    private ByteBuffer segment(int row) {
+        return segments.get(row >>> SEGMENT_SHIFT);
+    }
+
+    private static int offset(int row) {
+        return (row & (SEGMENT_ROWS - 1)) * RECORD_BYTES;
+    }
+
+    /**
+     * Find the row of an ID in the index.
+     *
+     * @return The row, or -1 if the ID is not in the table.
+     */
+    private int rowOf(int id) {
+        int mask = indexSlots - 1;
+        int slot = IntObjectMap.mix(id) & mask;
+        while (true) {
+            int at = slot * INDEX_SLOT_BYTES;
+            int rowPlusOne = index.getInt(at + Integer.BYTES);
+            if (rowPlusOne == 0) {
+                return -1;
+            }
+            if (index.getInt(at) == id) {
+                return rowPlusOne - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Add an ID that is not in the index yet.
+     */
+    private void indexRow(int id, int row) {
+        if ((size + 1) * 2 > indexSlots) {
+            resizeIndex(indexSlots * 2);
+        }
+        int mask = indexSlots - 1;
+        int slot = IntObjectMap.mix(id) & mask;
+        while (index.getInt(slot * INDEX_SLOT_BYTES + Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slot * INDEX_SLOT_BYTES, id);
+        index.putInt(slot * INDEX_SLOT_BYTES + Integer.BYTES, row + 1);
+    }
+
+    /**
+     * Remove an ID from the index, shifting entries back so that no probe sequence is broken.
+     *
+     * @return The row the ID had, or -1 if it was not in the table.
+     */
+    private int unindexRow(int id) {
+        int mask = indexSlots - 1;
+        int gap = IntObjectMap.mix(id) & mask;
+        int rowPlusOne;
+        while ((rowPlusOne = index.getInt(gap * INDEX_SLOT_BYTES + Integer.BYTES)) != 0
+                && index.getInt(gap * INDEX_SLOT_BYTES) != id) {
+            gap = (gap + 1) & mask;
+        }
+        if (rowPlusOne == 0) {
+            return -1;
+        }
+        int row = rowPlusOne - 1;
+        index.putInt(gap * INDEX_SLOT_BYTES + Integer.BYTES, 0);
+        int slot = (gap + 1) & mask;
+        while (index.getInt(slot * INDEX_SLOT_BYTES + Integer.BYTES) != 0) {
+            int home = IntObjectMap.mix(index.getInt(slot * INDEX_SLOT_BYTES)) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                index.putLong(gap * INDEX_SLOT_BYTES, index.getLong(slot * INDEX_SLOT_BYTES));
+                index.putInt(slot * INDEX_SLOT_BYTES + Integer.BYTES, 0);
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return row;
+    }
+
+    private void resizeIndex(int slots) {
+        ByteBuffer old = index;
+        int oldSlots = indexSlots;
+        index = allocateIndex(slots);
+        indexSlots = slots;
+        int mask = slots - 1;
+        for (int i = 0; i < oldSlots; i++) {
+            int rowPlusOne = old.getInt(i * INDEX_SLOT_BYTES + Integer.BYTES);
+            if (rowPlusOne != 0) {
+                int id = old.getInt(i * INDEX_SLOT_BYTES);
+                int slot = IntObjectMap.mix(id) & mask;
+                while (index.getInt(slot * INDEX_SLOT_BYTES + Integer.BYTES) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index.putInt(slot * INDEX_SLOT_BYTES, id);
+                index.putInt(slot * INDEX_SLOT_BYTES + Integer.BYTES, rowPlusOne);
+            }
+        }
+    }
+
+    private static ByteBuffer allocateIndex(int slots) {
+        return ByteBuffer.allocateDirect(slots * INDEX_SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+}
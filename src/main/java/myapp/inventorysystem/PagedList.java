@@ -0,0 +1,272 @@
+package myapp.inventorysystem;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only ObservableList that a table binds to once, showing either a whole inventory list or the records
+ * with a list of IDs, such as search results or a sort order.
+ * <p>
+ * Records are fetched a page at a time, only when the table asks for a row, and a few pages are cached, so the
+ * list holds the records of the rows around the viewport rather than the whole catalog. A fetched page reads
+ * the page after it ahead, or the page before it when scrolling up. An ID list costs four bytes per row; a
+ * followed list is read through by position and its changes are passed on as they are.
+ * <p>
+ * Replacing the contents reports the records that were shown as nulls, so that it never fetches them again
+ * just to tell the observers. Must only be used on the JavaFX application thread.
+ *
+ * @param <T> The type of the records.
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Number of rows fetched together.
+     */
+    public static final int PAGE_SIZE = 64;
+
+    /**
+     * Number of pages kept, which covers the viewport of a tall table and the pages read ahead.
+     */
+    public static final int CACHED_PAGES = 8;
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final Class<T> type;
+
+    private final IntFunction<? extends T> lookup;
+
+    private final ToIntFunction<? super T> idOf;
+
+    private final ListChangeListener<T> followListener = this::followedChanged;
+
+    /**
+     * The list shown, or null while an ID list is shown.
+     */
+    private ObservableList<T> followed;
+
+    private int[] ids = NO_IDS;
+
+    /**
+     * Cached pages by page number, least recently used first.
+     */
+    private final Map<Integer, Object[]> pages = new LinkedHashMap<>(CACHED_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    /**
+     * The page fetched last, which tells the direction of scrolling.
+     */
+    private int lastPage = -1;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param type   The type of the records.
+     * @param lookup Looks up a record by ID, returning null if there is none.
+     * @param idOf   Extracts the ID of a record.
+     */
+    public PagedList(Class<T> type, IntFunction<? extends T> lookup, ToIntFunction<? super T> idOf) {
+        this.type = type;
+        this.lookup = lookup;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Creates an empty list of parts of the Inventory.
+     *
+     * @return The list.
+     */
+    public static PagedList<Part> parts() {
+        return new PagedList<>(Part.class, Inventory::lookupPart, Part::getId);
+    }
+
+    /**
+     * Creates an empty list of products of the Inventory.
+     *
+     * @return The list.
+     */
+    public static PagedList<Product> products() {
+        return new PagedList<>(Product.class, Inventory::lookupProduct, Product::getId);
+    }
+
+    /**
+     * Show a whole list in its own order, following its changes. Nothing happens if the list is already shown.
+     *
+     * @param list The list to show.
+     */
+    public void follow(ObservableList<T> list) {
+        if (followed == list) {
+            return;
+        }
+        int previousSize = size();
+        stopFollowing();
+        followed = list;
+        ids = NO_IDS;
+        list.addListener(followListener);
+        replaced(previousSize);
+    }
+
+    /**
+     * Show the records with the given IDs, in the given order. A record deleted later shows as an empty row,
+     * so the IDs should be listed again when the inventory changes.
+     *
+     * @param ids The IDs of the records. The list keeps the array, which must not be changed afterwards.
+     */
+    public void setIds(int[] ids) {
+        int previousSize = size();
+        stopFollowing();
+        this.ids = Objects.requireNonNull(ids);
+        replaced(previousSize);
+    }
+
+    /**
+     * Fetch every row again, for records that changed without the list being told. Only the rows fetched so
+     * far are reported, and as updated rather than replaced, so a table keeps its selection and scroll position.
+     */
+    public void refresh() {
+        Integer[] cached = pages.keySet().toArray(new Integer[0]);
+        pages.clear();
+        lastPage = -1;
+        if (cached.length == 0) {
+            return;
+        }
+        Arrays.sort(cached);
+        beginChange();
+        for (int page : cached) {
+            int to = Math.min(size(), (page + 1) * PAGE_SIZE);
+            for (int index = page * PAGE_SIZE; index < to; index++) {
+                nextUpdate(index);
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Check whether the list shows a whole list rather than a list of IDs.
+     *
+     * @return True if a list is followed, false otherwise.
+     */
+    public boolean isFollowing() {
+        return followed != null;
+    }
+
+    @Override
+    public int size() {
+        return followed != null ? followed.size() : ids.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        int page = index / PAGE_SIZE;
+        Object[] records = pages.get(page);
+        if (records == null) {
+            records = fetch(page);
+            int ahead = page < lastPage ? page - 1 : page + 1;
+            if (ahead >= 0 && ahead * PAGE_SIZE < size() && !pages.containsKey(ahead)) {
+                fetch(ahead);
+            }
+        }
+        lastPage = page;
+        return (T) records[index - page * PAGE_SIZE];
+    }
+
+    /**
+     * Find a record by its ID, without fetching the records in front of it.
+     */
+    @Override
+    public int indexOf(Object record) {
+        if (followed != null) {
+            return followed.indexOf(record);
+        }
+        if (!type.isInstance(record)) {
+            return -1;
+        }
+        int id = idOf.applyAsInt(type.cast(record));
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object record) {
+        return indexOf(record);
+    }
+
+    @Override
+    public boolean contains(Object record) {
+        return indexOf(record) >= 0;
+    }
+
+    private Object[] fetch(int page) {
+        int from = page * PAGE_SIZE;
+        Object[] records = new Object[Math.min(PAGE_SIZE, size() - from)];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = followed != null ? followed.get(from + i) : lookup.apply(ids[from + i]);
+        }
+        pages.put(page, records);
+        return records;
+    }
+
+    private void stopFollowing() {
+        if (followed != null) {
+            followed.removeListener(followListener);
+            followed = null;
+        }
+    }
+
+    /**
+     * Drop the cached pages and tell the observers that every row was replaced.
+     */
+    private void replaced(int previousSize) {
+        pages.clear();
+        lastPage = -1;
+        beginChange();
+        nextReplace(0, size(), Collections.nCopies(previousSize, null));
+        endChange();
+    }
+
+    /**
+     * Pass a change of the followed list on to the observers.
+     */
+    private void followedChanged(ListChangeListener.Change<? extends T> change) {
+        pages.clear();
+        beginChange();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                int[] permutation = new int[change.getTo() - change.getFrom()];
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    permutation[i - change.getFrom()] = change.getPermutation(i);
+                }
+                nextPermutation(change.getFrom(), change.getTo(), permutation);
+            } else if (change.wasUpdated()) {
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    nextUpdate(i);
+                }
+            } else if (change.wasReplaced()) {
+                nextReplace(change.getFrom(), change.getTo(), change.getRemoved());
+            } else if (change.wasRemoved()) {
+                nextRemove(change.getFrom(), change.getRemoved());
+            } else if (change.wasAdded()) {
+                nextAdd(change.getFrom(), change.getTo());
+            }
+        }
+        endChange();
+    }
+}
@@ -4,11 +4,14 @@ package myapp.inventorysystem;
  *
  * @author Jamail Shabazz
  */
-public abstract class Part {
+public abstract class Part implements Stocked {
     private int id;
     private String name;
     private double price;
-    private int stock;
+    /**
+     * Volatile because the ledgers move stock on other threads while the application thread shows it.
+     */
+    private volatile int stock;
     private int min;
     private int max;
     public Part(int id, String name, double price, int stock, int min, int max) {
@@ -0,0 +1,132 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * The distinct parts of a product with the total quantity of each, as kept by the part usage and assembly
+ * indexes. Adding one more associated part takes constant time on average, so a product that gains its
+ * parts one by one is indexed in time linear in their number. Positions are looked up by scanning while
+ * there are few parts, and through a hash map once there are more.
+ * <p>
+ * Not thread-safe; the indexes guard it with their own locks.
+ */
+public class PartQuantities {
+
+    /**
+     * Number of parts above which positions are looked up through slots rather than by scanning.
+     */
+    private static final int SCAN_LIMIT = 8;
+
+    private int[] partIds;
+
+    private int[] quantities;
+
+    private int size;
+
+    /**
+     * Position of each part ID, or null while there are at most SCAN_LIMIT parts.
+     */
+    private IntIntMap slots;
+
+    /**
+     * Creates the part quantities of a product, merging repeated parts and adding up their quantities.
+     *
+     * @param associatedPartIds        The associated part IDs, in order. A part may appear more than once.
+     * @param associatedPartQuantities The quantity of each associated part.
+     * @throws ArithmeticException If a total does not fit in an int.
+     */
+    public PartQuantities(int[] associatedPartIds, int[] associatedPartQuantities) {
+        partIds = new int[associatedPartIds.length];
+        quantities = new int[associatedPartIds.length];
+        for (int i = 0; i < associatedPartIds.length; i++) {
+            add(associatedPartIds[i], associatedPartQuantities[i]);
+        }
+        if (size < partIds.length) {
+            partIds = Arrays.copyOf(partIds, size);
+            quantities = Arrays.copyOf(quantities, size);
+        }
+    }
+
+    /**
+     * Add units of a part, as when the part is associated with the product once more.
+     *
+     * @param partId   The ID of the part.
+     * @param quantity The quantity added.
+     * @throws ArithmeticException If the total does not fit in an int.
+     */
+    public void add(int partId, int quantity) {
+        int index = indexOf(partId);
+        if (index >= 0) {
+            quantities[index] = Math.addExact(quantities[index], quantity);
+            return;
+        }
+        if (size == partIds.length) {
+            int capacity = Math.max(4, size * 2);
+            partIds = Arrays.copyOf(partIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        partIds[size] = partId;
+        quantities[size] = quantity;
+        if (slots != null) {
+            slots.put(partId, size);
+        } else if (size == SCAN_LIMIT) {
+            slots = new IntIntMap(size * 2);
+            for (int i = 0; i <= size; i++) {
+                slots.put(partIds[i], i);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Get the number of distinct parts.
+     *
+     * @return The number of parts.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the ID of the part at a position.
+     *
+     * @param index The position, from 0 to size() - 1.
+     * @return The part ID.
+     */
+    public int partIdAt(int index) {
+        return partIds[index];
+    }
+
+    /**
+     * Get the total quantity of the part at a position.
+     *
+     * @param index The position, from 0 to size() - 1.
+     * @return The total quantity.
+     */
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Get the total quantity of a part.
+     *
+     * @param partId The ID of the part.
+     * @return The total quantity, or 0 if the product does not use the part.
+     */
+    public int quantityOf(int partId) {
+        int index = indexOf(partId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    private int indexOf(int partId) {
+        if (slots != null) {
+            return slots.get(partId, -1);
+        }
+        for (int i = 0; i < size; i++) {
+            if (partIds[i] == partId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
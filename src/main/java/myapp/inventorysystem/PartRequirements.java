@@ -0,0 +1,89 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * The total quantity of each leaf part needed to build one unit of a product, counting the parts of its
+ * sub-assemblies as many times as the sub-assemblies are used. Produced by Inventory.explodeProduct and
+ * never changed afterwards, so one instance can be shared by every caller.
+ */
+public class PartRequirements {
+
+    /**
+     * Requirements of a product with no parts and no sub-assemblies.
+     */
+    static final PartRequirements NONE = new PartRequirements(new int[0], new long[0]);
+
+    private final int[] partIds;
+
+    private final long[] quantities;
+
+    /**
+     * Creates requirements.
+     *
+     * @param partIds    The IDs of the parts, in ascending order.
+     * @param quantities The quantity of each part, in the order of the IDs.
+     */
+    PartRequirements(int[] partIds, long[] quantities) {
+        this.partIds = partIds;
+        this.quantities = quantities;
+    }
+
+    /**
+     * Get the quantity of a part needed.
+     *
+     * @param partId The ID of the part.
+     * @return The quantity, or 0 if the part is not needed.
+     */
+    public long getQuantity(int partId) {
+        int index = Arrays.binarySearch(partIds, partId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    /**
+     * Get the IDs of the parts needed.
+     *
+     * @return A copy of the part IDs, in ascending order.
+     */
+    public int[] getPartIds() {
+        return partIds.clone();
+    }
+
+    /**
+     * Get the quantity of each part needed.
+     *
+     * @return A copy of the quantities, in the order of getPartIds.
+     */
+    public long[] getQuantities() {
+        return quantities.clone();
+    }
+
+    /**
+     * Get the number of distinct parts needed.
+     *
+     * @return The number of parts.
+     */
+    public int size() {
+        return partIds.length;
+    }
+
+    /**
+     * Get the part ID at a position, for iterating without copying.
+     *
+     * @param index The position, from 0 to size() - 1.
+     * @return The part ID.
+     */
+    int partIdAt(int index) {
+        return partIds[index];
+    }
+
+    /**
+     * Get the quantity at a position, for iterating without copying.
+     *
+     * @param index The position, from 0 to size() - 1.
+     * @return The quantity.
+     */
+    long quantityAt(int index) {
+        return quantities[index];
+    }
+}
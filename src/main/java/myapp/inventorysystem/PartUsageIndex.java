@@ -0,0 +1,284 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reverse index from part ID to the IDs of the products that use the part, so that "which products
+ * contain this part" is a single lookup instead of a scan over every product's associated parts.
+ * <p>
+ * The index holds the part IDs and quantities each product was last indexed under, so that re-indexing
+ * a product only touches its own entries, and so that buildability can be worked out from the index alone.
+ * It is thread-safe, guarded by a read/write lock like RecordStore.
+ */
+public class PartUsageIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Number of parts below which a buildability task works through its parts instead of splitting them.
+     */
+    private static final int BUILDABILITY_TASK_PARTS = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * From part ID to the IDs of the products using it.
+     */
+    private final IntObjectMap<IntHashSet> productsByPart = new IntObjectMap<>();
+
+    /**
+     * From product ID to its distinct associated parts.
+     */
+    private final IntObjectMap<PartQuantities> partsByProduct = new IntObjectMap<>();
+
+    /**
+     * Index a product under the IDs of its associated parts, replacing whatever was indexed for it before.
+     *
+     * @param product The product.
+     */
+    public void put(Product product) {
+        PartQuantities usedParts = new PartQuantities(product.getAssociatedPartIds(),
+                product.getAssociatedPartQuantities());
+        lock.writeLock().lock();
+        try {
+            unindex(product.getId());
+            if (usedParts.size() == 0) {
+                return;
+            }
+            partsByProduct.put(product.getId(), usedParts);
+            for (int i = 0; i < usedParts.size(); i++) {
+                addUser(usedParts.partIdAt(i), product.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index one more associated part of a product, leaving its other entries alone.
+     *
+     * @param productId The ID of the product.
+     * @param partId    The ID of the associated part.
+     * @param quantity  The quantity of the associated part.
+     */
+    public void add(int productId, int partId, int quantity) {
+        lock.writeLock().lock();
+        try {
+            PartQuantities usedParts = partsByProduct.get(productId);
+            if (usedParts == null) {
+                partsByProduct.put(productId, new PartQuantities(new int[]{partId}, new int[]{quantity}));
+            } else {
+                usedParts.add(partId, quantity);
+            }
+            addUser(partId, productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param productId The ID of the product.
+     */
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of the products that use a part.
+     *
+     * @param partId The ID of the part.
+     * @return The IDs of the products, in ascending order.
+     */
+    public int[] getProductIds(int partId) {
+        lock.readLock().lock();
+        try {
+            IntHashSet productIds = productsByPart.get(partId);
+            if (productIds == null) {
+                return NO_IDS;
+            }
+            int[] ids = productIds.toArray();
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of the products that use at least one of several parts.
+     *
+     * @param partIds The IDs of the parts.
+     * @return The IDs of the products, in ascending order.
+     */
+    public int[] getProductIds(int[] partIds) {
+        IntHashSet found = new IntHashSet();
+        lock.readLock().lock();
+        try {
+            for (int partId : partIds) {
+                IntHashSet productIds = productsByPart.get(partId);
+                if (productIds != null) {
+                    productIds.forEach(found::add);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        int[] ids = found.toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Check whether any product uses a part.
+     *
+     * @param partId The ID of the part.
+     * @return True if at least one product uses the part, false otherwise.
+     */
+    public boolean isUsed(int partId) {
+        lock.readLock().lock();
+        try {
+            return productsByPart.containsKey(partId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Work out how many units of each indexed product the stock of its parts allows building: for every
+     * associated part, its stock divided by the quantity the product needs, rounded down, and the least of
+     * these over the product's parts.
+     * <p>
+     * The products are not visited one by one. The parts in the index are split among fork/join tasks, and
+     * each part's stock is read once and applied to every product using it, so the cost is one pass over
+     * the part-to-product index however the parts are shared.
+     *
+     * @param stockOf Gives the stock of a part from its ID, or 0 if the part does not exist. Called from
+     *                fork/join worker threads.
+     * @return The buildable quantity of every product with associated parts.
+     */
+    public BuildabilityReport getBuildability(IntUnaryOperator stockOf) {
+        lock.readLock().lock();
+        try {
+            int[] productIds = partsByProduct.keys();
+            Arrays.sort(productIds);
+            AtomicIntegerArray buildable = new AtomicIntegerArray(productIds.length);
+            for (int i = 0; i < productIds.length; i++) {
+                buildable.set(i, Integer.MAX_VALUE);
+            }
+            int[] partIds = productsByPart.keys();
+            // Workers only read the maps, which no writer can change while this thread holds the read lock.
+            ForkJoinPool.commonPool().invoke(new BuildabilityTask(partIds, 0, partIds.length, productIds, buildable, stockOf));
+            int[] quantities = new int[productIds.length];
+            for (int i = 0; i < quantities.length; i++) {
+                quantities[i] = buildable.get(i);
+            }
+            return new BuildabilityReport(productIds, quantities);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every product from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            productsByPart.clear();
+            partsByProduct.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the entries of a product. Callers must hold the write lock.
+     */
+    private void unindex(int productId) {
+        PartQuantities usedParts = partsByProduct.remove(productId);
+        if (usedParts == null) {
+            return;
+        }
+        for (int i = 0; i < usedParts.size(); i++) {
+            int partId = usedParts.partIdAt(i);
+            IntHashSet productIds = productsByPart.get(partId);
+            if (productIds != null && productIds.remove(productId) && productIds.isEmpty()) {
+                productsByPart.remove(partId);
+            }
+        }
+    }
+
+    /**
+     * Add a product to the users of a part. Callers must hold the write lock.
+     */
+    private void addUser(int partId, int productId) {
+        IntHashSet productIds = productsByPart.get(partId);
+        if (productIds == null) {
+            productIds = new IntHashSet();
+            productsByPart.put(partId, productIds);
+        }
+        productIds.add(productId);
+    }
+
+    /**
+     * Applies the stock of a range of parts to the products using them, lowering the buildable quantity
+     * of each product to what the part allows.
+     */
+    private final class BuildabilityTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] partIds;
+
+        private final int from;
+
+        private final int to;
+
+        private final int[] productIds;
+
+        private final AtomicIntegerArray buildable;
+
+        private final IntUnaryOperator stockOf;
+
+        BuildabilityTask(int[] partIds, int from, int to, int[] productIds, AtomicIntegerArray buildable,
+                         IntUnaryOperator stockOf) {
+            this.partIds = partIds;
+            this.from = from;
+            this.to = to;
+            this.productIds = productIds;
+            this.buildable = buildable;
+            this.stockOf = stockOf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BUILDABILITY_TASK_PARTS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildabilityTask(partIds, from, middle, productIds, buildable, stockOf),
+                        new BuildabilityTask(partIds, middle, to, productIds, buildable, stockOf));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int partId = partIds[i];
+                int stock = Math.max(0, stockOf.applyAsInt(partId));
+                productsByPart.get(partId).forEach(productId -> {
+                    int units = stock / partsByProduct.get(productId).quantityOf(partId);
+                    buildable.accumulateAndGet(Arrays.binarySearch(productIds, productId), units, Math::min);
+                });
+            }
+        }
+    }
+}
@@ -1,20 +1,75 @@
 package myapp.inventorysystem;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
 /**
  * This class represents a product in the inventory system.
+ * <p>
+ * The associated parts are kept as an array of part IDs, with an optional quantity for each, and are
+ * resolved through the inventory when they are read. The observable list returned by getAllAssociatedParts
+ * is only created the first time it is asked for, typically by a table of associated parts; from then on
+ * it and the IDs change together. Parts that are not in the inventory are left out of the list but keep
+ * their place among the IDs, and show up in the list again once a part with that ID is added.
+ * <p>
+ * A product can also contain other products as sub-assemblies, kept the same way as product IDs and
+ * quantities. Inventory.explodeProduct flattens the whole tree into leaf parts.
  */
-public class Product {
+public class Product implements Stocked {
 
     private int id;
     private String name;
     private double price;
-    private int stock;
+    /**
+     * Volatile because the ledgers move stock on other threads while the application thread shows it.
+     */
+    private volatile int stock;
     private int min;
     private int max;
-    private final ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+
+    private static final int[] NO_PART_IDS = new int[0];
+
+    /**
+     * IDs of the associated parts, in order. A part may appear more than once.
+     */
+    private int[] partIds = NO_PART_IDS;
+
+    /**
+     * Quantity of each associated part, or null while every quantity is 1.
+     */
+    private int[] quantities;
+
+    /**
+     * The associated parts, or null until getAllAssociatedParts is first called.
+     */
+    private ObservableList<Part> associatedParts;
+
+    /**
+     * Positions in partIds of the associated parts left out of associatedParts because they were not in
+     * the inventory, in ascending order.
+     */
+    private int[] hiddenSlots = NO_PART_IDS;
+
+    /**
+     * Set while the product changes associatedParts itself, so that the list listener leaves the IDs alone.
+     */
+    private boolean updatingAssociatedParts;
+
+    /**
+     * IDs of the products used as sub-assemblies, in order.
+     */
+    private int[] subAssemblyIds = NO_PART_IDS;
+
+    /**
+     * Quantity of each sub-assembly.
+     */
+    private int[] subAssemblyQuantities = NO_PART_IDS;
 
     /**
      * Constructor to create a new product.
@@ -150,39 +205,157 @@ public class Product {
      * @param part The part to be added.
      */
     public void addAssociatedPart(Part part) {
-        associatedParts.add(part);
+        addAssociatedPart(part, 1);
     }
 
     /**
-     * Delete an associated part from the product.
+     * Add an associated part to the product, with the number of units of it one unit of the product needs.
+     *
+     * @param part     The part to be added.
+     * @param quantity The quantity of the part.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     */
+    public void addAssociatedPart(Part part, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("The quantity of an associated part must be at least 1.");
+        }
+        loadAssociatedParts();
+        splice(partIds.length, 0, new int[]{part.getId()}, new int[]{quantity});
+        if (associatedParts != null) {
+            updatingAssociatedParts = true;
+            try {
+                associatedParts.add(part);
+            } finally {
+                updatingAssociatedParts = false;
+            }
+        }
+        storeAssociatedParts(partIds, quantities);
+        Inventory.associatedPartAdded(this, part, quantity);
+    }
+
+    /**
+     * Delete an associated part from the product. The first associated part with the same ID is deleted.
      *
      * @param selectedAssociatedPart The part to be deleted.
      * @return True if deletion is successful, false otherwise.
      */
     public boolean deleteAssociatedPart(Part selectedAssociatedPart) {
-        return associatedParts.remove(selectedAssociatedPart);
+        loadAssociatedParts();
+        int index = indexOfPartId(selectedAssociatedPart.getId());
+        if (index < 0) {
+            return false;
+        }
+        int listIndex = listIndexOf(index);
+        splice(index, 1, NO_PART_IDS, null);
+        if (associatedParts != null && listIndex >= 0) {
+            updatingAssociatedParts = true;
+            try {
+                associatedParts.remove(listIndex);
+            } finally {
+                updatingAssociatedParts = false;
+            }
+        }
+        storeAssociatedParts(partIds, quantities);
+        Inventory.associatedPartDeleted(this, selectedAssociatedPart);
+        return true;
+    }
+
+    /**
+     * Delete every associated part whose ID is accepted by a filter, without recording each deletion.
+     * The caller is expected to update the product in the inventory afterwards.
+     *
+     * @param partIdFilter The filter, given the ID of each associated part.
+     * @return True if any associated part was deleted, false otherwise.
+     */
+    public boolean deleteAssociatedPartsIf(IntPredicate partIdFilter) {
+        loadAssociatedParts();
+        boolean deleted = false;
+        for (int index = partIds.length - 1; index >= 0; index--) {
+            if (partIdFilter.test(partIds[index])) {
+                int listIndex = listIndexOf(index);
+                splice(index, 1, NO_PART_IDS, null);
+                if (associatedParts != null && listIndex >= 0) {
+                    updatingAssociatedParts = true;
+                    try {
+                        associatedParts.remove(listIndex);
+                    } finally {
+                        updatingAssociatedParts = false;
+                    }
+                }
+                deleted = true;
+            }
+        }
+        if (deleted) {
+            storeAssociatedParts(partIds, quantities);
+        }
+        return deleted;
     }
 
     /**
-     * Get all associated parts of the product.
+     * Get all associated parts of the product. The list is created on the first call, leaving out associated
+     * parts that are not in the inventory without deleting them; changes made to it change the associated parts.
+     * A part added to the list has a quantity of 1, unless the same change removed it, as setAll does.
      *
      * @return ObservableList of associated parts.
      */
     public ObservableList<Part> getAllAssociatedParts() {
+        loadAssociatedParts();
+        if (associatedParts == null) {
+            ObservableList<Part> parts = Inventory.lookupParts(partIds);
+            hiddenSlots = unresolvedSlots(parts);
+            parts.addListener(this::associatedPartsChanged);
+            associatedParts = parts;
+        }
         return associatedParts;
     }
 
+    /**
+     * Get the IDs of the associated parts, without looking the parts up.
+     *
+     * @return A copy of the associated part IDs, in order.
+     */
+    public int[] getAssociatedPartIds() {
+        loadAssociatedParts();
+        return partIds.clone();
+    }
+
+    /**
+     * Get the quantity of each associated part.
+     *
+     * @return The quantities, in the order of getAssociatedPartIds.
+     */
+    public int[] getAssociatedPartQuantities() {
+        loadAssociatedParts();
+        if (quantities == null) {
+            int[] ones = new int[partIds.length];
+            Arrays.fill(ones, 1);
+            return ones;
+        }
+        return quantities.clone();
+    }
+
+    /**
+     * Get the number of associated parts.
+     *
+     * @return The number of associated parts, counting a part once per time it was added.
+     */
+    public int getAssociatedPartCount() {
+        loadAssociatedParts();
+        return partIds.length;
+    }
+
     /**
      * Get names of all associated parts.
      *
      * @return ObservableList of associated part names.
      */
     public ObservableList<String> getAssociatedPartsNames() {
-        ObservableList<String> names = FXCollections.observableArrayList();
-        for (Part part : associatedParts) {
-            names.add(part.getName());
+        List<Part> parts = resolveAssociatedParts();
+        String[] names = new String[parts.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = parts.get(i).getName();
         }
-        return names;
+        return FXCollections.observableArrayList(names);
     }
 
     /**
@@ -192,8 +365,425 @@ public class Product {
      */
     @Override
     public String toString() {
-        return "Product ID: " + getId() + "\nProduct Name: " + getName() + "\nInventory Level: " + getStock() +
-                "\nPrice: " + getPrice() + "\nAssociated Parts: " + getAssociatedPartsNames().toString();
+        StringBuilder text = new StringBuilder("Product ID: ").append(getId())
+                .append("\nProduct Name: ").append(getName())
+                .append("\nInventory Level: ").append(getStock())
+                .append("\nPrice: ").append(getPrice())
+                .append("\nAssociated Parts: [");
+        List<Part> parts = resolveAssociatedParts();
+        for (int i = 0; i < parts.size(); i++) {
+            text.append(i == 0 ? "" : ", ").append(parts.get(i).getName());
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Add another product to this one as a sub-assembly, with the number of units of it one unit of this
+     * product needs.
+     *
+     * @param subAssembly The product to be added.
+     * @param quantity    The quantity of the sub-assembly.
+     * @throws IllegalArgumentException If the quantity is not positive, or if the sub-assembly is this
+     *                                  product or contains it.
+     */
+    public void addSubAssembly(Product subAssembly, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("The quantity of a sub-assembly must be at least 1.");
+        }
+        if (subAssembly.getId() == getId() || subAssembly.containsSubAssembly(getId())) {
+            throw new IllegalArgumentException("Product " + subAssembly.getId() + " contains product " + getId() + ".");
+        }
+        loadAssociatedParts();
+        int count = subAssemblyIds.length;
+        subAssemblyIds = Arrays.copyOf(subAssemblyIds, count + 1);
+        subAssemblyQuantities = Arrays.copyOf(subAssemblyQuantities, count + 1);
+        subAssemblyIds[count] = subAssembly.getId();
+        subAssemblyQuantities[count] = quantity;
+        storeSubAssemblies(subAssemblyIds, subAssemblyQuantities);
+        Inventory.subAssemblyAdded(this, subAssembly, quantity);
+    }
+
+    /**
+     * Delete a sub-assembly from the product. The first sub-assembly with the same ID is deleted.
+     *
+     * @param subAssembly The product to be deleted.
+     * @return True if deletion is successful, false otherwise.
+     */
+    public boolean deleteSubAssembly(Product subAssembly) {
+        loadAssociatedParts();
+        int index = -1;
+        for (int i = 0; i < subAssemblyIds.length && index < 0; i++) {
+            if (subAssemblyIds[i] == subAssembly.getId()) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            return false;
+        }
+        int tail = subAssemblyIds.length - index - 1;
+        int[] ids = Arrays.copyOf(subAssemblyIds, subAssemblyIds.length - 1);
+        int[] counts = Arrays.copyOf(subAssemblyQuantities, ids.length);
+        System.arraycopy(subAssemblyIds, index + 1, ids, index, tail);
+        System.arraycopy(subAssemblyQuantities, index + 1, counts, index, tail);
+        subAssemblyIds = ids;
+        subAssemblyQuantities = counts;
+        storeSubAssemblies(subAssemblyIds, subAssemblyQuantities);
+        Inventory.subAssemblyDeleted(this, subAssembly);
+        return true;
+    }
+
+    /**
+     * Check whether a product is among the sub-assemblies of this one, at any depth. The sub-assembly IDs
+     * of this product are walked directly, so the check also holds for a product not yet in the inventory;
+     * deeper levels are looked up in the inventory.
+     *
+     * @param productId The ID of the product to look for.
+     * @return True if this product contains the product, false otherwise.
+     */
+    public boolean containsSubAssembly(int productId) {
+        IntHashSet visited = new IntHashSet();
+        List<Product> stack = new ArrayList<>();
+        stack.add(this);
+        visited.add(getId());
+        while (!stack.isEmpty()) {
+            for (int subAssemblyId : stack.remove(stack.size() - 1).getSubAssemblyIds()) {
+                if (subAssemblyId == productId) {
+                    return true;
+                }
+                if (visited.add(subAssemblyId)) {
+                    Product subAssembly = Inventory.lookupProduct(subAssemblyId);
+                    if (subAssembly != null) {
+                        stack.add(subAssembly);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the IDs of the products used as sub-assemblies.
+     *
+     * @return A copy of the sub-assembly IDs, in order.
+     */
+    public int[] getSubAssemblyIds() {
+        loadAssociatedParts();
+        return subAssemblyIds.clone();
+    }
+
+    /**
+     * Get the quantity of each sub-assembly.
+     *
+     * @return The quantities, in the order of getSubAssemblyIds.
+     */
+    public int[] getSubAssemblyQuantities() {
+        loadAssociatedParts();
+        return subAssemblyQuantities.clone();
+    }
+
+    /**
+     * Replace the associated parts without recording the change, as when a product is read back.
+     *
+     * @param partIds    The associated part IDs, in order.
+     * @param quantities The quantity of each associated part, or null if every quantity is 1.
+     */
+    void setAssociatedParts(int[] partIds, int[] quantities) {
+        this.partIds = partIds;
+        this.quantities = quantities;
+        normalizeQuantities();
+        if (associatedParts != null) {
+            updatingAssociatedParts = true;
+            try {
+                associatedParts.setAll(Inventory.lookupParts(partIds));
+            } finally {
+                updatingAssociatedParts = false;
+            }
+            hiddenSlots = unresolvedSlots(associatedParts);
+        }
+    }
+
+    /**
+     * Put a part that was added to the inventory, or replaced one there, in the associated parts list in
+     * place of the part with the same ID, so that the list does not keep showing a stale part. Does nothing
+     * until the list is created. Called by Inventory.
+     *
+     * @param part The part as it is now stored.
+     */
+    void associatedPartReplaced(Part part) {
+        if (associatedParts == null) {
+            return;
+        }
+        loadAssociatedParts();
+        updatingAssociatedParts = true;
+        try {
+            for (int slot = 0; slot < partIds.length; slot++) {
+                if (partIds[slot] != part.getId()) {
+                    continue;
+                }
+                int index = listIndexOf(slot);
+                if (index < 0) {
+                    int hidden = Arrays.binarySearch(hiddenSlots, slot);
+                    int[] slots = new int[hiddenSlots.length - 1];
+                    System.arraycopy(hiddenSlots, 0, slots, 0, hidden);
+                    System.arraycopy(hiddenSlots, hidden + 1, slots, hidden, slots.length - hidden);
+                    hiddenSlots = slots;
+                    associatedParts.add(listIndexOf(slot), part);
+                } else if (associatedParts.get(index) != part) {
+                    associatedParts.set(index, part);
+                }
+            }
+        } finally {
+            updatingAssociatedParts = false;
+        }
+    }
+
+    /**
+     * Replace the sub-assemblies without recording the change, as when a product is read back.
+     *
+     * @param subAssemblyIds        The sub-assembly IDs, in order.
+     * @param subAssemblyQuantities The quantity of each sub-assembly.
+     */
+    void setSubAssemblies(int[] subAssemblyIds, int[] subAssemblyQuantities) {
+        this.subAssemblyIds = subAssemblyIds;
+        this.subAssemblyQuantities = subAssemblyQuantities;
+    }
+
+    /**
+     * Called before the associated parts or sub-assemblies are read or changed. Products kept elsewhere
+     * load them here.
+     */
+    void loadAssociatedParts() {
+    }
+
+    /**
+     * Called after the associated parts changed. Products kept elsewhere write them back here.
+     *
+     * @param partIds    The associated part IDs, in order.
+     * @param quantities The quantity of each associated part, or null if every quantity is 1.
+     */
+    void storeAssociatedParts(int[] partIds, int[] quantities) {
+    }
+
+    /**
+     * Called after the sub-assemblies changed. Products kept elsewhere write them back here.
+     *
+     * @param subAssemblyIds        The sub-assembly IDs, in order.
+     * @param subAssemblyQuantities The quantity of each sub-assembly.
+     */
+    void storeSubAssemblies(int[] subAssemblyIds, int[] subAssemblyQuantities) {
+    }
+
+    /**
+     * Get the associated parts without creating the observable list, skipping parts no longer in the inventory.
+     */
+    private List<Part> resolveAssociatedParts() {
+        loadAssociatedParts();
+        if (associatedParts != null) {
+            return associatedParts;
+        }
+        List<Part> parts = new ArrayList<>(partIds.length);
+        for (int partId : partIds) {
+            Part part = Inventory.lookupPart(partId);
+            if (part != null) {
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Bring the IDs in step with a change made to the observable list by someone else.
+     * Sub-changes are applied in order, each at the positions the previous ones left.
+     */
+    private void associatedPartsChanged(ListChangeListener.Change<? extends Part> change) {
+        if (updatingAssociatedParts) {
+            return;
+        }
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                int[] ids = partIds.clone();
+                int[] counts = quantities == null ? null : quantities.clone();
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    int from = slotOf(i);
+                    int to = slotOf(change.getPermutation(i));
+                    partIds[to] = ids[from];
+                    if (counts != null) {
+                        quantities[to] = counts[from];
+                    }
+                }
+            } else if (change.wasRemoved() || change.wasAdded()) {
+                List<? extends Part> added = change.getAddedSubList();
+                int[] addedIds = new int[added.size()];
+                for (int i = 0; i < addedIds.length; i++) {
+                    addedIds[i] = added.get(i).getId();
+                }
+                int from = change.getFrom();
+                int removed = change.getRemovedSize();
+                int[] removedSlots = new int[removed];
+                int[] removedIds = new int[removed];
+                int[] removedQuantities = quantities == null ? null : new int[removed];
+                for (int i = 0; i < removed; i++) {
+                    removedSlots[i] = slotOf(from + i);
+                    removedIds[i] = partIds[removedSlots[i]];
+                    if (removedQuantities != null) {
+                        removedQuantities[i] = quantities[removedSlots[i]];
+                    }
+                }
+                int[] kept = keptQuantities(removedIds, removedQuantities, addedIds);
+                if (hiddenSlots.length == 0) {
+                    splice(from, removed, addedIds, kept);
+                } else {
+                    // The removed parts may have hidden parts between them, which stay.
+                    for (int i = removed - 1; i >= 0; i--) {
+                        splice(removedSlots[i], 1, NO_PART_IDS, null);
+                    }
+                    splice(slotOf(from), 0, addedIds, kept);
+                }
+            }
+        }
+        normalizeQuantities();
+        storeAssociatedParts(partIds, quantities);
+    }
+
+    /**
+     * Get the quantities of parts added in place of removed ones, so that a part removed and added back in
+     * the same change, as setAll does, keeps its quantity. Other added parts get a quantity of 1.
+     */
+    private static int[] keptQuantities(int[] removedIds, int[] removedQuantities, int[] addedIds) {
+        if (removedQuantities == null || removedIds.length == 0) {
+            return null;
+        }
+        boolean[] taken = new boolean[removedIds.length];
+        int[] kept = new int[addedIds.length];
+        for (int i = 0; i < addedIds.length; i++) {
+            kept[i] = 1;
+            for (int j = 0; j < removedIds.length; j++) {
+                if (!taken[j] && removedIds[j] == addedIds[i]) {
+                    taken[j] = true;
+                    kept[i] = removedQuantities[j];
+                    break;
+                }
+            }
+        }
+        return kept;
     }
 
+    /**
+     * Replace a range of associated parts with others. The added parts are not hidden.
+     *
+     * @param addedQuantities The quantities of the added parts, or null if they are all 1.
+     */
+    private void splice(int from, int removed, int[] addedIds, int[] addedQuantities) {
+        int tail = partIds.length - from - removed;
+        int[] ids = new int[from + addedIds.length + tail];
+        System.arraycopy(partIds, 0, ids, 0, from);
+        System.arraycopy(addedIds, 0, ids, from, addedIds.length);
+        System.arraycopy(partIds, from + removed, ids, from + addedIds.length, tail);
+        if (quantities != null || addedQuantities != null) {
+            int[] counts = new int[ids.length];
+            if (quantities == null) {
+                Arrays.fill(counts, 1);
+            } else {
+                System.arraycopy(quantities, 0, counts, 0, from);
+                System.arraycopy(quantities, from + removed, counts, from + addedIds.length, tail);
+            }
+            if (addedQuantities == null) {
+                Arrays.fill(counts, from, from + addedIds.length, 1);
+            } else {
+                System.arraycopy(addedQuantities, 0, counts, from, addedIds.length);
+            }
+            quantities = counts;
+        }
+        partIds = ids;
+        normalizeQuantities();
+        if (hiddenSlots.length > 0) {
+            int[] slots = new int[hiddenSlots.length];
+            int count = 0;
+            for (int slot : hiddenSlots) {
+                if (slot < from) {
+                    slots[count++] = slot;
+                } else if (slot >= from + removed) {
+                    slots[count++] = slot + addedIds.length - removed;
+                }
+            }
+            hiddenSlots = Arrays.copyOf(slots, count);
+        }
+    }
+
+    /**
+     * Get the positions in partIds of the parts missing from a list of the parts that were resolved, in order.
+     */
+    private int[] unresolvedSlots(List<Part> resolved) {
+        if (resolved.size() == partIds.length) {
+            return NO_PART_IDS;
+        }
+        int[] slots = new int[partIds.length - resolved.size()];
+        int count = 0;
+        int kept = 0;
+        for (int i = 0; i < partIds.length; i++) {
+            if (kept < resolved.size() && partIds[i] == resolved.get(kept).getId()) {
+                kept++;
+            } else {
+                slots[count++] = i;
+            }
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Get the position in partIds of a position in the associated parts list.
+     */
+    private int slotOf(int listIndex) {
+        int slot = listIndex;
+        for (int hidden : hiddenSlots) {
+            if (hidden > slot) {
+                break;
+            }
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the position in the associated parts list of a position in partIds.
+     *
+     * @return The list position, or -1 if the part is hidden.
+     */
+    private int listIndexOf(int slot) {
+        int index = slot;
+        for (int hidden : hiddenSlots) {
+            if (hidden == slot) {
+                return -1;
+            }
+            if (hidden > slot) {
+                break;
+            }
+            index--;
+        }
+        return index;
+    }
+
+    private int indexOfPartId(int partId) {
+        for (int i = 0; i < partIds.length; i++) {
+            if (partIds[i] == partId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drop the quantities once every one of them is 1.
+     */
+    private void normalizeQuantities() {
+        if (quantities == null) {
+            return;
+        }
+        for (int quantity : quantities) {
+            if (quantity != 1) {
+                return;
+            }
+        }
+        quantities = null;
+    }
 }
\ No newline at end of file
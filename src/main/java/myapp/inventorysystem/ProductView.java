@@ -0,0 +1,122 @@
+package myapp.inventorysystem;
+
+/**
+ * Product whose fields live in a RecordTable. See RecordView.
+ * <p>
+ * The associated parts and sub-assemblies are read from the table the first time the view needs them, and
+ * every change to them is written back to the table.
+ */
+public class ProductView extends Product implements RecordView {
+
+    private final RecordTable table;
+
+    private boolean associatedPartsLoaded;
+
+    /**
+     * Creates a view of a product.
+     *
+     * @param table The table holding the product.
+     * @param id    The ID of the product.
+     */
+    public ProductView(RecordTable table, int id) {
+        super(id, null, 0, 0, 0, 0);
+        this.table = table;
+    }
+
+    @Override
+    public RecordTable getTable() {
+        return table;
+    }
+
+    /**
+     * The ID of a stored product identifies its record and cannot be changed.
+     *
+     * @param id The ID to set.
+     */
+    @Override
+    public void setId(int id) {
+        throw new UnsupportedOperationException("The ID of a stored product cannot be changed.");
+    }
+
+    @Override
+    public String getName() {
+        return table.getName(getId());
+    }
+
+    @Override
+    public void setName(String name) {
+        table.setName(getId(), name);
+    }
+
+    @Override
+    public double getPrice() {
+        return table.getPrice(getId());
+    }
+
+    @Override
+    public void setPrice(double price) {
+        table.setPrice(getId(), price);
+    }
+
+    @Override
+    public int getStock() {
+        return table.getStock(getId());
+    }
+
+    @Override
+    public void setStock(int stock) {
+        table.setStock(getId(), stock);
+    }
+
+    @Override
+    public int getMin() {
+        return table.getMin(getId());
+    }
+
+    @Override
+    public void setMin(int min) {
+        table.setMin(getId(), min);
+    }
+
+    @Override
+    public int getMax() {
+        return table.getMax(getId());
+    }
+
+    @Override
+    public void setMax(int max) {
+        table.setMax(getId(), max);
+    }
+
+    /**
+     * Read the associated parts and sub-assemblies from the table the first time they are needed.
+     */
+    @Override
+    void loadAssociatedParts() {
+        if (!associatedPartsLoaded) {
+            associatedPartsLoaded = true;
+            setAssociatedParts(table.getPartIds(getId()), table.getPartQuantities(getId()));
+            setSubAssemblies(table.getSubAssemblyIds(getId()), table.getSubAssemblyQuantities(getId()));
+        }
+    }
+
+    @Override
+    void storeAssociatedParts(int[] partIds, int[] quantities) {
+        table.setPartIds(getId(), partIds, quantities);
+    }
+
+    @Override
+    void storeSubAssemblies(int[] subAssemblyIds, int[] subAssemblyQuantities) {
+        table.setSubAssemblies(getId(), subAssemblyIds, subAssemblyQuantities);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return RecordView.sameRecord(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return getId();
+    }
+}
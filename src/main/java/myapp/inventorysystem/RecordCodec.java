@@ -0,0 +1,299 @@
+package myapp.inventorysystem;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Binary encoding of parts and products, shared by the snapshot file and the journal.
+ * Records are written into a growable ByteBuffer; numbers are big-endian and strings are a length
+ * followed by UTF-8 bytes, with a length of -1 for null.
+ * <pre>
+ * part:    type(byte) id name price(double) stock min max machineId(int) | companyName(string)
+ * product: id name price(double) stock min max partCount partId...
+ * </pre>
+ */
+public class RecordCodec {
+
+    /**
+     * Part type tag of an InHouse part.
+     */
+    public static final byte IN_HOUSE = 1;
+
+    /**
+     * Part type tag of an OutSourced part.
+     */
+    public static final byte OUT_SOURCED = 2;
+
+    /**
+     * Part count written in front of a product with sub-assemblies. See writeProduct.
+     */
+    private static final int WITH_SUB_ASSEMBLIES = Integer.MIN_VALUE;
+
+    /**
+     * Scratch space for decoding strings, so that reading a record only allocates the record itself.
+     */
+    private static final ThreadLocal<byte[]> STRING_BYTES = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private ByteBuffer buffer;
+
+    /**
+     * Creates a codec with a heap buffer of the given initial capacity.
+     *
+     * @param capacity The initial capacity in bytes.
+     */
+    public RecordCodec(int capacity) {
+        buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Get the buffer holding the records written so far. Flip it before reading or writing it out,
+     * and clear it to start over.
+     *
+     * @return The buffer.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Append a byte.
+     *
+     * @param value The byte to write.
+     */
+    public void writeByte(byte value) {
+        ensureRemaining(Byte.BYTES).put(value);
+    }
+
+    /**
+     * Append an int.
+     *
+     * @param value The int to write.
+     */
+    public void writeInt(int value) {
+        ensureRemaining(Integer.BYTES).putInt(value);
+    }
+
+    /**
+     * Append a long.
+     *
+     * @param value The long to write.
+     */
+    public void writeLong(long value) {
+        ensureRemaining(Long.BYTES).putLong(value);
+    }
+
+    /**
+     * Append a string.
+     *
+     * @param value The string to write, or null.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Append a part, including the fields of its subtype.
+     *
+     * @param part The part to write.
+     */
+    public void writePart(Part part) {
+        writeByte(part instanceof OutSourced ? OUT_SOURCED : IN_HOUSE);
+        writeInt(part.getId());
+        writeString(part.getName());
+        ensureRemaining(Double.BYTES).putDouble(part.getPrice());
+        writeInt(part.getStock());
+        writeInt(part.getMin());
+        writeInt(part.getMax());
+        if (part instanceof OutSourced) {
+            writeString(((OutSourced) part).getCompanyName());
+        } else {
+            writeInt(part instanceof InHouse ? ((InHouse) part).getMachineId() : 0);
+        }
+    }
+
+    /**
+     * Append a product, with the IDs of its associated parts and its sub-assemblies. The shortest of three
+     * layouts is used, so that products written before quantities and sub-assemblies existed read back
+     * unchanged:
+     * <ul>
+     *     <li>the part count and the part IDs, if every quantity is 1 and there are no sub-assemblies;</li>
+     *     <li>the part count negated and each part ID followed by its quantity, if there are no sub-assemblies;</li>
+     *     <li>WITH_SUB_ASSEMBLIES, the part count, each part ID with its quantity, the sub-assembly count and
+     *     each sub-assembly ID with its quantity, otherwise.</li>
+     * </ul>
+     *
+     * @param product The product to write.
+     */
+    public void writeProduct(Product product) {
+        writeInt(product.getId());
+        writeString(product.getName());
+        ensureRemaining(Double.BYTES).putDouble(product.getPrice());
+        writeInt(product.getStock());
+        writeInt(product.getMin());
+        writeInt(product.getMax());
+        int[] partIds = product.getAssociatedPartIds();
+        int[] quantities = product.getAssociatedPartQuantities();
+        int[] subAssemblyIds = product.getSubAssemblyIds();
+        if (subAssemblyIds.length > 0) {
+            writeInt(WITH_SUB_ASSEMBLIES);
+            writeInt(partIds.length);
+            writePairs(partIds, quantities);
+            writeInt(subAssemblyIds.length);
+            writePairs(subAssemblyIds, product.getSubAssemblyQuantities());
+        } else if (allOnes(quantities)) {
+            writeInt(partIds.length);
+            for (int partId : partIds) {
+                writeInt(partId);
+            }
+        } else {
+            writeInt(-partIds.length);
+            writePairs(partIds, quantities);
+        }
+    }
+
+    private void writePairs(int[] ids, int[] quantities) {
+        for (int i = 0; i < ids.length; i++) {
+            writeInt(ids[i]);
+            writeInt(quantities[i]);
+        }
+    }
+
+    /**
+     * Check whether every associated part quantity is 1, in which case the quantities need not be stored.
+     *
+     * @param quantities The quantities.
+     * @return True if every quantity is 1, false otherwise.
+     */
+    static boolean allOnes(int[] quantities) {
+        for (int quantity : quantities) {
+            if (quantity != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a string written by writeString.
+     *
+     * @param in The buffer to read from.
+     * @return The string, or null.
+     * @throws BufferUnderflowException If the buffer ends inside the string.
+     */
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = STRING_BYTES.get();
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+            STRING_BYTES.set(bytes);
+        }
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a part written by writePart.
+     *
+     * @param in The buffer to read from.
+     * @return The part.
+     * @throws BufferUnderflowException If the buffer ends inside the record.
+     * @throws IllegalArgumentException If the part type is unknown.
+     */
+    public static Part readPart(ByteBuffer in) {
+        byte type = in.get();
+        int id = in.getInt();
+        String name = readString(in);
+        double price = in.getDouble();
+        int stock = in.getInt();
+        int min = in.getInt();
+        int max = in.getInt();
+        if (type == IN_HOUSE) {
+            return new InHouse(id, name, price, stock, min, max, in.getInt());
+        } else if (type == OUT_SOURCED) {
+            return new OutSourced(id, name, price, stock, min, max, readString(in));
+        }
+        throw new IllegalArgumentException("Unknown part type " + type + ".");
+    }
+
+    /**
+     * Read a product written by writeProduct. Associated part IDs that cannot be resolved are skipped;
+     * sub-assembly IDs are kept as they are, since the products they refer to may be read later.
+     *
+     * @param in         The buffer to read from.
+     * @param partLookup Resolves an associated part ID to a part, or null if it does not exist.
+     * @return The product.
+     * @throws BufferUnderflowException If the buffer ends inside the record.
+     */
+    public static Product readProduct(ByteBuffer in, IntFunction<Part> partLookup) {
+        Product product = new Product(in.getInt(), readString(in), in.getDouble(), in.getInt(), in.getInt(), in.getInt());
+        int partCount = in.getInt();
+        boolean withSubAssemblies = partCount == WITH_SUB_ASSEMBLIES;
+        boolean hasQuantities = withSubAssemblies || partCount < 0;
+        if (withSubAssemblies) {
+            partCount = in.getInt();
+        }
+        partCount = checkCount(Math.abs(partCount), in);
+        int[] partIds = new int[partCount];
+        int[] quantities = hasQuantities ? new int[partCount] : null;
+        int kept = 0;
+        for (int i = 0; i < partCount; i++) {
+            int partId = in.getInt();
+            int quantity = hasQuantities ? in.getInt() : 1;
+            if (partLookup.apply(partId) != null) {
+                partIds[kept] = partId;
+                if (hasQuantities) {
+                    quantities[kept] = quantity;
+                }
+                kept++;
+            }
+        }
+        product.setAssociatedParts(Arrays.copyOf(partIds, kept), hasQuantities ? Arrays.copyOf(quantities, kept) : null);
+        if (withSubAssemblies) {
+            int subAssemblyCount = checkCount(in.getInt(), in);
+            int[] subAssemblyIds = new int[subAssemblyCount];
+            int[] subAssemblyQuantities = new int[subAssemblyCount];
+            for (int i = 0; i < subAssemblyCount; i++) {
+                subAssemblyIds[i] = in.getInt();
+                subAssemblyQuantities[i] = in.getInt();
+            }
+            product.setSubAssemblies(subAssemblyIds, subAssemblyQuantities);
+        }
+        return product;
+    }
+
+    /**
+     * Check that a count read from a buffer is not negative and that the buffer could hold that many ints,
+     * so that a corrupt count fails before a huge array is allocated.
+     */
+    private static int checkCount(int count, ByteBuffer in) {
+        if (count < 0 || count > in.remaining() / Integer.BYTES) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private ByteBuffer ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        return buffer;
+    }
+}
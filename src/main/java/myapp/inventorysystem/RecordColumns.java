@@ -0,0 +1,138 @@
+package myapp.inventorysystem;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Typed set-up of the table columns showing parts and products, in place of PropertyValueFactory, which
+ * looks up the getter by reflection and boxes the value of every cell it fills.
+ * <p>
+ * Number columns hold the record itself as the cell value, and their cells read the number through a
+ * getter and turn it into text without boxing it. A cell remembers the number it shows, so refilling it
+ * with an unchanged value, as happens on every scroll and list update, does not touch its text. Such
+ * columns sort with a comparator on the number, so sorting does not box either.
+ */
+public class RecordColumns {
+
+    /**
+     * Show an int field of the records in a column.
+     *
+     * @param column The column.
+     * @param getter Reads the field of a record.
+     * @param <S>    The type of the records.
+     */
+    public static <S> void intColumn(TableColumn<S, S> column, ToIntFunction<S> getter) {
+        column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+        column.setCellFactory(c -> new IntCell<>(getter));
+        column.setComparator(Comparator.comparingInt(getter));
+    }
+
+    /**
+     * Show a double field of the records in a column.
+     *
+     * @param column The column.
+     * @param getter Reads the field of a record.
+     * @param <S>    The type of the records.
+     */
+    public static <S> void doubleColumn(TableColumn<S, S> column, ToDoubleFunction<S> getter) {
+        column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+        column.setCellFactory(c -> new DoubleCell<>(getter));
+        column.setComparator(Comparator.comparingDouble(getter));
+    }
+
+    /**
+     * Show a text field of the records in a column.
+     *
+     * @param column The column.
+     * @param getter Reads the field of a record.
+     * @param <S>    The type of the records.
+     */
+    public static <S> void stringColumn(TableColumn<S, String> column, Function<S, String> getter) {
+        column.setCellValueFactory(features -> new ReadOnlyStringWrapper(getter.apply(features.getValue())));
+    }
+
+    /**
+     * Cell showing an int read from the record in its row.
+     */
+    private static final class IntCell<S> extends TableCell<S, S> {
+
+        private final ToIntFunction<S> getter;
+
+        /**
+         * The number shown, valid while the cell has text.
+         */
+        private int shown;
+
+        private IntCell(ToIntFunction<S> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * The record may have been changed in place, so it is read again even if the row holds the same one.
+         */
+        @Override
+        protected boolean isItemChanged(S oldItem, S newItem) {
+            return true;
+        }
+
+        @Override
+        protected void updateItem(S item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setText(null);
+                return;
+            }
+            int value = getter.applyAsInt(item);
+            if (getText() == null || value != shown) {
+                shown = value;
+                setText(Integer.toString(value));
+            }
+        }
+    }
+
+    /**
+     * Cell showing a double read from the record in its row.
+     */
+    private static final class DoubleCell<S> extends TableCell<S, S> {
+
+        private final ToDoubleFunction<S> getter;
+
+        /**
+         * The number shown, valid while the cell has text.
+         */
+        private double shown;
+
+        private DoubleCell(ToDoubleFunction<S> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * The record may have been changed in place, so it is read again even if the row holds the same one.
+         */
+        @Override
+        protected boolean isItemChanged(S oldItem, S newItem) {
+            return true;
+        }
+
+        @Override
+        protected void updateItem(S item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setText(null);
+                return;
+            }
+            double value = getter.applyAsDouble(item);
+            if (getText() == null || Double.doubleToLongBits(value) != Double.doubleToLongBits(shown)) {
+                shown = value;
+                setText(Double.toString(value));
+            }
+        }
+    }
+}
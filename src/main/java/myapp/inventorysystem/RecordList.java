@@ -0,0 +1,189 @@
+package myapp.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ObservableList of records laid out as a slot map, so that records can be removed and replaced by
+ * identity without searching the list or shifting the records behind them.
+ * <p>
+ * Every record owns a slot and the position of each record's slot is kept in a map; BatchedList
+ * turns slots into list indexes and back in O(log n).
+ * <p>
+ * Records are compared by identity. The list is read-only to everyone else: it is only modified by
+ * its ListChangeBatcher and RecordStore, which group changes with beginBatch and endBatch.
+ *
+ * @param <T> The type of the records.
+ */
+public class RecordList<T> extends BatchedList<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Records by slot, with null for a tombstone.
+     */
+    private Object[] slots = new Object[INITIAL_CAPACITY];
+
+    private final Map<T, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty list.
+     */
+    public RecordList() {
+        rebuildLiveCounts(INITIAL_CAPACITY);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) slots[slotOf(index)];
+    }
+
+    @Override
+    public int indexOf(Object record) {
+        Integer slot = positions.get(record);
+        return slot == null ? -1 : liveBefore(slot);
+    }
+
+    @Override
+    public boolean contains(Object record) {
+        return positions.containsKey(record);
+    }
+
+    @Override
+    void append(T record) {
+        if (positions.containsKey(record)) {
+            return;
+        }
+        place(record);
+        reportAdd(size - 1, size);
+    }
+
+    @Override
+    void appendAll(Collection<? extends T> records) {
+        int from = size;
+        ensureCapacity(slotCount + records.size());
+        for (T record : records) {
+            if (!positions.containsKey(record)) {
+                place(record);
+            }
+        }
+        if (size > from) {
+            reportAdd(from, size);
+        }
+    }
+
+    @Override
+    boolean removeRecord(T record) {
+        Integer slot = positions.remove(record);
+        if (slot == null) {
+            return false;
+        }
+        int index = liveBefore(slot);
+        slots[slot] = null;
+        addLive(slot, -1);
+        size--;
+        reportRemove(index, record);
+        if (needsCompaction()) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    boolean replaceRecord(T oldRecord, T newRecord) {
+        Integer slot = positions.get(oldRecord);
+        if (slot == null) {
+            return false;
+        }
+        replaceSlot(slot, liveBefore(slot), newRecord);
+        return true;
+    }
+
+    @Override
+    T replaceAt(int index, T record) {
+        Objects.checkIndex(index, size);
+        return replaceSlot(slotOf(index), index, record);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T replaceSlot(int slot, int index, T record) {
+        T replaced = (T) slots[slot];
+        if (replaced == record) {
+            // The record changed in place.
+            reportUpdate(index);
+            return replaced;
+        }
+        positions.remove(replaced);
+        slots[slot] = record;
+        positions.put(record, slot);
+        reportSet(index, replaced);
+        return replaced;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<T> snapshot() {
+        List<T> records = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                records.add((T) slots[slot]);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    protected boolean isLive(int slot) {
+        return slots[slot] != null;
+    }
+
+    /**
+     * Put a record in a new slot at the end.
+     */
+    private void place(T record) {
+        ensureCapacity(slotCount + 1);
+        slots[slotCount] = record;
+        positions.put(record, slotCount);
+        addLive(slotCount, 1);
+        slotCount++;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            Object[] larger = new Object[IntObjectMap.tableSizeFor(capacity)];
+            System.arraycopy(slots, 0, larger, 0, slotCount);
+            slots = larger;
+            rebuildLiveCounts(slots.length);
+        }
+    }
+
+    /**
+     * Move the live records to the front of the slots, dropping the tombstones.
+     */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            Object record = slots[slot];
+            if (record != null) {
+                if (slot != live) {
+                    slots[live] = record;
+                    positions.put((T) record, live);
+                }
+                live++;
+            }
+        }
+        for (int slot = live; slot < slotCount; slot++) {
+            slots[slot] = null;
+        }
+        slotCount = live;
+        rebuildLiveCounts(slots.length);
+    }
+}
@@ -0,0 +1,87 @@
+package myapp.inventorysystem;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The records of a RecordStore by ID. IntObjectMap holds the records themselves; TableRecordMap keeps
+ * their fields in a RecordTable and hands out views of them.
+ * <p>
+ * Implementations need not be thread-safe; RecordStore guards them with its read/write lock.
+ *
+ * @param <T> The type of the records.
+ */
+public interface RecordMap<T> {
+
+    /**
+     * Get the record with an ID.
+     *
+     * @param id The ID of the record.
+     * @return The record, or null if the ID is not present.
+     */
+    T get(int id);
+
+    /**
+     * Store a record under an ID, replacing any previous record.
+     *
+     * @param id     The ID of the record.
+     * @param record The record.
+     * @return The previous record, or null if the ID was not present.
+     */
+    T put(int id, T record);
+
+    /**
+     * Remove the record with an ID.
+     *
+     * @param id The ID of the record.
+     * @return The removed record, or null if the ID was not present.
+     */
+    T remove(int id);
+
+    /**
+     * Get the number of records.
+     *
+     * @return The number of records.
+     */
+    int size();
+
+    /**
+     * Pass every record to the given action, in no particular order.
+     *
+     * @param action The action to perform on each record.
+     */
+    void forEachValue(Consumer<? super T> action);
+
+    /**
+     * Pass records to the given action, in no particular order, until it returns false.
+     *
+     * @param action The action to perform on each record, returning whether to continue.
+     * @return True if every record was visited, false if the action stopped early.
+     */
+    boolean forEachValueWhile(Predicate<? super T> action);
+
+    /**
+     * Pass the IDs of the records whose ID digits or name contain a search query, ignoring case, in no
+     * particular order, until the action returns false. This is how a store searches without a search index.
+     *
+     * @param query  The search query, normalized by SubstringIndex.normalize.
+     * @param idOf   Extracts the ID of a record.
+     * @param nameOf Extracts the name of a record.
+     * @param action The action to perform on each matching ID, returning whether to continue.
+     * @return True if every record was checked, false if the action stopped early.
+     */
+    default boolean forEachMatchWhile(String query, ToIntFunction<? super T> idOf,
+                                      Function<? super T, String> nameOf, IntPredicate action) {
+        return forEachValueWhile(record -> {
+            SubstringIndex.checkCancelled();
+            int id = idOf.applyAsInt(record);
+            if (SubstringIndex.idContains(id, query) || SubstringIndex.normalize(nameOf.apply(record)).contains(query)) {
+                return action.test(id);
+            }
+            return true;
+        });
+    }
+}
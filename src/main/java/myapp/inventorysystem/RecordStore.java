@@ -0,0 +1,636 @@
+package myapp.inventorysystem;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread-safe backing store for one kind of inventory record (parts or products).
+ * The store owns the ID index and the search index and guards both with a read/write lock,
+ * so any number of threads can look up and search records while others add, update or delete them.
+ * <p>
+ * The ObservableList returned by getItems() is the JavaFX-facing copy of the store. It is only
+ * ever modified on the JavaFX application thread: changes are queued on a ListChangeBatcher in the
+ * order they were made to the store, and applied once per pulse as a single list change.
+ * <p>
+ * Very large batches, such as a snapshot being loaded, are available by ID as soon as addAll
+ * returns, while the search index is rebuilt on a background thread. Until the new index is ready,
+ * searches scan the records instead.
+ * <p>
+ * A ChangeLog set on the store is told about every change while the write lock is still held, so that it sees
+ * the changes in exactly the order they were made to the store.
+ * <p>
+ * By default the store holds the records themselves. A store created over a TableRecordMap keeps their
+ * fields in a RecordTable instead and hands out views of it, and its JavaFX-facing list only holds IDs.
+ * Records are then compared by equals, which for views means by table and ID. Such a store may also do
+ * without a search index, so that nothing on the heap grows with the number of records but the ID list
+ * behind getItems(); searches then always scan the records.
+ *
+ * @param <T> The type of the stored records.
+ */
+public class RecordStore<T> {
+
+    /**
+     * Batches of at least this many records have their search index built in the background.
+     */
+    public static final int BACKGROUND_INDEX_THRESHOLD = 100_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RecordMap<T> byId;
+
+    /**
+     * The search index, or null while it is being rebuilt in the background or if the store has none.
+     */
+    private SubstringIndex searchIndex;
+
+    /**
+     * IDs added, updated or deleted while the search index is being rebuilt, applied to the new index
+     * before it replaces the old one. Owned by the latest rebuild.
+     */
+    private IntHashSet changedDuringRebuild;
+
+    /**
+     * Counts the rebuilds started, so that a rebuild overtaken by a newer one discards its index.
+     */
+    private int rebuildGeneration;
+
+    private final boolean searchIndexed;
+
+    private final BatchedList<T> items;
+
+    private final ListChangeBatcher<T> changes;
+
+    private final ToIntFunction<? super T> idOf;
+
+    private final Function<? super T, String> nameOf;
+
+    private volatile ChangeLog<? super T> changeLog = ChangeLog.NONE;
+
+    /**
+     * Receives the changes made to a store, in order, while the store's write lock is held. Implementations must
+     * be quick and must not call back into the store from another thread.
+     *
+     * @param <T> The type of the stored records.
+     */
+    public interface ChangeLog<T> {
+
+        /**
+         * A log that ignores every change.
+         */
+        ChangeLog<Object> NONE = new ChangeLog<>() {
+            @Override
+            public void added(Object record) {
+            }
+
+            @Override
+            public void updated(Object record) {
+            }
+
+            @Override
+            public void removed(Object record) {
+            }
+        };
+
+        /**
+         * A record was added, or replaced a record with the same ID.
+         *
+         * @param record The added record.
+         */
+        void added(T record);
+
+        /**
+         * Several records were added at once. By default each one is passed to added(T).
+         *
+         * @param records The added records.
+         */
+        default void addedAll(Collection<? extends T> records) {
+            for (T record : records) {
+                added(record);
+            }
+        }
+
+        /**
+         * A record was updated or replaced through update or set.
+         *
+         * @param record The record as it is now.
+         */
+        void updated(T record);
+
+        /**
+         * A record was deleted.
+         *
+         * @param record The deleted record.
+         */
+        void removed(T record);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param idOf   Extracts the ID of a record.
+     * @param nameOf Extracts the name of a record.
+     */
+    public RecordStore(ToIntFunction<? super T> idOf, Function<? super T, String> nameOf) {
+        this(idOf, nameOf, new IntObjectMap<>(), new RecordList<>(), true);
+    }
+
+    /**
+     * Creates an empty store that keeps its records in a table.
+     *
+     * @param idOf          Extracts the ID of a record.
+     * @param nameOf        Extracts the name of a record.
+     * @param records       The table-backed records, which must be empty.
+     * @param searchIndexed True to keep a search index, false to search by scanning the table.
+     */
+    public RecordStore(ToIntFunction<? super T> idOf, Function<? super T, String> nameOf, TableRecordMap<T> records,
+                       boolean searchIndexed) {
+        this(idOf, nameOf, records, new TableList<>(records, idOf), searchIndexed);
+    }
+
+    private RecordStore(ToIntFunction<? super T> idOf, Function<? super T, String> nameOf, RecordMap<T> byId,
+                        BatchedList<T> items, boolean searchIndexed) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.byId = byId;
+        this.items = items;
+        this.changes = new ListChangeBatcher<>(items);
+        this.searchIndexed = searchIndexed;
+        this.searchIndex = searchIndexed ? new SubstringIndex() : null;
+    }
+
+    /**
+     * Set the log that is told about every change to the store.
+     *
+     * @param changeLog The log, or null to stop logging changes.
+     */
+    public void setChangeLog(ChangeLog<? super T> changeLog) {
+        this.changeLog = changeLog == null ? ChangeLog.NONE : changeLog;
+    }
+
+    /**
+     * Get the JavaFX-facing list of records. It must only be read on the JavaFX application thread.
+     *
+     * @return ObservableList of all records.
+     */
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Get the batcher that forwards changes to getItems(), which also reports how many changes
+     * are queued and applied.
+     *
+     * @return The change batcher of this store.
+     */
+    public ListChangeBatcher<T> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Add a record. A record already stored under the same ID is replaced.
+     *
+     * @param record The record to add.
+     */
+    public void add(T record) {
+        lock.writeLock().lock();
+        try {
+            T previous = index(record);
+            if (previous == null) {
+                changes.add(record);
+            } else if (previous != record) {
+                changes.replace(previous, record);
+            }
+            changeLog.added(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add several records under a single acquisition of the write lock. The new records reach
+     * getItems() as one addAll. Records already stored under the same ID are replaced, and so are earlier
+     * records of the same batch, so the last record with an ID wins.
+     * Batches of at least BACKGROUND_INDEX_THRESHOLD records are searchable once the search index
+     * has been rebuilt in the background.
+     *
+     * @param records The records to add.
+     */
+    public void addAll(Collection<? extends T> records) {
+        List<T> added = new ArrayList<>(records.size());
+        // Position in added of each new ID, so a later record with the same ID replaces it there.
+        IntIntMap addedAt = new IntIntMap(records.size());
+        lock.writeLock().lock();
+        try {
+            if (records.size() >= BACKGROUND_INDEX_THRESHOLD && searchIndexed) {
+                rebuildSearchIndex();
+            }
+            for (T record : records) {
+                T previous = index(record);
+                int id = idOf.applyAsInt(record);
+                if (previous == null) {
+                    addedAt.put(id, added.size());
+                    added.add(record);
+                } else if (addedAt.containsKey(id)) {
+                    added.set(addedAt.get(id, -1), record);
+                } else if (previous != record) {
+                    changes.replace(previous, record);
+                }
+            }
+            changes.addAll(added);
+            changeLog.addedAll(records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Update a record, replacing the stored record with the same ID.
+     * A record that was modified in place is re-indexed and reported to getItems() as updated.
+     *
+     * @param record The updated record.
+     * @return True if a record with that ID was stored, false otherwise.
+     */
+    public boolean update(T record) {
+        lock.writeLock().lock();
+        try {
+            T stored = byId.get(idOf.applyAsInt(record));
+            if (stored == null) {
+                return false;
+            }
+            index(record);
+            if (stored != record) {
+                changes.replace(stored, record);
+            } else {
+                changes.update(record);
+            }
+            changeLog.updated(record);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the record at a position of the JavaFX-facing list.
+     * The position only has meaning on the application thread once queued changes are applied,
+     * so the replacement runs there after a flush.
+     *
+     * @param index  The position in getItems() of the record to replace.
+     * @param record The new record.
+     * @throws IllegalArgumentException If another record is stored under the ID of the new record. Thrown on the
+     *                                  application thread.
+     */
+    public void set(int index, T record) {
+        set(index, record, (replaced, replacement) -> {
+        });
+    }
+
+    /**
+     * Replace the record at a position of the JavaFX-facing list, then pass the replaced record and the new one
+     * to afterSet in the same step, so that the caller can update its own indexes before anything else runs on
+     * the application thread. A replacement with a different ID drops the ID of the replaced record, and is
+     * logged as a removal followed by an update.
+     *
+     * @param index    The position in getItems() of the record to replace.
+     * @param record   The new record.
+     * @param afterSet Receives the replaced record and the new one, after the write lock is released.
+     * @throws IllegalArgumentException If another record is stored under the ID of the new record. Thrown on the
+     *                                  application thread.
+     */
+    public void set(int index, T record, BiConsumer<? super T, ? super T> afterSet) {
+        runOnFxThread(() -> {
+            T replaced;
+            lock.writeLock().lock();
+            try {
+                changes.flush();
+                int id = idOf.applyAsInt(record);
+                T stored = byId.get(id);
+                if (stored != null && !stored.equals(items.get(index))) {
+                    throw new IllegalArgumentException("Another record is stored under ID " + id + ".");
+                }
+                replaced = items.replaceAt(index, record);
+                unindex(replaced);
+                index(record);
+                if (idOf.applyAsInt(replaced) != id) {
+                    changeLog.removed(replaced);
+                }
+                changeLog.updated(record);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            afterSet.accept(replaced, record);
+        });
+    }
+
+    /**
+     * Delete a record.
+     *
+     * @param record The record to delete.
+     * @return True if the record was stored and has been deleted, false otherwise.
+     */
+    public boolean remove(T record) {
+        lock.writeLock().lock();
+        try {
+            if (!unindex(record)) {
+                return false;
+            }
+            changes.remove(record);
+            changeLog.removed(record);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete several records under a single acquisition of the write lock. Each deletion is a constant-time
+     * index update, and the JavaFX-facing list drops the records in the same pulse.
+     *
+     * @param records The records to delete.
+     * @return The records that were stored and have been deleted.
+     */
+    public List<T> removeAll(Collection<? extends T> records) {
+        List<T> removed = new ArrayList<>(records.size());
+        lock.writeLock().lock();
+        try {
+            for (T record : records) {
+                if (unindex(record)) {
+                    changes.remove(record);
+                    changeLog.removed(record);
+                    removed.add(record);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Look up a record by ID. Safe to call from any thread.
+     *
+     * @param id The ID of the record.
+     * @return The record, or null if not found.
+     */
+    public T get(int id) {
+        lock.readLock().lock();
+        try {
+            return byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Look up the records with the given IDs, skipping IDs that are not stored. Safe to call from any thread.
+     *
+     * @param ids The IDs of the records.
+     * @return ObservableList of found records, in the order of the IDs.
+     */
+    public ObservableList<T> getAll(int[] ids) {
+        ObservableList<T> found = FXCollections.observableArrayList();
+        lock.readLock().lock();
+        try {
+            for (int id : ids) {
+                T record = byId.get(id);
+                if (record != null) {
+                    found.add(record);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Find the records accepted by a filter. Safe to call from any thread.
+     *
+     * @param filter The filter to apply to every record.
+     * @return ObservableList of the accepted records, in no particular order.
+     */
+    public ObservableList<T> find(Predicate<? super T> filter) {
+        ObservableList<T> found = FXCollections.observableArrayList();
+        lock.readLock().lock();
+        try {
+            byId.forEachValue(record -> {
+                if (filter.test(record)) {
+                    found.add(record);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Search for the IDs of records whose ID or name contains the search text. Safe to call from any thread.
+     *
+     * @param searchText The search text.
+     * @return The IDs of the matching records, in ascending order.
+     */
+    public int[] search(String searchText) {
+        lock.readLock().lock();
+        try {
+            if (searchIndex == null) {
+                int[] matches = scan(searchText, Integer.MAX_VALUE);
+                Arrays.sort(matches);
+                return matches;
+            }
+            return searchIndex.search(searchText);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search for at most limit IDs of records whose ID or name contains the search text, prefix matches first.
+     * Safe to call from any thread.
+     *
+     * @param searchText The search text.
+     * @param limit      The maximum number of IDs to return.
+     * @return The IDs of the matching records, best matches first.
+     */
+    public int[] search(String searchText, int limit) {
+        lock.readLock().lock();
+        try {
+            if (searchIndex == null) {
+                return scan(searchText, limit);
+            }
+            return searchIndex.search(searchText, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy every stored record under the read lock, so that the copy is a consistent view of the store.
+     * Safe to call from any thread.
+     *
+     * @return List of all records, in no particular order.
+     */
+    public List<T> toList() {
+        lock.readLock().lock();
+        try {
+            List<T> all = new ArrayList<>(byId.size());
+            byId.forEachValue(all::add);
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of every stored record. Safe to call from any thread.
+     *
+     * @return The IDs, in ascending order.
+     */
+    public int[] ids() {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            ids = new int[byId.size()];
+            int[] count = {0};
+            byId.forEachValue(record -> ids[count[0]++] = idOf.applyAsInt(record));
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Get the number of stored records. Safe to call from any thread.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a record to the indexes. Callers must hold the write lock.
+     *
+     * @return The record previously stored under the same ID, or null.
+     */
+    private T index(T record) {
+        int id = idOf.applyAsInt(record);
+        T previous = byId.put(id, record);
+        if (searchIndex != null) {
+            searchIndex.put(id, nameOf.apply(record));
+        } else if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+        return previous;
+    }
+
+    /**
+     * Remove a record from the indexes, unless its ID has since been taken over by another record.
+     * Callers must hold the write lock.
+     *
+     * @return True if the record was removed, false otherwise.
+     */
+    private boolean unindex(T record) {
+        if (record == null) {
+            return false;
+        }
+        int id = idOf.applyAsInt(record);
+        if (!record.equals(byId.get(id))) {
+            return false;
+        }
+        byId.remove(id);
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        } else if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+        return true;
+    }
+
+    /**
+     * Drop the search index and build a new one from a copy of the records on a background thread.
+     * A rebuild still running is overtaken: it finishes its copy but discards it, and only the latest
+     * rebuild replaces the index. Callers must hold the write lock.
+     */
+    private void rebuildSearchIndex() {
+        int generation = ++rebuildGeneration;
+        IntHashSet changed = new IntHashSet();
+        searchIndex = null;
+        changedDuringRebuild = changed;
+        Thread indexer = new Thread(() -> {
+            SubstringIndex rebuilt = new SubstringIndex();
+            for (T record : toList()) {
+                rebuilt.put(idOf.applyAsInt(record), nameOf.apply(record));
+            }
+            lock.writeLock().lock();
+            try {
+                if (generation != rebuildGeneration) {
+                    return;
+                }
+                changed.forEach(id -> {
+                    T record = byId.get(id);
+                    if (record == null) {
+                        rebuilt.remove(id);
+                    } else {
+                        rebuilt.put(id, nameOf.apply(record));
+                    }
+                });
+                changedDuringRebuild = null;
+                searchIndex = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }, "search-index");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Search by checking every record, while the search index is being rebuilt or if the store has none.
+     * Callers must hold the read lock.
+     */
+    private int[] scan(String searchText, int limit) {
+        String query = SubstringIndex.normalize(searchText);
+        int[] matches = new int[Math.min(limit, byId.size())];
+        if (matches.length == 0) {
+            return matches;
+        }
+        int[] count = {0};
+        byId.forEachMatchWhile(query, idOf, nameOf, id -> {
+            matches[count[0]++] = id;
+            return count[0] < matches.length;
+        });
+        return Arrays.copyOf(matches, count[0]);
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+            return;
+        }
+        try {
+            Platform.runLater(action);
+        } catch (IllegalStateException e) {
+            // The toolkit is not running, so nothing can be observing the list yet.
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package myapp.inventorysystem;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Storage for the fields of parts or products outside of Part and Product objects, addressed by record ID.
+ * A RecordStore can keep its records in a table instead of holding one object per record; the records it
+ * hands out are then lightweight views that read and write the table (see TableRecordMap).
+ * <p>
+ * Every record has the fields shared by parts and products, a kind, and the fields of its kind: the machine
+ * ID of an InHouse part, the company name of an OutSourced part, or the associated part IDs and quantities
+ * and the sub-assemblies of a product.
+ * Getters return 0, null or an empty array for IDs that are not in the table, and setters ignore them,
+ * so that a view of a deleted record never throws.
+ * <p>
+ * Implementations are thread-safe: each call is atomic, but a record written with several calls may be
+ * seen half-written by readers that do not hold the lock of the RecordStore.
+ */
+public interface RecordTable {
+
+    /**
+     * Kind of a product record. Parts use the type tags of RecordCodec.
+     */
+    byte PRODUCT = 3;
+
+    /**
+     * Get the number of records in the table.
+     *
+     * @return The number of records.
+     */
+    int size();
+
+    /**
+     * Check whether a record is in the table.
+     *
+     * @param id The ID of the record.
+     * @return True if the table has a record with that ID, false otherwise.
+     */
+    boolean contains(int id);
+
+    /**
+     * Add a record, or overwrite the record with the same ID. The machine ID, company name and associated
+     * part IDs are reset and must be set afterwards.
+     *
+     * @param id    The ID of the record.
+     * @param kind  The kind of the record: RecordCodec.IN_HOUSE, RecordCodec.OUT_SOURCED or PRODUCT.
+     * @param name  The name.
+     * @param price The price.
+     * @param stock The inventory level.
+     * @param min   The minimum inventory level.
+     * @param max   The maximum inventory level.
+     */
+    void put(int id, byte kind, String name, double price, int stock, int min, int max);
+
+    /**
+     * Remove a record.
+     *
+     * @param id The ID of the record.
+     * @return True if the record was in the table, false otherwise.
+     */
+    boolean remove(int id);
+
+    /**
+     * Remove every record from the table.
+     */
+    void clear();
+
+    /**
+     * Pass the IDs of the records to the given action, in no particular order, until it returns false.
+     * The action may read the table.
+     *
+     * @param action The action to perform on each ID, returning whether to continue.
+     * @return True if every ID was visited, false if the action stopped early.
+     */
+    boolean forEachIdWhile(IntPredicate action);
+
+    /**
+     * Pass the IDs of the records whose ID digits or name contain a search query, ignoring case, in no
+     * particular order, until the action returns false.
+     *
+     * @param query  The search query, normalized by SubstringIndex.normalize.
+     * @param action The action to perform on each matching ID, returning whether to continue.
+     * @return True if every record was checked, false if the action stopped early.
+     */
+    boolean forEachMatchWhile(String query, IntPredicate action);
+
+    /**
+     * Get the kind of a record.
+     *
+     * @param id The ID of the record.
+     * @return The kind, or 0 if the record is not in the table.
+     */
+    byte getKind(int id);
+
+    /**
+     * Get the name of a record.
+     *
+     * @param id The ID of the record.
+     * @return The name.
+     */
+    String getName(int id);
+
+    /**
+     * Set the name of a record.
+     *
+     * @param id   The ID of the record.
+     * @param name The name to set.
+     */
+    void setName(int id, String name);
+
+    /**
+     * Get the price of a record.
+     *
+     * @param id The ID of the record.
+     * @return The price.
+     */
+    double getPrice(int id);
+
+    /**
+     * Set the price of a record.
+     *
+     * @param id    The ID of the record.
+     * @param price The price to set.
+     */
+    void setPrice(int id, double price);
+
+    /**
+     * Get the inventory level of a record.
+     *
+     * @param id The ID of the record.
+     * @return The inventory level.
+     */
+    int getStock(int id);
+
+    /**
+     * Set the inventory level of a record.
+     *
+     * @param id    The ID of the record.
+     * @param stock The inventory level to set.
+     */
+    void setStock(int id, int stock);
+
+    /**
+     * Get the minimum inventory level of a record.
+     *
+     * @param id The ID of the record.
+     * @return The minimum inventory level.
+     */
+    int getMin(int id);
+
+    /**
+     * Set the minimum inventory level of a record.
+     *
+     * @param id  The ID of the record.
+     * @param min The minimum inventory level to set.
+     */
+    void setMin(int id, int min);
+
+    /**
+     * Get the maximum inventory level of a record.
+     *
+     * @param id The ID of the record.
+     * @return The maximum inventory level.
+     */
+    int getMax(int id);
+
+    /**
+     * Set the maximum inventory level of a record.
+     *
+     * @param id  The ID of the record.
+     * @param max The maximum inventory level to set.
+     */
+    void setMax(int id, int max);
+
+    /**
+     * Get the machine ID of an InHouse part.
+     *
+     * @param id The ID of the part.
+     * @return The machine ID, or 0 if the record is not an InHouse part.
+     */
+    int getMachineId(int id);
+
+    /**
+     * Set the machine ID of an InHouse part.
+     *
+     * @param id        The ID of the part.
+     * @param machineId The machine ID to set.
+     */
+    void setMachineId(int id, int machineId);
+
+    /**
+     * Get the company name of an OutSourced part.
+     *
+     * @param id The ID of the part.
+     * @return The company name, or null if the record is not an OutSourced part.
+     */
+    String getCompanyName(int id);
+
+    /**
+     * Set the company name of an OutSourced part.
+     *
+     * @param id          The ID of the part.
+     * @param companyName The company name to set.
+     */
+    void setCompanyName(int id, String companyName);
+
+    /**
+     * Get the IDs of the associated parts of a product.
+     *
+     * @param id The ID of the product.
+     * @return A copy of the associated part IDs, in order, or an empty array if the record is not a product.
+     */
+    int[] getPartIds(int id);
+
+    /**
+     * Get the quantities of the associated parts of a product.
+     *
+     * @param id The ID of the product.
+     * @return A copy of the quantities, in the order of the part IDs, or null if every quantity is 1 or the
+     * record is not a product.
+     */
+    int[] getPartQuantities(int id);
+
+    /**
+     * Set the IDs and quantities of the associated parts of a product.
+     *
+     * @param id         The ID of the product.
+     * @param partIds    The associated part IDs, in order.
+     * @param quantities The quantity of each associated part, or null if every quantity is 1.
+     */
+    void setPartIds(int id, int[] partIds, int[] quantities);
+
+    /**
+     * Get the IDs of the sub-assemblies of a product.
+     *
+     * @param id The ID of the product.
+     * @return A copy of the sub-assembly IDs, in order, or an empty array if the record is not a product.
+     */
+    int[] getSubAssemblyIds(int id);
+
+    /**
+     * Get the quantities of the sub-assemblies of a product.
+     *
+     * @param id The ID of the product.
+     * @return A copy of the quantities, in the order of the sub-assembly IDs.
+     */
+    int[] getSubAssemblyQuantities(int id);
+
+    /**
+     * Set the IDs and quantities of the sub-assemblies of a product.
+     *
+     * @param id         The ID of the product.
+     * @param productIds The sub-assembly IDs, in order.
+     * @param quantities The quantity of each sub-assembly.
+     */
+    void setSubAssemblies(int id, int[] productIds, int[] quantities);
+
+    /**
+     * Get the approximate number of bytes the table takes up, on and off the heap.
+     *
+     * @return The approximate size of the table in bytes.
+     */
+    long getMemoryFootprint();
+}
@@ -0,0 +1,37 @@
+package myapp.inventorysystem;
+
+/**
+ * A part or product that has no fields of its own but reads and writes a record of a RecordTable.
+ * Views of the same record are interchangeable and equal to each other, whichever of them a list or a
+ * caller happens to hold. A view of a record that has been deleted reads as zeros and nulls, and
+ * writing to it has no effect.
+ */
+public interface RecordView {
+
+    /**
+     * Get the table holding the record.
+     *
+     * @return The table.
+     */
+    RecordTable getTable();
+
+    /**
+     * Get the ID of the record.
+     *
+     * @return The ID.
+     */
+    int getId();
+
+    /**
+     * Check whether an object is a view of the same record as a view.
+     *
+     * @param view  The view.
+     * @param other The object to compare with.
+     * @return True if the object is a view of the same table and ID, false otherwise.
+     */
+    static boolean sameRecord(RecordView view, Object other) {
+        return other instanceof RecordView
+                && ((RecordView) other).getTable() == view.getTable()
+                && ((RecordView) other).getId() == view.getId();
+    }
+}
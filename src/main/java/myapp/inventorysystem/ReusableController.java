@@ -0,0 +1,13 @@
+package myapp.inventorysystem;
+
+/**
+ * Controller of a view that ViewCache loads once and shows again and again.
+ */
+public interface ReusableController {
+
+    /**
+     * Put the view back the way it looked right after loading, before it is shown again: clear the fields,
+     * searches and selections, and forget the record being edited.
+     */
+    void reset();
+}
@@ -0,0 +1,625 @@
+package myapp.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Sort orders of the parts or the products by ID, name, stock and price, kept up to date as records are
+ * added, changed and deleted, so that a table can be sorted by walking an order instead of sorting.
+ * <p>
+ * The index keeps its own copy of the sort keys of every record, in columns by slot, and one order of the
+ * slots per key, laid out as a list of blocks of at most BLOCK_SIZE slots. A change moves the record within
+ * the orders of the keys that changed, in O(log n + BLOCK_SIZE); a batch as large as the index is added by
+ * sorting the orders again. Ties are broken by ID, so every order is total. The copy of the keys is what
+ * lets a record changed in place be found at its old position, and sorting never looks up a record.
+ * <p>
+ * A sort by one key walks its order. A sort by several keys starts from the order by ID and, from the
+ * least significant key to the most, counting-sorts the records by their rank in the order of the key, which
+ * the sort is stable for, so every key costs linear time. Sorting a few search results sorts just those. All
+ * methods are synchronized on the index.
+ *
+ * @param <T> The type of the records.
+ */
+public class SortIndex<T> {
+
+    /**
+     * The keys records can be sorted by.
+     */
+    public enum Key {
+        ID, NAME, STOCK, PRICE
+    }
+
+    /**
+     * Maximum number of slots in a block of an order.
+     */
+    public static final int BLOCK_SIZE = 512;
+
+    /**
+     * A batch of at least this many records, and at least an eighth of the index, is added by rebuilding
+     * the orders instead of inserting the records one by one.
+     */
+    private static final int REBUILD_THRESHOLD = 1024;
+
+    /**
+     * Result sets no larger than the index size divided by this are sorted by themselves rather than by
+     * walking a whole order.
+     */
+    private static final int SUBSET_SORT_RATIO = 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ToIntFunction<? super T> idOf;
+
+    private final Function<? super T, String> nameOf;
+
+    private final ToIntFunction<? super T> stockOf;
+
+    private final ToDoubleFunction<? super T> priceOf;
+
+    /**
+     * From record ID to slot.
+     */
+    private final IntIntMap slots = new IntIntMap();
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    private int[] stocks = new int[INITIAL_CAPACITY];
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+
+    /**
+     * Number of slots in use or free.
+     */
+    private int slotCount;
+
+    /**
+     * Slots of deleted records, reused before new slots are taken.
+     */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    private final Map<Key, Order> orders = new EnumMap<>(Key.class);
+
+    /**
+     * Creates an empty index.
+     *
+     * @param idOf    Extracts the ID of a record.
+     * @param nameOf  Extracts the name of a record.
+     * @param stockOf Extracts the inventory level of a record.
+     * @param priceOf Extracts the price of a record.
+     */
+    public SortIndex(ToIntFunction<? super T> idOf, Function<? super T, String> nameOf,
+                     ToIntFunction<? super T> stockOf, ToDoubleFunction<? super T> priceOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.stockOf = stockOf;
+        this.priceOf = priceOf;
+        for (Key key : Key.values()) {
+            orders.put(key, new Order(key));
+        }
+    }
+
+    /**
+     * Sort key and direction of one column of a sort.
+     */
+    public static final class SortKey {
+
+        private final Key key;
+
+        private final boolean descending;
+
+        /**
+         * Creates a sort key.
+         *
+         * @param key        The key.
+         * @param descending True to sort from the largest value down, false to sort from the smallest up.
+         */
+        public SortKey(Key key, boolean descending) {
+            if (key == null) {
+                throw new IllegalArgumentException("The key must not be null.");
+            }
+            this.key = key;
+            this.descending = descending;
+        }
+
+        /**
+         * Get the key.
+         *
+         * @return The key.
+         */
+        public Key getKey() {
+            return key;
+        }
+
+        /**
+         * Check whether the key sorts from the largest value down.
+         *
+         * @return True if descending, false if ascending.
+         */
+        public boolean isDescending() {
+            return descending;
+        }
+    }
+
+    /**
+     * Add a record, or take note of the current keys of a record already in the index.
+     *
+     * @param record The record.
+     */
+    public synchronized void put(T record) {
+        int id = idOf.applyAsInt(record);
+        String name = nameOf.apply(record);
+        int stock = stockOf.applyAsInt(record);
+        double price = priceOf.applyAsDouble(record);
+        int slot = slots.get(id, -1);
+        if (slot < 0) {
+            slot = newSlot(id);
+            names[slot] = name;
+            stocks[slot] = stock;
+            prices[slot] = price;
+            for (Order order : orders.values()) {
+                order.insert(slot);
+            }
+            return;
+        }
+        if (!Objects.equals(name, names[slot])) {
+            Order order = orders.get(Key.NAME);
+            order.remove(slot);
+            names[slot] = name;
+            order.insert(slot);
+        }
+        if (stock != stocks[slot]) {
+            Order order = orders.get(Key.STOCK);
+            order.remove(slot);
+            stocks[slot] = stock;
+            order.insert(slot);
+        }
+        if (Double.compare(price, prices[slot]) != 0) {
+            Order order = orders.get(Key.PRICE);
+            order.remove(slot);
+            prices[slot] = price;
+            order.insert(slot);
+        }
+    }
+
+    /**
+     * Add or update several records. A batch as large as an eighth of the index is sorted into the orders
+     * at once.
+     *
+     * @param records The records.
+     */
+    public synchronized void putAll(Collection<? extends T> records) {
+        if (records.size() < REBUILD_THRESHOLD || records.size() < size() / 8) {
+            for (T record : records) {
+                put(record);
+            }
+            return;
+        }
+        for (T record : records) {
+            int id = idOf.applyAsInt(record);
+            int slot = slots.get(id, -1);
+            if (slot < 0) {
+                slot = newSlot(id);
+            }
+            names[slot] = nameOf.apply(record);
+            stocks[slot] = stockOf.applyAsInt(record);
+            prices[slot] = priceOf.applyAsDouble(record);
+        }
+        int[] live = liveSlots();
+        for (Order order : orders.values()) {
+            order.rebuild(live);
+        }
+    }
+
+    /**
+     * Take note of a new inventory level of a record.
+     *
+     * @param id    The ID of the record.
+     * @param stock The new inventory level.
+     */
+    public synchronized void setStock(int id, int stock) {
+        int slot = slots.get(id, -1);
+        if (slot >= 0 && stocks[slot] != stock) {
+            Order order = orders.get(Key.STOCK);
+            order.remove(slot);
+            stocks[slot] = stock;
+            order.insert(slot);
+        }
+    }
+
+    /**
+     * Remove a record.
+     *
+     * @param id The ID of the record.
+     * @return True if the record was in the index, false otherwise.
+     */
+    public synchronized boolean remove(int id) {
+        int slot = slots.remove(id, -1);
+        if (slot < 0) {
+            return false;
+        }
+        for (Order order : orders.values()) {
+            order.remove(slot);
+        }
+        names[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Get the number of records in the index.
+     *
+     * @return The number of records.
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Sort record IDs by one or more keys. The first key decides, the next ones break its ties, and the ID
+     * breaks any tie left, in ascending order.
+     *
+     * @param recordIds The IDs to sort, or null to sort every record in the index. IDs not in the index are
+     *                  dropped. The array is not changed.
+     * @param sortKeys  The keys to sort by, most significant first. With no keys, the IDs are returned as
+     *                  they are, or every ID in ascending order.
+     * @return The sorted IDs.
+     */
+    public synchronized int[] sort(int[] recordIds, List<SortKey> sortKeys) {
+        if (sortKeys.isEmpty()) {
+            return recordIds != null ? recordIds : orders.get(Key.ID).toIds(null, false);
+        }
+        int[] sorted;
+        if (recordIds != null && recordIds.length <= size() / SUBSET_SORT_RATIO) {
+            int[] subset = new int[recordIds.length];
+            int count = 0;
+            for (int id : recordIds) {
+                int slot = slots.get(id, -1);
+                if (slot >= 0) {
+                    subset[count++] = slot;
+                }
+            }
+            sorted = Arrays.copyOf(subset, count);
+            sortSlots(sorted, (a, b) -> compare(a, b, sortKeys));
+        } else {
+            IntHashSet wanted = null;
+            if (recordIds != null) {
+                wanted = new IntHashSet(recordIds.length);
+                for (int id : recordIds) {
+                    wanted.add(id);
+                }
+            }
+            if (sortKeys.size() == 1) {
+                SortKey sortKey = sortKeys.get(0);
+                sorted = orders.get(sortKey.key).toSlots(wanted, sortKey.descending);
+                if (sortKey.descending) {
+                    reverseTies(sorted, sortKey.key);
+                }
+            } else {
+                sorted = orders.get(Key.ID).toSlots(wanted, false);
+                for (int i = sortKeys.size() - 1; i >= 0; i--) {
+                    sorted = sortByRank(sorted, sortKeys.get(i));
+                }
+            }
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = ids[sorted[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Put the runs of slots that tie on a key, which a descending walk visits from the highest ID down, back
+     * in ascending order of ID.
+     */
+    private void reverseTies(int[] sorted, Key key) {
+        int start = 0;
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i == sorted.length || compareKey(key, sorted[start], sorted[i]) != 0) {
+                reverse(sorted, start, i);
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Stable counting sort of slots by their rank in the order of a key, where slots that tie on the key
+     * share a rank.
+     */
+    private int[] sortByRank(int[] sorted, SortKey sortKey) {
+        int[] ranks = new int[slotCount];
+        int rank = -1;
+        int previous = -1;
+        for (int slot : orders.get(sortKey.key).toSlots(null, false)) {
+            if (previous < 0 || compareKey(sortKey.key, previous, slot) != 0) {
+                rank++;
+            }
+            ranks[slot] = rank;
+            previous = slot;
+        }
+        int[] starts = new int[rank + 2];
+        for (int slot : sorted) {
+            starts[(sortKey.descending ? rank - ranks[slot] : ranks[slot]) + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        int[] result = new int[sorted.length];
+        for (int slot : sorted) {
+            result[starts[sortKey.descending ? rank - ranks[slot] : ranks[slot]]++] = slot;
+        }
+        return result;
+    }
+
+    /**
+     * Compare two slots by the sort keys, then by ID.
+     */
+    private int compare(int a, int b, List<SortKey> sortKeys) {
+        for (SortKey sortKey : sortKeys) {
+            int result = compareKey(sortKey.key, a, b);
+            if (result != 0) {
+                return sortKey.descending ? -result : result;
+            }
+        }
+        return Integer.compare(ids[a], ids[b]);
+    }
+
+    /**
+     * Compare two slots by one key only. Names compare as the table columns compare them, nulls first.
+     */
+    private int compareKey(Key key, int a, int b) {
+        switch (key) {
+            case NAME:
+                String nameA = names[a];
+                String nameB = names[b];
+                if (nameA == null || nameB == null) {
+                    return nameA == null ? (nameB == null ? 0 : -1) : 1;
+                }
+                return nameA.compareTo(nameB);
+            case STOCK:
+                return Integer.compare(stocks[a], stocks[b]);
+            case PRICE:
+                return Double.compare(prices[a], prices[b]);
+            default:
+                return Integer.compare(ids[a], ids[b]);
+        }
+    }
+
+    /**
+     * Merge sort of slots.
+     */
+    private static void sortSlots(int[] slotArray, IntBinaryOperator comparator) {
+        mergeSort(slotArray, new int[slotArray.length], 0, slotArray.length, comparator);
+    }
+
+    private static void mergeSort(int[] a, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= 32) {
+            for (int i = from + 1; i < to; i++) {
+                int slot = a[i];
+                int j = i - 1;
+                while (j >= from && comparator.applyAsInt(a[j], slot) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = slot;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(a, buffer, from, middle, comparator);
+        mergeSort(a, buffer, middle, to, comparator);
+        if (comparator.applyAsInt(a[middle - 1], a[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, buffer, from, middle - from);
+        int left = from;
+        int right = middle;
+        int out = from;
+        while (left < middle && right < to) {
+            a[out++] = comparator.applyAsInt(buffer[left], a[right]) <= 0 ? buffer[left++] : a[right++];
+        }
+        while (left < middle) {
+            a[out++] = buffer[left++];
+        }
+    }
+
+    private static void reverse(int[] a, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int swap = a[i];
+            a[i] = a[j];
+            a[j] = swap;
+        }
+    }
+
+    private int newSlot(int id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == ids.length) {
+                int capacity = slotCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                stocks = Arrays.copyOf(stocks, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            slot = slotCount++;
+        }
+        ids[slot] = id;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private int[] liveSlots() {
+        boolean[] free = new boolean[slotCount];
+        for (int i = 0; i < freeCount; i++) {
+            free[freeSlots[i]] = true;
+        }
+        int[] live = new int[slotCount - freeCount];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!free[slot]) {
+                live[count++] = slot;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * The slots in ascending order of one key, then of ID, in blocks of at most BLOCK_SIZE slots.
+     */
+    private final class Order {
+
+        private final Key key;
+
+        private final List<Block> blocks = new ArrayList<>();
+
+        private Order(Key key) {
+            this.key = key;
+        }
+
+        private int compareSlots(int a, int b) {
+            int result = compareKey(key, a, b);
+            return result != 0 ? result : Integer.compare(ids[a], ids[b]);
+        }
+
+        /**
+         * Find the first block whose last slot is not before the given slot, or the last block.
+         */
+        private int blockOf(int slot) {
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                Block block = blocks.get(middle);
+                if (compareSlots(block.slots[block.size - 1], slot) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Find the position of a slot in a block, or where it would be inserted.
+         */
+        private int positionIn(Block block, int slot) {
+            int low = 0;
+            int high = block.size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compareSlots(block.slots[middle], slot) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void insert(int slot) {
+            if (blocks.isEmpty()) {
+                blocks.add(new Block());
+            }
+            int b = blockOf(slot);
+            Block block = blocks.get(b);
+            if (block.size == BLOCK_SIZE) {
+                Block upper = new Block();
+                int half = BLOCK_SIZE / 2;
+                System.arraycopy(block.slots, half, upper.slots, 0, BLOCK_SIZE - half);
+                upper.size = BLOCK_SIZE - half;
+                block.size = half;
+                blocks.add(b + 1, upper);
+                if (compareSlots(block.slots[half - 1], slot) < 0) {
+                    block = upper;
+                }
+            }
+            int position = positionIn(block, slot);
+            System.arraycopy(block.slots, position, block.slots, position + 1, block.size - position);
+            block.slots[position] = slot;
+            block.size++;
+        }
+
+        private void remove(int slot) {
+            if (blocks.isEmpty()) {
+                return;
+            }
+            int b = blockOf(slot);
+            Block block = blocks.get(b);
+            int position = positionIn(block, slot);
+            if (position == block.size || block.slots[position] != slot) {
+                return;
+            }
+            System.arraycopy(block.slots, position + 1, block.slots, position, block.size - position - 1);
+            if (--block.size == 0) {
+                blocks.remove(b);
+            }
+        }
+
+        /**
+         * Sort the given slots and lay them out in blocks three quarters full, leaving room for insertions.
+         */
+        private void rebuild(int[] live) {
+            int[] sorted = live.clone();
+            sortSlots(sorted, this::compareSlots);
+            blocks.clear();
+            int fill = BLOCK_SIZE * 3 / 4;
+            for (int from = 0; from < sorted.length; from += fill) {
+                Block block = new Block();
+                block.size = Math.min(fill, sorted.length - from);
+                System.arraycopy(sorted, from, block.slots, 0, block.size);
+                blocks.add(block);
+            }
+        }
+
+        /**
+         * Walk the order, keeping the slots of the wanted IDs, or all slots if wanted is null.
+         */
+        private int[] toSlots(IntHashSet wanted, boolean descending) {
+            int[] result = new int[wanted == null ? size() : Math.min(wanted.size(), size())];
+            int count = 0;
+            int blockCount = blocks.size();
+            for (int i = 0; i < blockCount; i++) {
+                Block block = blocks.get(descending ? blockCount - 1 - i : i);
+                for (int j = 0; j < block.size; j++) {
+                    int slot = block.slots[descending ? block.size - 1 - j : j];
+                    if (wanted == null || wanted.contains(ids[slot])) {
+                        result[count++] = slot;
+                    }
+                }
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        }
+
+        private int[] toIds(IntHashSet wanted, boolean descending) {
+            int[] result = toSlots(wanted, descending);
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ids[result[i]];
+            }
+            return result;
+        }
+    }
+
+    private static final class Block {
+
+        private final int[] slots = new int[BLOCK_SIZE];
+
+        private int size;
+    }
+}
@@ -0,0 +1,312 @@
+package myapp.inventorysystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Atomic stock movements for the parts or the products of the inventory: reserving units for later use,
+ * releasing or consuming what was reserved, and receiving new units, always within the minimum and maximum
+ * levels of the record.
+ * <p>
+ * The inventory level is the number of units on hand and the reserved count the number of those promised
+ * to someone; the difference is available. A reservation only succeeds if the available units less the
+ * reservation stay at or above the minimum, so consuming every reservation can never take the level below it.
+ * <p>
+ * Each ID maps to one of a fixed set of lock stripes, and a movement only holds the stripe of its ID, so
+ * threads moving stock of different records rarely wait for each other. Each stripe also owns the reserved
+ * counts of its IDs. Movements are atomic with respect to each other and to StockTransaction commits, but
+ * not to setStock calls made directly on the records. Reservations are only kept in memory.
+ * <p>
+ * New levels are passed on to the stockChanged callback after the stripe is released, so the thresholds, sort
+ * orders and journal it updates never hold up movements of other records. A movement only marks its record as
+ * changed; whichever thread finds no other passing changes on takes over every marked record and passes on its
+ * level as it is then. Calls therefore come from one thread at a time, the last call for a record always has
+ * its latest level, and a record moved several times in quick succession may be passed on once.
+ * <p>
+ * The thread passing changes on goes over the marked records at most HAND_OFF_ROUNDS times, so a steady stream
+ * of movements on other threads cannot keep it busy. A thread that finds its record still marked while another
+ * is passing changes on waits for it and then passes on what is left itself, so no record is left marked.
+ */
+public class StockLedger {
+
+    /**
+     * Number of lock stripes, a power of two.
+     */
+    static final int STRIPES = 256;
+
+    /**
+     * Number of times the thread passing changes on goes over the marked records before it leaves the rest to
+     * their own threads.
+     */
+    static final int HAND_OFF_ROUNDS = 4;
+
+    private static final AtomicInteger nextRank = new AtomicInteger();
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final IntFunction<? extends Stocked> lookup;
+
+    private final ObjIntConsumer<Stocked> stockChanged;
+
+    /**
+     * Records whose level changed and has not been passed on yet, by ID.
+     */
+    private final ConcurrentHashMap<Integer, Stocked> changed = new ConcurrentHashMap<>();
+
+    /**
+     * Held by the thread passing changes on.
+     */
+    private final ReentrantLock passingOn = new ReentrantLock();
+
+    /**
+     * Order of the ledger among all ledgers, so that transactions spanning several ledgers lock their
+     * stripes in the same order.
+     */
+    final int rank = nextRank.getAndIncrement();
+
+    /**
+     * Creates a ledger.
+     *
+     * @param lookup       Finds a record by ID, or returns null if there is none.
+     * @param stockChanged Called with a record and its inventory level after changes to it, once its stripe is
+     *                     released. Called by one thread at a time, with the latest level of the record.
+     */
+    public StockLedger(IntFunction<? extends Stocked> lookup, ObjIntConsumer<Stocked> stockChanged) {
+        this.lookup = lookup;
+        this.stockChanged = stockChanged;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Reserve units of a record, if enough are available above its minimum level.
+     *
+     * @param id       The ID of the record.
+     * @param quantity The number of units to reserve.
+     * @return True if the units were reserved, false if the record does not exist or too few are available.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     */
+    public boolean reserve(int id, int quantity) {
+        checkQuantity(quantity);
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            Stocked record = lookup.apply(id);
+            if (record == null) {
+                return false;
+            }
+            int reserved = stripe.reserved.get(id, 0);
+            if ((long) record.getStock() - reserved - quantity < record.getMin()) {
+                return false;
+            }
+            stripe.reserved.put(id, reserved + quantity);
+            return true;
+        }
+    }
+
+    /**
+     * Give back reserved units of a record without using them.
+     *
+     * @param id       The ID of the record.
+     * @param quantity The number of units to release.
+     * @return True if the units were released, false if fewer are reserved.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     */
+    public boolean release(int id, int quantity) {
+        checkQuantity(quantity);
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            int reserved = stripe.reserved.get(id, 0);
+            if (reserved < quantity) {
+                return false;
+            }
+            setReserved(stripe, id, reserved - quantity);
+            return true;
+        }
+    }
+
+    /**
+     * Use reserved units of a record, taking them out of its inventory level.
+     *
+     * @param id       The ID of the record.
+     * @param quantity The number of units to consume.
+     * @return True if the units were consumed, false if the record does not exist, fewer are reserved, or
+     * the level would fall below the minimum.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     */
+    public boolean consume(int id, int quantity) {
+        checkQuantity(quantity);
+        Stripe stripe = stripeOf(id);
+        Stocked record;
+        synchronized (stripe) {
+            record = lookup.apply(id);
+            int reserved = stripe.reserved.get(id, 0);
+            if (record == null || reserved < quantity || (long) record.getStock() - quantity < record.getMin()) {
+                return false;
+            }
+            record.setStock(record.getStock() - quantity);
+            setReserved(stripe, id, reserved - quantity);
+        }
+        changed(record);
+        return true;
+    }
+
+    /**
+     * Add units to the inventory level of a record, if it stays at or below the maximum.
+     *
+     * @param id       The ID of the record.
+     * @param quantity The number of units received.
+     * @return True if the units were added, false if the record does not exist or the level would exceed
+     * the maximum.
+     * @throws IllegalArgumentException If the quantity is not positive.
+     */
+    public boolean receive(int id, int quantity) {
+        checkQuantity(quantity);
+        Stripe stripe = stripeOf(id);
+        Stocked record;
+        synchronized (stripe) {
+            record = lookup.apply(id);
+            if (record == null || (long) record.getStock() + quantity > record.getMax()) {
+                return false;
+            }
+            record.setStock(record.getStock() + quantity);
+        }
+        changed(record);
+        return true;
+    }
+
+    /**
+     * Get the number of reserved units of a record.
+     *
+     * @param id The ID of the record.
+     * @return The reserved count.
+     */
+    public int getReserved(int id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            return stripe.reserved.get(id, 0);
+        }
+    }
+
+    /**
+     * Get the number of units of a record on hand and not reserved.
+     *
+     * @param id The ID of the record.
+     * @return The available count, or 0 if the record does not exist.
+     */
+    public int getAvailable(int id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            Stocked record = lookup.apply(id);
+            return record == null ? 0 : record.getStock() - stripe.reserved.get(id, 0);
+        }
+    }
+
+    /**
+     * Drop every reservation.
+     */
+    public void clearReservations() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.reserved.clear();
+            }
+        }
+    }
+
+    /**
+     * Get the index of the stripe an ID maps to.
+     */
+    int stripeIndex(int id) {
+        return IntObjectMap.mix(id) & (STRIPES - 1);
+    }
+
+    /**
+     * Get the monitor of a stripe, which must be held while its IDs are checked or adjusted.
+     */
+    Object stripeLock(int index) {
+        return stripes[index];
+    }
+
+    /**
+     * Check whether the inventory level of a record can change by a number of units: a decrease must leave
+     * the units that are not reserved at or above the minimum, and an increase must stay at or below the
+     * maximum. The caller holds the stripe of the ID.
+     *
+     * @return The record, or null if it does not exist or the change is out of bounds.
+     */
+    Stocked checkAdjustment(int id, int delta) {
+        Stocked record = lookup.apply(id);
+        if (record == null) {
+            return null;
+        }
+        long stock = (long) record.getStock() + delta;
+        if (delta < 0 ? stock - stripeOf(id).reserved.get(id, 0) < record.getMin() : stock > record.getMax()) {
+            return null;
+        }
+        return record;
+    }
+
+    /**
+     * Change the inventory level of a record that passed checkAdjustment. The caller holds its stripe, and
+     * calls changed once it has released it.
+     */
+    void applyAdjustment(Stocked record, int delta) {
+        record.setStock(record.getStock() + delta);
+    }
+
+    /**
+     * Mark a record whose inventory level changed, and pass on the marked records unless another thread is
+     * already doing so. The caller must not hold any stripe.
+     */
+    void changed(Stocked record) {
+        changed.put(record.getId(), record);
+        if (!passingOn.tryLock()) {
+            // The holder takes the record over unless it is still marked; then the holder may run out of rounds
+            // before reaching it, so wait for the holder and pass it on here.
+            if (!changed.containsKey(record.getId())) {
+                return;
+            }
+            passingOn.lock();
+        }
+        try {
+            for (int round = 0; round < HAND_OFF_ROUNDS && !changed.isEmpty(); round++) {
+                for (Stocked pending : changed.values().toArray(new Stocked[0])) {
+                    if (changed.remove(pending.getId(), pending)) {
+                        stockChanged.accept(pending, pending.getStock());
+                    }
+                }
+            }
+        } finally {
+            passingOn.unlock();
+        }
+    }
+
+    private Stripe stripeOf(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static void setReserved(Stripe stripe, int id, int reserved) {
+        if (reserved == 0) {
+            stripe.reserved.remove(id, 0);
+        } else {
+            stripe.reserved.put(id, reserved);
+        }
+    }
+
+    private static void checkQuantity(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("The quantity must be at least 1.");
+        }
+    }
+
+    /**
+     * A lock stripe and the reserved counts of the IDs that map to it. Guarded by its own monitor.
+     */
+    private static final class Stripe {
+
+        private final IntIntMap reserved = new IntIntMap();
+    }
+}
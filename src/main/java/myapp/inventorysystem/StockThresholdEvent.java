@@ -0,0 +1,100 @@
+package myapp.inventorysystem;
+
+/**
+ * Notice that the inventory level of a part or product crossed its minimum or maximum, sent by a
+ * StockThresholdMonitor.
+ */
+public class StockThresholdEvent {
+
+    private final int id;
+
+    private final StockThresholdMonitor.Level previousLevel;
+
+    private final StockThresholdMonitor.Level level;
+
+    private final int stock;
+
+    private final int min;
+
+    private final int max;
+
+    /**
+     * Creates an event.
+     *
+     * @param id            The ID of the record.
+     * @param previousLevel The level of the record before the change.
+     * @param level         The level of the record after the change.
+     * @param stock         The inventory level after the change.
+     * @param min           The minimum inventory level.
+     * @param max           The maximum inventory level.
+     */
+    public StockThresholdEvent(int id, StockThresholdMonitor.Level previousLevel, StockThresholdMonitor.Level level,
+                               int stock, int min, int max) {
+        this.id = id;
+        this.previousLevel = previousLevel;
+        this.level = level;
+        this.stock = stock;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Get the ID of the record.
+     *
+     * @return The ID.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the level of the record before the change.
+     *
+     * @return The previous level.
+     */
+    public StockThresholdMonitor.Level getPreviousLevel() {
+        return previousLevel;
+    }
+
+    /**
+     * Get the level of the record after the change.
+     *
+     * @return The level.
+     */
+    public StockThresholdMonitor.Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the inventory level after the change.
+     *
+     * @return The inventory level.
+     */
+    public int getStock() {
+        return stock;
+    }
+
+    /**
+     * Get the minimum inventory level.
+     *
+     * @return The minimum inventory level.
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Get the maximum inventory level.
+     *
+     * @return The maximum inventory level.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "StockThresholdEvent{id=" + id + ", " + previousLevel + " -> " + level + ", stock=" + stock
+                + ", min=" + min + ", max=" + max + "}";
+    }
+}
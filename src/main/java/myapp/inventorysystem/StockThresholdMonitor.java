@@ -0,0 +1,229 @@
+package myapp.inventorysystem;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Watches the inventory levels of the parts or the products against their minimum and maximum levels.
+ * The inventory tells the monitor about every record it adds, updates, deletes or moves stock of, and the
+ * monitor sends a StockThresholdEvent to its listeners whenever a record crosses a threshold.
+ * <p>
+ * Only records outside their bounds are kept, each in a set ordered by how far out it is, so listing the
+ * records below their minimum for reordering costs time in proportion to the number listed, not to the size
+ * of the inventory. All methods are synchronized on the monitor. Changes made by calling setStock, setMin or
+ * setMax directly on a record are only seen once the record is updated through the inventory.
+ */
+public class StockThresholdMonitor {
+
+    /**
+     * Where an inventory level is relative to the minimum and maximum.
+     */
+    public enum Level {
+        /**
+         * Below the minimum.
+         */
+        BELOW_MIN,
+        /**
+         * Between the minimum and the maximum, inclusive.
+         */
+        NORMAL,
+        /**
+         * Above the maximum.
+         */
+        ABOVE_MAX
+    }
+
+    private static final int[] NO_IDS = new int[0];
+
+    /**
+     * Farthest out first, then by ID.
+     */
+    private static final Comparator<Entry> BY_PRIORITY = (a, b) -> a.gap != b.gap
+            ? Long.compare(b.gap, a.gap) : Integer.compare(a.id, b.id);
+
+    /**
+     * From record ID to its entry, for records outside their bounds only.
+     */
+    private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+
+    private final TreeSet<Entry> belowMin = new TreeSet<>(BY_PRIORITY);
+
+    private final TreeSet<Entry> aboveMax = new TreeSet<>(BY_PRIORITY);
+
+    private final List<Consumer<StockThresholdEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Add a listener for threshold crossings. Listeners are called on the thread that passed the change on to
+     * the monitor, while the monitor is locked, so they must be quick and must not change the inventory; work for the
+     * JavaFX application thread should be handed over with Platform.runLater.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Consumer<StockThresholdEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener added with addListener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Consumer<StockThresholdEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Take note of the current levels of a record that was added or changed, sending an event if it
+     * crossed a threshold. A new record counts as having been within its bounds before.
+     *
+     * @param record The record.
+     */
+    public synchronized void update(Stocked record) {
+        int id = record.getId();
+        int stock = record.getStock();
+        int min = record.getMin();
+        int max = record.getMax();
+        Entry previous = entries.get(id);
+        Level previousLevel = previous == null ? Level.NORMAL : previous.level;
+        Entry entry = new Entry(id, stock, min, max);
+        if (previous != null) {
+            setOf(previous.level).remove(previous);
+        }
+        if (entry.level == Level.NORMAL) {
+            entries.remove(id);
+        } else {
+            entries.put(id, entry);
+            setOf(entry.level).add(entry);
+        }
+        if (entry.level != previousLevel) {
+            fire(new StockThresholdEvent(id, previousLevel, entry.level, stock, min, max));
+        }
+    }
+
+    /**
+     * Forget a record that was deleted, without sending an event.
+     *
+     * @param id The ID of the record.
+     */
+    public synchronized void remove(int id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            setOf(previous.level).remove(previous);
+        }
+    }
+
+    /**
+     * Forget every record, without sending events.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        belowMin.clear();
+        aboveMax.clear();
+    }
+
+    /**
+     * Get the level of a record as last noted.
+     *
+     * @param id The ID of the record.
+     * @return The level, NORMAL for records the monitor does not hold.
+     */
+    public synchronized Level getLevel(int id) {
+        Entry entry = entries.get(id);
+        return entry == null ? Level.NORMAL : entry.level;
+    }
+
+    /**
+     * Get the IDs of the records below their minimum level, those short of the most units first.
+     *
+     * @return The IDs, in order of priority.
+     */
+    public synchronized int[] getBelowMinimumIds() {
+        return idsOf(belowMin);
+    }
+
+    /**
+     * Get the IDs of the records above their maximum level, those over by the most units first.
+     *
+     * @return The IDs, in order of priority.
+     */
+    public synchronized int[] getAboveMaximumIds() {
+        return idsOf(aboveMax);
+    }
+
+    /**
+     * Get the number of records below their minimum level.
+     *
+     * @return The number of records.
+     */
+    public synchronized int getBelowMinimumCount() {
+        return belowMin.size();
+    }
+
+    /**
+     * Get the number of records above their maximum level.
+     *
+     * @return The number of records.
+     */
+    public synchronized int getAboveMaximumCount() {
+        return aboveMax.size();
+    }
+
+    private TreeSet<Entry> setOf(Level level) {
+        return level == Level.BELOW_MIN ? belowMin : aboveMax;
+    }
+
+    private static int[] idsOf(TreeSet<Entry> set) {
+        if (set.isEmpty()) {
+            return NO_IDS;
+        }
+        int[] ids = new int[set.size()];
+        int i = 0;
+        for (Entry entry : set) {
+            ids[i++] = entry.id;
+        }
+        return ids;
+    }
+
+    /**
+     * Send an event to every listener. A failing listener does not keep the others, or the change that
+     * caused the event, from going through.
+     */
+    private void fire(StockThresholdEvent event) {
+        for (Consumer<StockThresholdEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * The levels of a record outside its bounds, and how many units out it is.
+     */
+    private static final class Entry {
+
+        private final int id;
+
+        private final Level level;
+
+        private final long gap;
+
+        private Entry(int id, int stock, int min, int max) {
+            this.id = id;
+            if (stock < min) {
+                level = Level.BELOW_MIN;
+                gap = (long) min - stock;
+            } else if (stock > max) {
+                level = Level.ABOVE_MAX;
+                gap = (long) stock - max;
+            } else {
+                level = Level.NORMAL;
+                gap = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package myapp.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of changes to the inventory levels of parts and products that is applied as one unit: either every
+ * level changes or none does. Building a product, for example, takes its parts out of stock and adds the
+ * built units to the product's stock in one transaction, so concurrent builds of products sharing a part
+ * can never take the part below its minimum level.
+ * <p>
+ * Changes are collected with adjust and applied by commit. Commit locks the ledger stripes of every ID
+ * involved, always in the same order, then checks every new level against the minimum and maximum of its
+ * record, counting reserved units as taken, and only writes the levels if all of them pass. Transactions and
+ * single-record ledger movements therefore never deadlock and never see each other half applied. The new
+ * levels are passed on to the ledgers' stockChanged callbacks once the stripes are released.
+ * <p>
+ * A transaction is meant for one thread and can be committed once.
+ */
+public class StockTransaction {
+
+    private static final LongAdder commits = new LongAdder();
+
+    private static final LongAdder aborts = new LongAdder();
+
+    /**
+     * Changes by ledger, in the order the ledgers were first adjusted.
+     */
+    private final List<Changes> changes = new ArrayList<>(2);
+
+    private boolean committed;
+
+    /**
+     * Add a change to the inventory level of a record. Changes to the same record add up.
+     *
+     * @param ledger The ledger of the record, such as Inventory.getPartLedger().
+     * @param id     The ID of the record.
+     * @param delta  The number of units to add, or to take away if negative.
+     * @throws IllegalStateException If the transaction was already committed.
+     * @throws ArithmeticException   If the changes to the record add up to more than an int holds.
+     */
+    public void adjust(StockLedger ledger, int id, int delta) {
+        if (committed) {
+            throw new IllegalStateException("The transaction was already committed.");
+        }
+        changesOf(ledger).add(id, delta);
+    }
+
+    /**
+     * Apply every change, or none of them if any record does not exist or would leave its bounds.
+     *
+     * @return True if the changes were applied, false if the transaction was aborted.
+     * @throws IllegalStateException If the transaction was already committed.
+     */
+    public boolean commit() {
+        if (committed) {
+            throw new IllegalStateException("The transaction was already committed.");
+        }
+        committed = true;
+        changes.sort((a, b) -> Integer.compare(a.ledger.rank, b.ledger.rank));
+        List<Object> locks = new ArrayList<>();
+        for (Changes ledgerChanges : changes) {
+            ledgerChanges.addLocks(locks);
+        }
+        boolean applied = lockAndApply(locks, 0);
+        if (applied) {
+            for (Changes ledgerChanges : changes) {
+                ledgerChanges.passOn();
+            }
+        }
+        (applied ? commits : aborts).increment();
+        return applied;
+    }
+
+    /**
+     * Get the number of transactions committed so far, across all threads.
+     *
+     * @return The number of committed transactions.
+     */
+    public static long getCommitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * Get the number of transactions aborted so far, across all threads.
+     *
+     * @return The number of aborted transactions.
+     */
+    public static long getAbortCount() {
+        return aborts.sum();
+    }
+
+    /**
+     * Take the locks from the given one on, holding each while taking the next, and apply the changes once
+     * all are held.
+     */
+    private boolean lockAndApply(List<Object> locks, int index) {
+        if (index == locks.size()) {
+            return apply();
+        }
+        synchronized (locks.get(index)) {
+            return lockAndApply(locks, index + 1);
+        }
+    }
+
+    private boolean apply() {
+        for (Changes ledgerChanges : changes) {
+            if (!ledgerChanges.check()) {
+                return false;
+            }
+        }
+        for (Changes ledgerChanges : changes) {
+            ledgerChanges.apply();
+        }
+        return true;
+    }
+
+    private Changes changesOf(StockLedger ledger) {
+        for (Changes ledgerChanges : changes) {
+            if (ledgerChanges.ledger == ledger) {
+                return ledgerChanges;
+            }
+        }
+        Changes ledgerChanges = new Changes(ledger);
+        changes.add(ledgerChanges);
+        return ledgerChanges;
+    }
+
+    /**
+     * The changes to the records of one ledger, one entry per ID.
+     */
+    private static final class Changes {
+
+        private final StockLedger ledger;
+
+        /**
+         * From ID to entry.
+         */
+        private final IntIntMap entries = new IntIntMap();
+
+        private int[] ids = new int[8];
+
+        private int[] deltas = new int[8];
+
+        /**
+         * The records found by check, by entry.
+         */
+        private Stocked[] records;
+
+        private int size;
+
+        private Changes(StockLedger ledger) {
+            this.ledger = ledger;
+        }
+
+        private void add(int id, int delta) {
+            int entry = entries.get(id, -1);
+            if (entry >= 0) {
+                deltas[entry] = Math.addExact(deltas[entry], delta);
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                deltas = Arrays.copyOf(deltas, size * 2);
+            }
+            entries.put(id, size);
+            ids[size] = id;
+            deltas[size++] = delta;
+        }
+
+        /**
+         * Add the stripes of the IDs to the locks, in stripe order.
+         */
+        private void addLocks(List<Object> locks) {
+            boolean[] used = new boolean[StockLedger.STRIPES];
+            for (int entry = 0; entry < size; entry++) {
+                used[ledger.stripeIndex(ids[entry])] = true;
+            }
+            for (int stripe = 0; stripe < used.length; stripe++) {
+                if (used[stripe]) {
+                    locks.add(ledger.stripeLock(stripe));
+                }
+            }
+        }
+
+        private boolean check() {
+            records = new Stocked[size];
+            for (int entry = 0; entry < size; entry++) {
+                if (deltas[entry] != 0) {
+                    records[entry] = ledger.checkAdjustment(ids[entry], deltas[entry]);
+                    if (records[entry] == null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void apply() {
+            for (int entry = 0; entry < size; entry++) {
+                if (deltas[entry] != 0) {
+                    ledger.applyAdjustment(records[entry], deltas[entry]);
+                }
+            }
+        }
+
+        /**
+         * Tell the ledger about the applied changes, once its stripes are released.
+         */
+        private void passOn() {
+            for (int entry = 0; entry < size; entry++) {
+                if (deltas[entry] != 0) {
+                    ledger.changed(records[entry]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package myapp.inventorysystem;
+
+/**
+ * Something kept in stock between a minimum and a maximum level: a part or a product. Lets a StockLedger
+ * adjust parts and products alike.
+ */
+public interface Stocked {
+
+    /**
+     * Get the ID.
+     *
+     * @return The ID.
+     */
+    int getId();
+
+    /**
+     * Get the inventory level.
+     *
+     * @return The inventory level.
+     */
+    int getStock();
+
+    /**
+     * Set the inventory level.
+     *
+     * @param stock The inventory level to set.
+     */
+    void setStock(int stock);
+
+    /**
+     * Get the minimum inventory level.
+     *
+     * @return The minimum inventory level.
+     */
+    int getMin();
+
+    /**
+     * Get the maximum inventory level.
+     *
+     * @return The maximum inventory level.
+     */
+    int getMax();
+}
@@ -0,0 +1,205 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary encoding for the text columns of a ColumnarTable. Each distinct string is stored once and
+ * referred to by an int code, so ten thousand parts named "Bolt" or supplied by the same company share a
+ * single String. Codes are reference counted: a string is dropped, and its code reused, once no row
+ * refers to it any more.
+ * <p>
+ * Code 0 always stands for null. The dictionary is not thread-safe by itself; its table guards it.
+ */
+public class StringDictionary {
+
+    /**
+     * The code of null.
+     */
+    public static final int NULL_CODE = 0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Strings by code, with null for code 0 and for free codes.
+     */
+    private String[] strings = new String[INITIAL_CAPACITY];
+
+    /**
+     * Number of rows referring to each code.
+     */
+    private int[] refCounts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Codes that were released and can be handed out again.
+     */
+    private int[] freeCodes = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    /**
+     * Number of codes handed out so far, including code 0 and free codes.
+     */
+    private int codeCount = 1;
+
+    /**
+     * Hash table from string to code, with open addressing; 0 marks an empty slot since null is never hashed.
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+
+    /**
+     * Get the code of a string and count one more reference to it, adding it to the dictionary if needed.
+     *
+     * @param value The string, which may be null.
+     * @return The code of the string.
+     */
+    public int acquire(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != 0) {
+            int code = table[slot];
+            if (strings[code].equals(value)) {
+                refCounts[code]++;
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int code = newCode();
+        strings[code] = value;
+        refCounts[code] = 1;
+        table[slot] = code;
+        if (++size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return code;
+    }
+
+    /**
+     * Count one reference less to a code, dropping its string once nothing refers to it.
+     *
+     * @param code The code returned by acquire.
+     */
+    public void release(int code) {
+        if (code == NULL_CODE || --refCounts[code] > 0) {
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = hash(strings[code]) & mask;
+        while (table[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = 0;
+        closeGap(slot);
+        strings[code] = null;
+        size--;
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    /**
+     * Get the string of a code.
+     *
+     * @param code The code returned by acquire.
+     * @return The string, or null for the null code.
+     */
+    public String get(int code) {
+        return strings[code];
+    }
+
+    /**
+     * Get the number of codes handed out so far, which is greater than every code in use.
+     *
+     * @return The upper bound of the codes.
+     */
+    public int getCodeCount() {
+        return codeCount;
+    }
+
+    /**
+     * Get the number of distinct strings in the dictionary.
+     *
+     * @return The number of strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every string from the dictionary.
+     */
+    public void clear() {
+        Arrays.fill(strings, null);
+        Arrays.fill(table, 0);
+        freeCount = 0;
+        codeCount = 1;
+        size = 0;
+    }
+
+    /**
+     * Get the approximate number of bytes taken by the dictionary, counting each distinct string once.
+     *
+     * @return The approximate size of the dictionary in bytes.
+     */
+    public long getMemoryFootprint() {
+        long bytes = (long) strings.length * (Integer.BYTES * 3) + (long) table.length * Integer.BYTES;
+        for (int code = 1; code < codeCount; code++) {
+            if (strings[code] != null) {
+                // String header and fields, plus the byte array header and its Latin-1 contents.
+                bytes += 24 + 16 + strings[code].length();
+            }
+        }
+        return bytes;
+    }
+
+    private int newCode() {
+        if (freeCount > 0) {
+            return freeCodes[--freeCount];
+        }
+        if (codeCount == strings.length) {
+            strings = Arrays.copyOf(strings, codeCount * 2);
+            refCounts = Arrays.copyOf(refCounts, codeCount * 2);
+        }
+        return codeCount++;
+    }
+
+    /**
+     * Shift entries back after a removal so that no probe sequence is broken by the empty slot.
+     */
+    private void closeGap(int gap) {
+        int mask = table.length - 1;
+        int slot = (gap + 1) & mask;
+        while (table[slot] != 0) {
+            int home = hash(strings[table[slot]]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                table[slot] = 0;
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 1; code < codeCount; code++) {
+            if (strings[code] != null) {
+                int slot = hash(strings[code]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = code;
+            }
+        }
+    }
+
+    private static int hash(String value) {
+        return IntObjectMap.mix(value.hashCode());
+    }
+}
@@ -0,0 +1,378 @@
+package myapp.inventorysystem;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
+
+/**
+ * Inverted trigram index over the ID digits and lower-cased names of inventory items.
+ * A search for "plasma" only looks at items whose keys contain every trigram of the query
+ * ("pla", "las", "asm", "sma"), starting from the rarest one, so its cost follows the number
+ * of candidate items instead of the size of the catalog.
+ * <p>
+ * The index is updated incrementally through put and remove. Queries shorter than one trigram
+ * fall back to scanning the keys stored here, which are already lower-cased.
+ * <p>
+ * The first one, two and three characters of every key are indexed as well, anchored to the start
+ * of the key, so that a limited search can return prefix matches first and then fill up with
+ * substring matches without sorting or scanning the keys.
+ * <p>
+ * The index is not thread-safe by itself; RecordStore guards it with its read/write lock.
+ */
+public class SubstringIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Posting lists, from trigram or anchored prefix code to the IDs of the items whose keys contain
+     * the trigram or start with the prefix. Characters below 1024 are packed into a unique code; other
+     * trigrams and prefixes are hashed, and the rare collisions only add candidates that fail verification.
+     */
+    private final IntObjectMap<IntHashSet> postings = new IntObjectMap<>();
+
+    /**
+     * Keys indexed for each item ID, kept so they can be unindexed and used to verify candidates.
+     */
+    private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+
+    /**
+     * Posting lists returned for a query whose trigrams or prefix are not indexed at all.
+     */
+    private static final IntHashSet[] NO_CANDIDATES = {new IntHashSet(0)};
+
+    /**
+     * Index an item under its ID digits and name, replacing whatever was indexed for that ID before.
+     *
+     * @param id   The ID of the item.
+     * @param name The name of the item.
+     */
+    public void put(int id, String name) {
+        Entry entry = new Entry(id, String.valueOf(id), normalize(name));
+        Entry previous = entries.put(id, entry);
+        if (previous != null) {
+            if (previous.name.equals(entry.name)) {
+                return;
+            }
+            unindex(previous);
+        }
+        index(entry);
+    }
+
+    /**
+     * Remove an item from the index.
+     *
+     * @param id The ID of the item.
+     */
+    public void remove(int id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * Get the number of indexed items.
+     *
+     * @return The number of items.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove every item from the index.
+     */
+    public void clear() {
+        postings.clear();
+        entries.clear();
+    }
+
+    /**
+     * Find the items whose ID digits or name contain the search text, ignoring case.
+     * An empty search text matches every item.
+     *
+     * @param searchText The search text.
+     * @return The IDs of the matching items, in ascending order.
+     */
+    public int[] search(String searchText) {
+        String query = normalize(searchText);
+        int[] matches;
+        if (query.length() < GRAM_LENGTH) {
+            matches = scan(query);
+        } else {
+            matches = lookup(query);
+        }
+        Arrays.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Find at most limit items whose ID digits or name contain the search text, ignoring case.
+     * Items whose ID or name starts with the search text come first, followed by the other
+     * substring matches. The work done is bounded by the limit and the posting lists of the
+     * query, not by the number of indexed items.
+     *
+     * @param searchText The search text.
+     * @param limit      The maximum number of IDs to return.
+     * @return The IDs of the matching items, best matches first.
+     */
+    public int[] search(String searchText, int limit) {
+        String query = normalize(searchText);
+        IntHashSet found = new IntHashSet(Math.min(limit, 1024));
+        int[] matches = new int[Math.min(limit, entries.size())];
+
+        int count = collect(prefixLists(query), entry -> entry.startsWith(query), matches, 0, found);
+        if (count < matches.length) {
+            IntHashSet[] lists = query.length() < GRAM_LENGTH ? null : postingLists(query);
+            count = collect(lists, entry -> entry.matches(query), matches, count, found);
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Append the candidates accepted by the test that are not already in found until matches is full.
+     * Candidates are the IDs present in every posting list, or every item if lists is null.
+     */
+    private int collect(IntHashSet[] lists, Predicate<Entry> test, int[] matches, int count, IntHashSet found) {
+        int[] next = {count};
+        if (next[0] == matches.length) {
+            return next[0];
+        }
+        if (lists == null) {
+            entries.forEachValueWhile(entry -> {
+                checkCancelled();
+                if (test.test(entry) && found.add(entry.id)) {
+                    matches[next[0]++] = entry.id;
+                }
+                return next[0] < matches.length;
+            });
+            return next[0];
+        }
+        lists[0].forEachWhile(candidate -> {
+            checkCancelled();
+            if (containsAll(lists, candidate) && test.test(entries.get(candidate)) && found.add(candidate)) {
+                matches[next[0]++] = candidate;
+            }
+            return next[0] < matches.length;
+        });
+        return next[0];
+    }
+
+    /**
+     * Get the posting lists that every key starting with the query is in, smallest first: the anchored
+     * prefix of the query, plus its trigrams if it is longer than one trigram.
+     *
+     * @return The posting lists, or null for an empty query, which every key starts with.
+     */
+    private IntHashSet[] prefixLists(String query) {
+        if (query.isEmpty()) {
+            return null;
+        }
+        IntHashSet prefixIds = postings.get(prefix(query, Math.min(query.length(), GRAM_LENGTH)));
+        if (prefixIds == null) {
+            return NO_CANDIDATES;
+        }
+        if (query.length() <= GRAM_LENGTH) {
+            return new IntHashSet[] {prefixIds};
+        }
+        IntHashSet[] gramLists = postingLists(query);
+        IntHashSet[] lists = Arrays.copyOf(gramLists, gramLists.length + 1);
+        lists[gramLists.length] = prefixIds;
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        return lists;
+    }
+
+    /**
+     * Get the posting lists of every trigram of a query, smallest first.
+     *
+     * @return The posting lists, or NO_CANDIDATES if some trigram is not indexed at all.
+     */
+    private IntHashSet[] postingLists(String query) {
+        int[] grams = grams(query);
+        IntHashSet[] lists = new IntHashSet[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return NO_CANDIDATES;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        return lists;
+    }
+
+    /**
+     * Answer a query of at least one trigram by intersecting posting lists.
+     */
+    private int[] lookup(String query) {
+        IntHashSet[] lists = postingLists(query);
+        int[] candidates = lists[0].toArray();
+        int count = 0;
+        for (int candidate : candidates) {
+            checkCancelled();
+            if (containsAll(lists, candidate) && entries.get(candidate).matches(query)) {
+                candidates[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Answer a query too short to have a trigram by checking each stored key.
+     */
+    private int[] scan(String query) {
+        IntHashSet found = new IntHashSet(entries.size());
+        entries.forEachValue(entry -> {
+            checkCancelled();
+            if (entry.matches(query)) {
+                found.add(entry.id);
+            }
+        });
+        return found.toArray();
+    }
+
+    private static boolean containsAll(IntHashSet[] lists, int id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(Entry entry) {
+        addPostings(entry.idText, entry.id);
+        addPostings(entry.name, entry.id);
+    }
+
+    private void unindex(Entry entry) {
+        removePostings(entry.idText, entry.id);
+        removePostings(entry.name, entry.id);
+    }
+
+    private void addPostings(String key, int id) {
+        for (int length = 1; length <= Math.min(key.length(), GRAM_LENGTH); length++) {
+            addPosting(prefix(key, length), id);
+        }
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            addPosting(gram(key, i), id);
+        }
+    }
+
+    private void addPosting(int code, int id) {
+        IntHashSet ids = postings.get(code);
+        if (ids == null) {
+            ids = new IntHashSet();
+            postings.put(code, ids);
+        }
+        ids.add(id);
+    }
+
+    private void removePostings(String key, int id) {
+        for (int length = 1; length <= Math.min(key.length(), GRAM_LENGTH); length++) {
+            removePosting(prefix(key, length), id);
+        }
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            removePosting(gram(key, i), id);
+        }
+    }
+
+    private void removePosting(int code, int id) {
+        IntHashSet ids = postings.get(code);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(code);
+        }
+    }
+
+    /**
+     * Get the codes of the overlapping trigrams of a key.
+     */
+    private static int[] grams(String key) {
+        int count = Math.max(key.length() - GRAM_LENGTH + 1, 0);
+        int[] grams = new int[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = gram(key, i);
+        }
+        return grams;
+    }
+
+    /**
+     * Get the code of the trigram starting at the given position. Three characters below 1024
+     * are packed into 30 bits; anything else is hashed into the range with the top bit set.
+     */
+    private static int gram(String key, int start) {
+        char a = key.charAt(start);
+        char b = key.charAt(start + 1);
+        char c = key.charAt(start + 2);
+        if ((a | b | c) < 1024) {
+            return (a << 20) | (b << 10) | c;
+        }
+        return 0x80000000 | ((a * 31 + b) * 31 + c);
+    }
+
+    /**
+     * Get the code of the first one to three characters of a key. Packed prefixes are padded with
+     * zeros and get bit 30 set, which packed trigrams never have; anything else is hashed.
+     */
+    private static int prefix(String key, int length) {
+        char a = key.charAt(0);
+        char b = length > 1 ? key.charAt(1) : 0;
+        char c = length > 2 ? key.charAt(2) : 0;
+        if ((a | b | c) < 1024) {
+            return 0x40000000 | (a << 20) | (b << 10) | c;
+        }
+        return 0xC0000000 | ((a * 31 + b) * 31 + c + length);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Stop a search whose thread has been interrupted, as BackgroundSearch does to a query that a newer one
+     * replaced. Called as the search goes through its candidates.
+     *
+     * @throws CancellationException If the current thread is interrupted.
+     */
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The search was cancelled.");
+        }
+    }
+
+    /**
+     * Check whether the digits of an ID contain a normalized query, without formatting the ID when the
+     * query is not all digits.
+     */
+    static boolean idContains(int id, String query) {
+        for (int i = 0; i < query.length(); i++) {
+            if (query.charAt(i) < '0' || query.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return Integer.toString(id).contains(query);
+    }
+
+    /**
+     * The keys indexed for one item.
+     */
+    private static final class Entry {
+        private final int id;
+        private final String idText;
+        private final String name;
+
+        private Entry(int id, String idText, String name) {
+            this.id = id;
+            this.idText = idText;
+            this.name = name;
+        }
+
+        private boolean startsWith(String query) {
+            return idText.startsWith(query) || name.startsWith(query);
+        }
+
+        private boolean matches(String query) {
+            return idText.contains(query) || name.contains(query);
+        }
+    }
+}
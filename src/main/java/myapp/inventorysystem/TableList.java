@@ -0,0 +1,215 @@
+package myapp.inventorysystem;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * ObservableList of the records of a TableRecordMap that holds only their IDs. Each get creates a view
+ * of the record, so the list costs a few bytes per record however many records it lists.
+ * <p>
+ * The slots hold record IDs and a hash map finds the slot of an ID; BatchedList turns slots into list
+ * indexes and back in O(log n). Records are compared by ID, so any view of a record finds it in the list.
+ * The list is read-only to everyone else: it is only modified by its ListChangeBatcher and RecordStore.
+ *
+ * @param <T> The type of the records.
+ */
+public class TableList<T> extends BatchedList<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Slot content of a tombstone. Record IDs are positive, so it never clashes with one.
+     */
+    private static final int TOMBSTONE = Integer.MIN_VALUE;
+
+    private final TableRecordMap<T> records;
+
+    private final ToIntFunction<? super T> idOf;
+
+    /**
+     * Record IDs by slot.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY];
+
+    /**
+     * From record ID to slot.
+     */
+    private final IntIntMap positions = new IntIntMap();
+
+    /**
+     * Creates an empty list.
+     *
+     * @param records The records the listed IDs refer to.
+     * @param idOf    Extracts the ID of a record.
+     */
+    public TableList(TableRecordMap<T> records, ToIntFunction<? super T> idOf) {
+        this.records = records;
+        this.idOf = idOf;
+        rebuildLiveCounts(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return records.view(slots[slotOf(index)]);
+    }
+
+    @Override
+    public int indexOf(Object record) {
+        if (!(record instanceof RecordView) || ((RecordView) record).getTable() != records.getTable()) {
+            return -1;
+        }
+        int slot = positions.get(((RecordView) record).getId(), -1);
+        return slot < 0 ? -1 : liveBefore(slot);
+    }
+
+    @Override
+    public boolean contains(Object record) {
+        return indexOf(record) >= 0;
+    }
+
+    @Override
+    void append(T record) {
+        int id = idOf.applyAsInt(record);
+        if (positions.containsKey(id)) {
+            return;
+        }
+        place(id);
+        reportAdd(size - 1, size);
+    }
+
+    @Override
+    void appendAll(Collection<? extends T> newRecords) {
+        int from = size;
+        ensureCapacity(slotCount + newRecords.size());
+        for (T record : newRecords) {
+            int id = idOf.applyAsInt(record);
+            if (!positions.containsKey(id)) {
+                place(id);
+            }
+        }
+        if (size > from) {
+            reportAdd(from, size);
+        }
+    }
+
+    @Override
+    boolean removeRecord(T record) {
+        int slot = positions.remove(idOf.applyAsInt(record), -1);
+        if (slot < 0) {
+            return false;
+        }
+        int index = liveBefore(slot);
+        slots[slot] = TOMBSTONE;
+        addLive(slot, -1);
+        size--;
+        reportRemove(index, record);
+        if (needsCompaction()) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    boolean replaceRecord(T oldRecord, T newRecord) {
+        int slot = positions.get(idOf.applyAsInt(oldRecord), -1);
+        if (slot < 0) {
+            return false;
+        }
+        replaceSlot(slot, liveBefore(slot), newRecord);
+        return true;
+    }
+
+    @Override
+    T replaceAt(int index, T record) {
+        Objects.checkIndex(index, size);
+        return replaceSlot(slotOf(index), index, record);
+    }
+
+    /**
+     * Put a record's ID in a slot. The change is reported even for the same ID, since the record's
+     * fields are what changed.
+     */
+    private T replaceSlot(int slot, int index, T record) {
+        int replacedId = slots[slot];
+        int id = idOf.applyAsInt(record);
+        if (id != replacedId) {
+            positions.remove(replacedId, -1);
+            slots[slot] = id;
+            positions.put(id, slot);
+        }
+        T replaced = records.view(replacedId);
+        reportSet(index, replaced);
+        return replaced;
+    }
+
+    @Override
+    protected List<T> snapshot() {
+        int[] ids = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != TOMBSTONE) {
+                ids[count++] = slots[slot];
+            }
+        }
+        // Observers rarely look at the removed records, so their views are only created on demand.
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return records.view(ids[index]);
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+
+    @Override
+    protected boolean isLive(int slot) {
+        return slots[slot] != TOMBSTONE;
+    }
+
+    /**
+     * Put an ID in a new slot at the end.
+     */
+    private void place(int id) {
+        ensureCapacity(slotCount + 1);
+        slots[slotCount] = id;
+        positions.put(id, slotCount);
+        addLive(slotCount, 1);
+        slotCount++;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            slots = Arrays.copyOf(slots, IntObjectMap.tableSizeFor(capacity));
+            rebuildLiveCounts(slots.length);
+        }
+    }
+
+    /**
+     * Move the live IDs to the front of the slots, dropping the tombstones.
+     */
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int id = slots[slot];
+            if (id != TOMBSTONE) {
+                if (slot != live) {
+                    slots[live] = id;
+                    positions.put(id, live);
+                }
+                live++;
+            }
+        }
+        slotCount = live;
+        rebuildLiveCounts(slots.length);
+    }
+}
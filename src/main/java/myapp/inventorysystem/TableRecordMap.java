@@ -0,0 +1,161 @@
+package myapp.inventorysystem;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * RecordMap that keeps the fields of its records in a RecordTable rather than holding the records.
+ * Storing a record copies its fields into the table; the records handed out are views of the table
+ * (InHouseView, OutSourcedView or ProductView), created when asked for and not retained, so the memory
+ * taken per record is only what the table takes.
+ *
+ * @param <T> The type of the records.
+ */
+public abstract class TableRecordMap<T> implements RecordMap<T> {
+
+    protected final RecordTable table;
+
+    /**
+     * Creates a record map over a table.
+     *
+     * @param table The table to keep the records in.
+     */
+    protected TableRecordMap(RecordTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Creates a record map keeping parts in a table.
+     *
+     * @param table The table to keep the parts in.
+     * @return The record map.
+     */
+    public static TableRecordMap<Part> forParts(RecordTable table) {
+        return new TableRecordMap<>(table) {
+            @Override
+            public Part view(int id) {
+                if (table.getKind(id) == RecordCodec.OUT_SOURCED) {
+                    return new OutSourcedView(table, id);
+                }
+                return new InHouseView(table, id);
+            }
+
+            @Override
+            protected void write(int id, Part part) {
+                String companyName = part instanceof OutSourced ? ((OutSourced) part).getCompanyName() : null;
+                int machineId = part instanceof InHouse ? ((InHouse) part).getMachineId() : 0;
+                table.put(id, part instanceof InHouse ? RecordCodec.IN_HOUSE : RecordCodec.OUT_SOURCED,
+                        part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax());
+                if (part instanceof InHouse) {
+                    table.setMachineId(id, machineId);
+                } else {
+                    table.setCompanyName(id, companyName);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a record map keeping products in a table.
+     *
+     * @param table The table to keep the products in.
+     * @return The record map.
+     */
+    public static TableRecordMap<Product> forProducts(RecordTable table) {
+        return new TableRecordMap<>(table) {
+            @Override
+            public Product view(int id) {
+                return new ProductView(table, id);
+            }
+
+            @Override
+            protected void write(int id, Product product) {
+                int[] partIds = product.getAssociatedPartIds();
+                int[] quantities = product.getAssociatedPartQuantities();
+                int[] subAssemblyIds = product.getSubAssemblyIds();
+                int[] subAssemblyQuantities = product.getSubAssemblyQuantities();
+                table.put(id, RecordTable.PRODUCT, product.getName(), product.getPrice(), product.getStock(),
+                        product.getMin(), product.getMax());
+                table.setPartIds(id, partIds, RecordCodec.allOnes(quantities) ? null : quantities);
+                if (subAssemblyIds.length > 0) {
+                    table.setSubAssemblies(id, subAssemblyIds, subAssemblyQuantities);
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the table the records are kept in.
+     *
+     * @return The table.
+     */
+    public RecordTable getTable() {
+        return table;
+    }
+
+    /**
+     * Create a view of a record, whether or not the record is in the table.
+     *
+     * @param id The ID of the record.
+     * @return A view of the record.
+     */
+    public abstract T view(int id);
+
+    /**
+     * Copy the fields of a record into the table, replacing the record with the same ID.
+     * The fields are read before anything is written, since the record may be a view of the same row.
+     *
+     * @param id     The ID of the record.
+     * @param record The record.
+     */
+    protected abstract void write(int id, T record);
+
+    @Override
+    public T get(int id) {
+        return table.contains(id) ? view(id) : null;
+    }
+
+    @Override
+    public T put(int id, T record) {
+        T previous = get(id);
+        write(id, record);
+        return previous;
+    }
+
+    @Override
+    public T remove(int id) {
+        T previous = get(id);
+        table.remove(id);
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public void forEachValue(Consumer<? super T> action) {
+        table.forEachIdWhile(id -> {
+            action.accept(view(id));
+            return true;
+        });
+    }
+
+    @Override
+    public boolean forEachValueWhile(Predicate<? super T> action) {
+        return table.forEachIdWhile(id -> action.test(view(id)));
+    }
+
+    /**
+     * Match the records in the table itself, without creating views.
+     */
+    @Override
+    public boolean forEachMatchWhile(String query, ToIntFunction<? super T> idOf,
+                                     Function<? super T, String> nameOf, IntPredicate action) {
+        return table.forEachMatchWhile(query, action);
+    }
+}
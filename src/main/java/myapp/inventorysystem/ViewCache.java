@@ -0,0 +1,183 @@
+package myapp.inventorysystem;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cache of the application's views, so that switching screens does not parse the FXML and build a new
+ * controller every time. Each view is loaded once, together with its scene and controller, and handed out
+ * again on later navigations; controllers implementing ReusableController are reset before their view is
+ * shown again.
+ * <p>
+ * The main view stays in the main window for the life of the application, and the editors open over it as
+ * modal dialogs, so going back to the main view costs nothing and its tables keep their scroll position,
+ * sort order and selection.
+ * <p>
+ * The editor views can be loaded ahead of time with preload. Their controllers bind to the inventory
+ * lists, which belong to the JavaFX application thread, so views are loaded on that thread, one per pulse,
+ * while the main window is idle. The cache must only be used on the JavaFX application thread.
+ */
+public class ViewCache {
+
+    /**
+     * The views of the application.
+     */
+    public enum View {
+        MAIN("main-view.fxml"),
+        ADD_PART("AddPartView.fxml"),
+        MODIFY_PART("ModifyPartView.fxml"),
+        ADD_PRODUCT("AddProductView.fxml"),
+        MODIFY_PRODUCT("ModifyProductView.fxml");
+
+        private final String fxml;
+
+        View(String fxml) {
+            this.fxml = fxml;
+        }
+    }
+
+    private static final Map<View, LoadedView> views = new EnumMap<>(View.class);
+
+    /**
+     * Get a view to show, loading it the first time. A view shown before is reset first. If the view is
+     * still showing in a window, as when two editors are open at once, a separate copy is loaded for this
+     * use and not cached. The main view is never copied.
+     *
+     * @param view The view.
+     * @return The view, with its scene and controller.
+     * @throws IOException If the FXML cannot be loaded.
+     */
+    public static LoadedView get(View view) throws IOException {
+        LoadedView loaded = views.get(view);
+        if (loaded == null) {
+            loaded = load(view);
+            views.put(view, loaded);
+        } else if (view != View.MAIN && isShowing(loaded.scene)) {
+            return load(view);
+        } else if (loaded.shown && loaded.controller instanceof ReusableController) {
+            ((ReusableController) loaded.controller).reset();
+        }
+        loaded.shown = true;
+        return loaded;
+    }
+
+    /**
+     * Load every view that is not cached yet, one per pulse, after the current pulse. Failures are
+     * reported and left for get to retry.
+     */
+    public static void preload() {
+        for (View view : View.values()) {
+            Platform.runLater(() -> {
+                if (!views.containsKey(view)) {
+                    try {
+                        views.put(view, load(view));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Show a view as a modal dialog over a window. The stage the view was last shown in is reused when it
+     * belongs to the same window.
+     *
+     * @param view  The view, as returned by get.
+     * @param owner The window the dialog belongs to, which is blocked while the dialog is open.
+     * @param title The title of the dialog.
+     * @return The stage showing the dialog.
+     */
+    public static Stage showDialog(LoadedView view, Window owner, String title) {
+        Stage stage;
+        if (view.scene.getWindow() instanceof Stage && ((Stage) view.scene.getWindow()).getOwner() == owner) {
+            stage = (Stage) view.scene.getWindow();
+        } else {
+            stage = new Stage();
+            stage.initOwner(owner);
+            stage.initModality(Modality.WINDOW_MODAL);
+            stage.setScene(view.scene);
+        }
+        stage.setTitle(title);
+        stage.show();
+        return stage;
+    }
+
+    /**
+     * Go back to the main view from an editor. An editor shown as a dialog is closed, since the main view is
+     * still showing in the main window; otherwise the stage switches back to the main view.
+     *
+     * @param stage The stage showing the editor.
+     * @return The controller of the main view.
+     * @throws IOException If the main view cannot be loaded.
+     */
+    public static MainController showMainView(Stage stage) throws IOException {
+        LoadedView main = get(View.MAIN);
+        Window mainWindow = main.scene.getWindow();
+        if (mainWindow != null && mainWindow != stage && mainWindow.isShowing()) {
+            stage.close();
+        } else {
+            stage.setScene(main.scene);
+            stage.show();
+        }
+        return main.getController();
+    }
+
+    private static boolean isShowing(Scene scene) {
+        return scene.getWindow() != null && scene.getWindow().isShowing();
+    }
+
+    private static LoadedView load(View view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource(view.fxml));
+        Scene scene = new Scene(loader.load());
+        return new LoadedView(scene, loader.getController());
+    }
+
+    /**
+     * A loaded view: its scene and its controller.
+     */
+    public static final class LoadedView {
+
+        private final Scene scene;
+
+        private final Object controller;
+
+        /**
+         * Whether the view has been handed out, so that it needs a reset before being handed out again.
+         */
+        private boolean shown;
+
+        private LoadedView(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+
+        /**
+         * Get the scene of the view.
+         *
+         * @return The scene.
+         */
+        public Scene getScene() {
+            return scene;
+        }
+
+        /**
+         * Get the controller of the view.
+         *
+         * @param <T> The type of the controller.
+         * @return The controller.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getController() {
+            return (T) controller;
+        }
+    }
+}
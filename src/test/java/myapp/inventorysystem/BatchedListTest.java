@@ -0,0 +1,140 @@
+package myapp.inventorysystem;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for BatchedList, through a RecordList changed by its ListChangeBatcher. The JavaFX toolkit is not
+ * started, so the batcher applies every change straight away and each call is one list change.
+ */
+public class BatchedListTest {
+
+    private RecordList<String> list;
+
+    private ListChangeBatcher<String> batcher;
+
+    /**
+     * The list changes received, as text such as "add 0-2", "remove 1 [b]", "set 0 [a]" or "update 3".
+     */
+    private List<String> changes;
+
+    @BeforeEach
+    public void setUp() {
+        list = new RecordList<>();
+        batcher = new ListChangeBatcher<>(list);
+        changes = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                if (change.wasReplaced()) {
+                    changes.add("set " + change.getFrom() + " " + change.getRemoved());
+                } else if (change.wasAdded()) {
+                    changes.add("add " + change.getFrom() + "-" + change.getTo());
+                } else if (change.wasRemoved()) {
+                    changes.add("remove " + change.getFrom() + " " + change.getRemoved());
+                } else if (change.wasUpdated()) {
+                    changes.add("update " + change.getFrom());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void reportsEachChangeAtItsPosition() {
+        batcher.addAll(List.of("a", "b", "c"));
+        batcher.add("d");
+        batcher.remove("b");
+        batcher.replace("c", "C");
+        batcher.update("d");
+
+        assertEquals(List.of("a", "C", "d"), list);
+        assertEquals(List.of("add 0-3", "add 3-4", "remove 1 [b]", "set 1 [c]", "update 2"), changes);
+    }
+
+    @Test
+    public void ignoresRecordsAlreadyInTheList() {
+        batcher.addAll(List.of("a", "b"));
+        batcher.add("a");
+        batcher.addAll(List.of("b", "c"));
+
+        assertEquals(List.of("a", "b", "c"), list);
+        assertEquals(List.of("add 0-2", "add 2-3"), changes);
+    }
+
+    @Test
+    public void replacingAMissingRecordAddsTheReplacement() {
+        batcher.add("a");
+
+        batcher.replace("x", "b");
+        batcher.remove("x");
+
+        assertEquals(List.of("a", "b"), list);
+        assertEquals(List.of("add 0-1", "add 1-2"), changes);
+    }
+
+    @Test
+    public void reportsALargeBatchAsAReplacementOfTheWholeList() {
+        batcher.addAll(List.of("a", "b"));
+        List<String> more = new ArrayList<>();
+        for (int i = 0; i <= ListChangeBatcher.PRECISE_CHANGE_LIMIT; i++) {
+            more.add("r" + i);
+        }
+
+        batcher.addAll(more);
+
+        assertEquals(more.size() + 2, list.size());
+        assertEquals("set 0 [a, b]", changes.get(1));
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    public void replaceAtKeepsThePosition() {
+        batcher.addAll(List.of("a", "b", "c"));
+
+        assertSame("b", list.replaceAt(1, "B"));
+
+        assertEquals(List.of("a", "B", "c"), list);
+        assertFalse(list.contains("b"));
+        assertEquals(1, list.indexOf("B"));
+        assertEquals("set 1 [b]", changes.get(1));
+    }
+
+    @Test
+    public void matchesAnArrayListThroughRemovalsAndCompaction() {
+        Random random = new Random(7);
+        List<String> expected = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            added.add("r" + i);
+        }
+        batcher.addAll(added);
+        expected.addAll(added);
+
+        String removed = null;
+        for (int i = 0; i < 4_500; i++) {
+            removed = expected.remove(random.nextInt(expected.size()));
+            batcher.remove(removed);
+            if (i % 10 == 0) {
+                String replaced = expected.get(random.nextInt(expected.size()));
+                String replacement = replaced + "'";
+                expected.set(expected.indexOf(replaced), replacement);
+                batcher.replace(replaced, replacement);
+            }
+        }
+
+        assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, list.indexOf(expected.get(i)));
+        }
+        assertFalse(list.contains(removed));
+        assertEquals(-1, list.indexOf(removed));
+    }
+}
@@ -0,0 +1,110 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for IntHashSet.
+ */
+public class IntHashSetTest {
+
+    @Test
+    public void addReportsWhetherTheValueIsNew() {
+        IntHashSet set = new IntHashSet();
+
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(6));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void holdsTheValueUsedToMarkFreeSlots() {
+        IntHashSet set = new IntHashSet();
+
+        assertFalse(set.contains(Integer.MIN_VALUE));
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertFalse(set.add(Integer.MIN_VALUE));
+        set.add(0);
+
+        assertTrue(set.contains(Integer.MIN_VALUE));
+        assertEquals(2, set.size());
+        int[] members = set.toArray();
+        Arrays.sort(members);
+        assertArrayEquals(new int[] {Integer.MIN_VALUE, 0}, members);
+
+        assertTrue(set.remove(Integer.MIN_VALUE));
+        assertFalse(set.remove(Integer.MIN_VALUE));
+        assertFalse(set.contains(Integer.MIN_VALUE));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void keepsEveryMemberReachableThroughGrowthAndRemovals() {
+        IntHashSet set = new IntHashSet(2);
+        for (int value = -5_000; value < 5_000; value++) {
+            set.add(value * 17);
+        }
+        for (int value = -5_000; value < 5_000; value += 3) {
+            assertTrue(set.remove(value * 17));
+        }
+
+        int expected = 0;
+        for (int value = -5_000; value < 5_000; value++) {
+            boolean removed = (value + 5_000) % 3 == 0;
+            assertEquals(!removed, set.contains(value * 17));
+            if (!removed) {
+                expected++;
+            }
+        }
+        assertEquals(expected, set.size());
+        assertEquals(expected, set.toArray().length);
+    }
+
+    @Test
+    public void forEachVisitsEveryMemberOnce() {
+        IntHashSet set = new IntHashSet();
+        for (int value = 1; value <= 100; value++) {
+            set.add(value);
+        }
+
+        long[] sum = {0};
+        set.forEach(value -> sum[0] += value);
+
+        assertEquals(5050L, sum[0]);
+    }
+
+    @Test
+    public void forEachWhileStopsWhenTheActionReturnsFalse() {
+        IntHashSet set = new IntHashSet();
+        for (int value = 0; value < 10; value++) {
+            set.add(value);
+        }
+
+        int[] visited = {0};
+        assertFalse(set.forEachWhile(value -> ++visited[0] < 4));
+        assertEquals(4, visited[0]);
+        assertTrue(set.forEachWhile(value -> true));
+    }
+
+    @Test
+    public void clearEmptiesTheSet() {
+        IntHashSet set = new IntHashSet();
+        set.add(1);
+        set.add(Integer.MIN_VALUE);
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(Integer.MIN_VALUE));
+    }
+}
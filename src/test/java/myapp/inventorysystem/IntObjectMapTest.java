@@ -0,0 +1,119 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for IntObjectMap.
+ */
+public class IntObjectMapTest {
+
+    @Test
+    public void putReplacesAndReturnsThePreviousValue() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertNull(map.put(7, "seven"));
+        assertEquals("seven", map.put(7, "SEVEN"));
+
+        assertEquals("SEVEN", map.get(7));
+        assertEquals(1, map.size());
+        assertNull(map.get(8));
+        assertFalse(map.containsKey(8));
+    }
+
+    @Test
+    public void holdsZeroNegativeAndExtremeKeys() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        int[] keys = {0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int key : keys) {
+            map.put(key, "v" + key);
+        }
+
+        for (int key : keys) {
+            assertEquals("v" + key, map.get(key));
+        }
+        assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    public void rejectsNullValues() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void keepsEveryKeyReachableThroughGrowthAndRemovals() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(4);
+        for (int key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+        for (int key = 0; key < 10_000; key += 2) {
+            assertEquals(Integer.valueOf(key), map.remove(key * 31));
+        }
+
+        assertEquals(5_000, map.size());
+        for (int key = 0; key < 10_000; key++) {
+            if (key % 2 == 0) {
+                assertFalse(map.containsKey(key * 31));
+            } else {
+                assertEquals(Integer.valueOf(key), map.get(key * 31));
+            }
+        }
+        assertNull(map.remove(-5));
+    }
+
+    @Test
+    public void keysAndValuesCoverEveryEntry() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] {1, 2, 3}, keys);
+
+        List<String> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        values.sort(null);
+        assertEquals(List.of("a", "b", "c"), values);
+    }
+
+    @Test
+    public void forEachValueWhileStopsWhenTheActionReturnsFalse() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int key = 0; key < 10; key++) {
+            map.put(key, "v" + key);
+        }
+
+        int[] visited = {0};
+        assertFalse(map.forEachValueWhile(value -> ++visited[0] < 3));
+        assertEquals(3, visited[0]);
+        assertTrue(map.forEachValueWhile(value -> true));
+    }
+
+    @Test
+    public void clearEmptiesTheMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertEquals(0, map.keys().length);
+    }
+}
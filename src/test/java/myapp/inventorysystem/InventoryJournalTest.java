@@ -0,0 +1,158 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for writing, replaying and truncating an InventoryJournal. A replay applies the entries to the
+ * Inventory, so every test uses part IDs of its own and deletes its parts afterwards.
+ */
+public class InventoryJournalTest {
+
+    private static final int FIRST_ID = 970_001;
+
+    @TempDir
+    Path directory;
+
+    private Path file() {
+        return directory.resolve("inventory.journal");
+    }
+
+    private static Part part(int id, String name) {
+        return new InHouse(id, name, 1.5, 5, 0, 10, 3);
+    }
+
+    @AfterEach
+    public void deleteParts() {
+        for (int id = FIRST_ID; id < FIRST_ID + 10; id++) {
+            Part part = Inventory.lookupPart(id);
+            if (part != null) {
+                Inventory.deletePart(part);
+            }
+        }
+    }
+
+    @Test
+    public void replayAppliesTheEntriesInOrder() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 0)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+            journal.logAddPart(part(FIRST_ID + 1, "Nut"));
+            journal.logUpdatePart(part(FIRST_ID, "Hex Bolt"));
+            journal.logSetPartStock(FIRST_ID, 8);
+            journal.logDeletePart(FIRST_ID + 1);
+            assertEquals(5, journal.getSequence());
+        }
+
+        assertEquals(5, InventoryJournal.replay(file(), 0));
+
+        Part bolt = Inventory.lookupPart(FIRST_ID);
+        assertEquals("Hex Bolt", bolt.getName());
+        assertEquals(8, bolt.getStock());
+        assertNull(Inventory.lookupPart(FIRST_ID + 1));
+    }
+
+    @Test
+    public void replaySkipsTheEntriesAlreadyInTheSnapshot() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 10)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+            journal.logAddPart(part(FIRST_ID + 1, "Nut"));
+        }
+
+        assertEquals(12, InventoryJournal.replay(file(), 11));
+
+        assertNull(Inventory.lookupPart(FIRST_ID));
+        assertNotNull(Inventory.lookupPart(FIRST_ID + 1));
+    }
+
+    @Test
+    public void replayCutsOffAnIncompleteEntry() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 0)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+        }
+        long goodSize = Files.size(file());
+        Files.write(file(), new byte[] {0, 0, 0, 50, 1, 2, 3, 4, 9}, StandardOpenOption.APPEND);
+
+        assertEquals(1, InventoryJournal.replay(file(), 0));
+
+        assertEquals(goodSize, Files.size(file()));
+        assertNotNull(Inventory.lookupPart(FIRST_ID));
+    }
+
+    @Test
+    public void replayStopsAtADamagedEntryAndCutsItOff() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 0)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+        }
+        long goodSize = Files.size(file());
+        try (InventoryJournal journal = InventoryJournal.open(file(), 1)) {
+            journal.logAddPart(part(FIRST_ID + 1, "Nut"));
+            journal.logAddPart(part(FIRST_ID + 2, "Washer"));
+        }
+        byte[] bytes = Files.readAllBytes(file());
+        bytes[(int) goodSize + 10] ^= 0x55;
+        Files.write(file(), bytes);
+
+        assertEquals(1, InventoryJournal.replay(file(), 0));
+
+        assertEquals(goodSize, Files.size(file()));
+        assertNotNull(Inventory.lookupPart(FIRST_ID));
+        assertNull(Inventory.lookupPart(FIRST_ID + 1));
+        assertNull(Inventory.lookupPart(FIRST_ID + 2));
+    }
+
+    @Test
+    public void replayRejectsAJournalStartingAfterTheSnapshot() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 5)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+        }
+
+        assertThrows(IOException.class, () -> InventoryJournal.replay(file(), 3));
+        assertNull(Inventory.lookupPart(FIRST_ID));
+    }
+
+    @Test
+    public void replayEmptiesAJournalEndingBeforeTheSnapshot() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 0)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+        }
+
+        assertEquals(7, InventoryJournal.replay(file(), 7));
+
+        assertEquals(0, Files.size(file()));
+        assertNull(Inventory.lookupPart(FIRST_ID));
+    }
+
+    @Test
+    public void replayOfAMissingFileStartsAtTheSnapshot() throws IOException {
+        assertEquals(3, InventoryJournal.replay(file(), 3));
+    }
+
+    @Test
+    public void truncateEmptiesTheJournalAndKeepsTheNumbering() throws IOException {
+        try (InventoryJournal journal = InventoryJournal.open(file(), 0)) {
+            journal.logAddPart(part(FIRST_ID, "Bolt"));
+            journal.logAddPart(part(FIRST_ID + 1, "Nut"));
+            journal.truncate();
+            assertEquals(2, journal.getSequence());
+            journal.logAddPart(part(FIRST_ID + 2, "Washer"));
+        }
+
+        assertThrows(IOException.class, () -> InventoryJournal.replay(file(), 0));
+        assertEquals(3, InventoryJournal.replay(file(), 2));
+
+        assertNull(Inventory.lookupPart(FIRST_ID));
+        assertNull(Inventory.lookupPart(FIRST_ID + 1));
+        assertEquals("Washer", Inventory.lookupPart(FIRST_ID + 2).getName());
+    }
+}
@@ -0,0 +1,188 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for SortIndex, checked against sorting the records with a comparator.
+ */
+public class SortIndexTest {
+
+    private static SortIndex<Part> newIndex() {
+        return new SortIndex<>(Part::getId, Part::getName, Part::getStock, Part::getPrice);
+    }
+
+    private static Part part(int id, String name, double price, int stock) {
+        return new InHouse(id, name, price, stock, 0, 1000, 1);
+    }
+
+    private static List<SortIndex.SortKey> keys(Object... keysAndDirections) {
+        List<SortIndex.SortKey> keys = new ArrayList<>();
+        for (int i = 0; i < keysAndDirections.length; i += 2) {
+            keys.add(new SortIndex.SortKey((SortIndex.Key) keysAndDirections[i], (Boolean) keysAndDirections[i + 1]));
+        }
+        return keys;
+    }
+
+    /**
+     * Sort the parts the way the index is expected to: by the keys in turn, then by ascending ID.
+     */
+    private static int[] expected(List<Part> parts, List<SortIndex.SortKey> sortKeys) {
+        Comparator<Part> order = (a, b) -> 0;
+        for (SortIndex.SortKey sortKey : sortKeys) {
+            Comparator<Part> byKey;
+            switch (sortKey.getKey()) {
+                case NAME:
+                    byKey = Comparator.comparing(Part::getName);
+                    break;
+                case STOCK:
+                    byKey = Comparator.comparingInt(Part::getStock);
+                    break;
+                case PRICE:
+                    byKey = Comparator.comparingDouble(Part::getPrice);
+                    break;
+                default:
+                    byKey = Comparator.comparingInt(Part::getId);
+                    break;
+            }
+            order = order.thenComparing(sortKey.isDescending() ? byKey.reversed() : byKey);
+        }
+        return parts.stream().sorted(order.thenComparingInt(Part::getId)).mapToInt(Part::getId).toArray();
+    }
+
+    @Test
+    public void sortsByOneKeyWithTiesBrokenByAscendingId() {
+        SortIndex<Part> index = newIndex();
+        index.put(part(3, "Cog", 2.0, 5));
+        index.put(part(1, "Bolt", 1.0, 5));
+        index.put(part(2, "Axle", 2.0, 9));
+
+        assertArrayEquals(new int[] {2, 1, 3}, index.sort(null, keys(SortIndex.Key.NAME, false)));
+        assertArrayEquals(new int[] {3, 1, 2}, index.sort(null, keys(SortIndex.Key.NAME, true)));
+        assertArrayEquals(new int[] {1, 3, 2}, index.sort(null, keys(SortIndex.Key.STOCK, false)));
+        assertArrayEquals(new int[] {2, 1, 3}, index.sort(null, keys(SortIndex.Key.STOCK, true)));
+        assertArrayEquals(new int[] {2, 3, 1}, index.sort(null, keys(SortIndex.Key.PRICE, true)));
+    }
+
+    @Test
+    public void laterKeysBreakTiesOfEarlierOnes() {
+        SortIndex<Part> index = newIndex();
+        index.put(part(1, "Bolt", 1.0, 5));
+        index.put(part(2, "Axle", 2.0, 5));
+        index.put(part(3, "Cog", 1.0, 5));
+        index.put(part(4, "Axle", 1.0, 7));
+
+        assertArrayEquals(new int[] {2, 1, 3, 4},
+                index.sort(null, keys(SortIndex.Key.STOCK, false, SortIndex.Key.PRICE, true)));
+        assertArrayEquals(new int[] {4, 1, 3, 2},
+                index.sort(null, keys(SortIndex.Key.PRICE, false, SortIndex.Key.STOCK, true)));
+    }
+
+    @Test
+    public void sortsOnlyTheGivenIdsAndDropsUnknownOnes() {
+        SortIndex<Part> index = newIndex();
+        for (int id = 1; id <= 100; id++) {
+            index.put(part(id, "Part " + (1000 - id), id % 7, id % 3));
+        }
+        int[] ids = {50, 7, 999, 12};
+
+        assertArrayEquals(new int[] {50, 12, 7}, index.sort(ids, keys(SortIndex.Key.NAME, false)));
+        assertArrayEquals(new int[] {50, 7, 999, 12}, ids);
+    }
+
+    @Test
+    public void withoutKeysReturnsTheIdsAsGiven() {
+        SortIndex<Part> index = newIndex();
+        index.put(part(2, "B", 1.0, 1));
+        index.put(part(1, "A", 1.0, 1));
+        int[] ids = {2, 1};
+
+        assertArrayEquals(new int[] {2, 1}, index.sort(ids, List.of()));
+        assertArrayEquals(new int[] {1, 2}, index.sort(null, List.of()));
+    }
+
+    @Test
+    public void followsChangedAndRemovedRecords() {
+        SortIndex<Part> index = newIndex();
+        index.put(part(1, "Bolt", 1.0, 5));
+        index.put(part(2, "Axle", 2.0, 6));
+        index.put(part(3, "Cog", 3.0, 7));
+
+        index.put(part(1, "Zip", 1.0, 5));
+        index.setStock(3, 0);
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        index.put(part(4, "Axle", 9.0, 1));
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[] {4, 3, 1}, index.sort(null, keys(SortIndex.Key.NAME, false)));
+        assertArrayEquals(new int[] {3, 4, 1}, index.sort(null, keys(SortIndex.Key.STOCK, false)));
+        assertArrayEquals(new int[] {4, 3, 1}, index.sort(null, keys(SortIndex.Key.PRICE, true)));
+    }
+
+    @Test
+    public void agreesWithAComparatorThroughBulkLoadsAndUpdates() {
+        Random random = new Random(42);
+        List<Part> parts = new ArrayList<>();
+        for (int id = 1; id <= 5_000; id++) {
+            parts.add(part(id, "Part " + random.nextInt(200), random.nextInt(50) / 2.0, random.nextInt(100)));
+        }
+        SortIndex<Part> index = newIndex();
+        index.putAll(parts);
+
+        for (int i = 0; i < 2_000; i++) {
+            int position = random.nextInt(parts.size());
+            Part old = parts.get(position);
+            switch (random.nextInt(4)) {
+                case 0:
+                    index.remove(old.getId());
+                    parts.remove(position);
+                    break;
+                case 1:
+                    old.setStock(random.nextInt(100));
+                    index.setStock(old.getId(), old.getStock());
+                    break;
+                case 2:
+                    Part changed = part(old.getId(), "Part " + random.nextInt(200), random.nextInt(50) / 2.0,
+                            old.getStock());
+                    parts.set(position, changed);
+                    index.put(changed);
+                    break;
+                default:
+                    Part added = part(10_000 + i, "Part " + random.nextInt(200), random.nextInt(50) / 2.0,
+                            random.nextInt(100));
+                    parts.add(added);
+                    index.put(added);
+                    break;
+            }
+        }
+        assertEquals(parts.size(), index.size());
+
+        List<List<SortIndex.SortKey>> sorts = List.of(
+                keys(SortIndex.Key.NAME, false),
+                keys(SortIndex.Key.STOCK, true),
+                keys(SortIndex.Key.PRICE, false, SortIndex.Key.NAME, true),
+                keys(SortIndex.Key.STOCK, false, SortIndex.Key.PRICE, true, SortIndex.Key.NAME, false),
+                keys(SortIndex.Key.ID, true));
+        List<Part> few = parts.subList(0, 50);
+        List<Part> many = parts.subList(0, parts.size() / 2);
+        for (List<SortIndex.SortKey> sortKeys : sorts) {
+            assertArrayEquals(expected(parts, sortKeys), index.sort(null, sortKeys));
+            assertArrayEquals(expected(few, sortKeys), index.sort(ids(few), sortKeys));
+            assertArrayEquals(expected(many, sortKeys), index.sort(ids(many), sortKeys));
+        }
+    }
+
+    private static int[] ids(List<Part> parts) {
+        return parts.stream().mapToInt(Part::getId).toArray();
+    }
+}
@@ -0,0 +1,183 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for StockTransaction over ledgers of their own, so the Inventory is not involved.
+ */
+public class StockTransactionTest {
+
+    private final IntObjectMap<Part> parts = new IntObjectMap<>();
+
+    private final IntObjectMap<Product> products = new IntObjectMap<>();
+
+    /**
+     * The last level passed on by the ledgers, by record ID.
+     */
+    private final ConcurrentHashMap<Integer, Integer> reported = new ConcurrentHashMap<>();
+
+    private StockLedger partLedger;
+
+    private StockLedger productLedger;
+
+    @BeforeEach
+    public void setUp() {
+        partLedger = new StockLedger(parts::get, (record, stock) -> reported.put(record.getId(), stock));
+        productLedger = new StockLedger(products::get, (record, stock) -> reported.put(record.getId(), stock));
+        parts.put(1, new InHouse(1, "Bolt", 0.5, 10, 2, 50, 1));
+        parts.put(2, new InHouse(2, "Nut", 0.25, 4, 0, 50, 1));
+        products.put(100, new Product(100, "Bracket", 5.0, 0, 0, 5));
+    }
+
+    @Test
+    public void commitAppliesEveryChangeAcrossLedgers() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(partLedger, 1, -4);
+        transaction.adjust(partLedger, 2, -2);
+        transaction.adjust(productLedger, 100, 1);
+
+        assertTrue(transaction.commit());
+
+        assertEquals(6, parts.get(1).getStock());
+        assertEquals(2, parts.get(2).getStock());
+        assertEquals(1, products.get(100).getStock());
+        assertEquals(Integer.valueOf(6), reported.get(1));
+        assertEquals(Integer.valueOf(1), reported.get(100));
+    }
+
+    @Test
+    public void changeBelowTheMinimumAbortsTheWholeTransaction() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(partLedger, 2, -1);
+        transaction.adjust(productLedger, 100, 1);
+        transaction.adjust(partLedger, 1, -9);
+
+        assertFalse(transaction.commit());
+
+        assertEquals(10, parts.get(1).getStock());
+        assertEquals(4, parts.get(2).getStock());
+        assertEquals(0, products.get(100).getStock());
+        assertTrue(reported.isEmpty());
+    }
+
+    @Test
+    public void changeAboveTheMaximumAbortsTheWholeTransaction() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(partLedger, 1, -1);
+        transaction.adjust(productLedger, 100, 6);
+
+        assertFalse(transaction.commit());
+
+        assertEquals(10, parts.get(1).getStock());
+        assertEquals(0, products.get(100).getStock());
+    }
+
+    @Test
+    public void missingRecordAbortsTheWholeTransaction() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(partLedger, 1, -1);
+        transaction.adjust(partLedger, 99, -1);
+
+        assertFalse(transaction.commit());
+
+        assertEquals(10, parts.get(1).getStock());
+    }
+
+    @Test
+    public void changesToTheSameRecordAddUp() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(productLedger, 100, 7);
+        transaction.adjust(productLedger, 100, -3);
+
+        assertTrue(transaction.commit());
+
+        assertEquals(4, products.get(100).getStock());
+    }
+
+    @Test
+    public void reservedUnitsCountAsTaken() {
+        assertTrue(partLedger.reserve(1, 5));
+
+        StockTransaction tooMuch = new StockTransaction();
+        tooMuch.adjust(partLedger, 1, -4);
+        assertFalse(tooMuch.commit());
+
+        StockTransaction enough = new StockTransaction();
+        enough.adjust(partLedger, 1, -3);
+        assertTrue(enough.commit());
+
+        assertEquals(7, parts.get(1).getStock());
+        assertEquals(5, partLedger.getReserved(1));
+        assertEquals(2, partLedger.getAvailable(1));
+    }
+
+    @Test
+    public void transactionCanOnlyBeCommittedOnce() {
+        StockTransaction transaction = new StockTransaction();
+        transaction.adjust(partLedger, 1, -1);
+        assertTrue(transaction.commit());
+
+        assertThrows(IllegalStateException.class, transaction::commit);
+        assertThrows(IllegalStateException.class, () -> transaction.adjust(partLedger, 1, -1));
+        assertEquals(9, parts.get(1).getStock());
+    }
+
+    @Test
+    public void concurrentTransactionsNeverPassTheBoundsOrLoseUnits() throws InterruptedException {
+        parts.put(3, new InHouse(3, "Washer", 0.1, 100, 0, 200, 1));
+        parts.put(4, new InHouse(4, "Spring", 0.1, 100, 0, 200, 1));
+        AtomicInteger built = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            boolean forward = t % 2 == 0;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    StockTransaction move = new StockTransaction();
+                    move.adjust(partLedger, forward ? 3 : 4, -1);
+                    move.adjust(partLedger, forward ? 4 : 3, 1);
+                    move.commit();
+
+                    StockTransaction build = new StockTransaction();
+                    build.adjust(partLedger, 1, -1);
+                    build.adjust(partLedger, 2, -1);
+                    build.adjust(productLedger, 100, 1);
+                    if (build.commit()) {
+                        built.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200, parts.get(3).getStock() + parts.get(4).getStock());
+        assertEquals(4, built.get());
+        assertEquals(6, parts.get(1).getStock());
+        assertEquals(0, parts.get(2).getStock());
+        assertEquals(4, products.get(100).getStock());
+        assertEquals(Integer.valueOf(parts.get(3).getStock()), reported.get(3));
+        assertEquals(Integer.valueOf(4), reported.get(100));
+    }
+}
@@ -0,0 +1,116 @@
+package myapp.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for SubstringIndex.
+ */
+public class SubstringIndexTest {
+
+    private static SubstringIndex index(String... names) {
+        SubstringIndex index = new SubstringIndex();
+        for (int i = 0; i < names.length; i++) {
+            index.put(i + 1, names[i]);
+        }
+        return index;
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    public void findsNamesContainingTheTextIgnoringCase() {
+        SubstringIndex index = index("Bolt", "Big Wheel", "Wheel Nut", "Washer");
+
+        assertArrayEquals(new int[] {2, 3}, index.search("WHEEL"));
+        assertArrayEquals(new int[] {2, 3}, index.search("eel"));
+        assertArrayEquals(new int[0], index.search("wheels"));
+    }
+
+    @Test
+    public void scansForTextShorterThanATrigram() {
+        SubstringIndex index = index("Bolt", "Big Wheel", "Wheel Nut", "Washer");
+
+        assertArrayEquals(new int[] {2, 3}, index.search("ee"));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, index.search(""));
+        assertArrayEquals(new int[] {2, 3, 4}, index.search("W"));
+    }
+
+    @Test
+    public void findsIdDigits() {
+        SubstringIndex index = new SubstringIndex();
+        index.put(1234, "Cog");
+        index.put(99, "Part 23");
+        index.put(5, "Spring");
+
+        assertArrayEquals(new int[] {99, 1234}, index.search("23"));
+        assertArrayEquals(new int[] {1234}, index.search("1234"));
+        assertArrayEquals(new int[] {5}, index.search("5"));
+    }
+
+    @Test
+    public void putReplacesTheNameIndexedForAnId() {
+        SubstringIndex index = index("Bolt");
+
+        index.put(1, "Screw");
+
+        assertArrayEquals(new int[0], index.search("bolt"));
+        assertArrayEquals(new int[] {1}, index.search("screw"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void removeDropsTheItem() {
+        SubstringIndex index = index("Bolt", "Bolt Cutter");
+
+        index.remove(1);
+
+        assertArrayEquals(new int[] {2}, index.search("bolt"));
+        assertArrayEquals(new int[] {2}, index.search("bo"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void limitedSearchReturnsPrefixMatchesFirst() {
+        SubstringIndex index = index("Big Wheel", "Wheel Nut", "Steel Wheel", "Wheelbarrow", "Bolt");
+
+        int[] matches = index.search("wheel", 10);
+
+        assertEquals(4, matches.length);
+        assertArrayEquals(new int[] {2, 4}, sorted(Arrays.copyOfRange(matches, 0, 2)));
+        assertArrayEquals(new int[] {1, 3}, sorted(Arrays.copyOfRange(matches, 2, 4)));
+    }
+
+    @Test
+    public void limitedSearchStopsAtTheLimit() {
+        SubstringIndex index = index("Big Wheel", "Wheel Nut", "Steel Wheel", "Wheelbarrow");
+
+        int[] matches = index.search("wheel", 2);
+
+        assertArrayEquals(new int[] {2, 4}, sorted(matches));
+        assertEquals(1, index.search("w", 1).length);
+        assertEquals(0, index.search("wheel", 0).length);
+    }
+
+    @Test
+    public void limitedSearchAgreesWithFullSearch() {
+        SubstringIndex index = new SubstringIndex();
+        for (int id = 1; id <= 2_000; id++) {
+            index.put(id, "Part " + Integer.toString(id * 7919, 36));
+        }
+
+        for (String query : new String[] {"a", "1", "ab", "part 1", "x9", "zz", "art"}) {
+            int[] all = index.search(query);
+            int[] limited = index.search(query, Integer.MAX_VALUE);
+            assertArrayEquals(all, sorted(limited), query);
+        }
+    }
+}